@@ -0,0 +1,385 @@
+package healthtracker;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Running statistics per profile and metric: goal streaks, 7- and 30-day means of complete days,
+// this and last week's totals, and a forecast of today's total. A profile's state is built by one
+// pass over its history the first time it is asked for; after that every change of a daily total
+// (see DatabaseHelper.totalChanged) moves it in O(1), and a new day costs O(1) as well: 24 hour
+// weights and two ring slots, however long the history. Bulk imports and synced changes can rewrite
+// past days (historyChanged): days still in the ring are read again and move the sums by their
+// difference; only a change further back than the ring reads that one metric's history again.
+public class AnalyticsEngine {
+    // mean7/mean30 are over complete days only (today is still running), and over fewer days while
+    // the history is shorter than that. projected is today's expected total at midnight.
+    public record Summary(String metric, int today, int goal, int currentStreak, int longestStreak,
+                          double mean7, double mean30, long thisWeek, long lastWeek, int projected, boolean onTrack) {}
+
+    // Ring of daily totals: today plus the 30 days before it fit, with one slot to spare
+    private static final int WINDOW = 32;
+    // Per day, so the hour-of-day profile mostly reflects the last few weeks
+    private static final double HOUR_DECAY = 0.9;
+    private static final int HOURLY_SEED_DAYS = 28;
+    private static final int SEED_CHUNK_DAYS = 366;
+    // Below this share of a typical day, pace alone says little
+    private static final double MIN_SHARE = 0.1;
+    private static final LatencyHistogram SEED = Metrics.histogram("analytics.seed");
+    private static final LatencyHistogram UPDATE = Metrics.histogram("analytics.update");
+
+    private final Map<String, Trackers> profiles = new ConcurrentHashMap<>();
+
+    // Called by DatabaseHelper with the new total of a day; ignored until the profile was read. Never
+    // waits on the store: while a profile's state is being read it is queued and applied afterwards.
+    void totalChanged(String profile, String table, LocalDate date, int total) {
+        Trackers trackers = profiles.get(profile);
+        if (trackers == null) return;
+        long start = Metrics.start();
+        trackers.totalChanged(new Update(table, date.toEpochDay(), AppClock.time().getHour(), total));
+        UPDATE.recordSince(start);
+    }
+
+    // Stored totals of table from from up to yesterday were rewritten (today's arrive through
+    // totalChanged). Reads them on the calling thread: at most the ring's days, or the metric's
+    // whole history if from is older than the ring or than what the state was built from.
+    void historyChanged(String profile, String table, LocalDate from) {
+        Trackers trackers = profiles.get(profile);
+        MetricRegistry.Metric metric = MetricRegistry.find(table);
+        if (trackers == null || metric == null) return;
+        synchronized (trackers.rebuild) {
+            Tracker tracker = trackers.get(table);
+            long today = AppClock.today().toEpochDay();
+            long first = from.toEpochDay();
+            if (tracker == null || first >= today) return; // not read yet, the first read sees it
+            trackers.beginRebuild();
+            try {
+                if (first < tracker.start || first < today - (WINDOW - 1)) {
+                    Tracker seeded = seed(profile, metric);
+                    trackers.endRebuild(map -> map.put(table, seeded));
+                    Log.info("analytics", "reseeded", "profile", profile, "metric", table, "from", from);
+                } else {
+                    TimeSeries days = new TimeSeries(WINDOW);
+                    DatabaseHelper.fillDaily(profile, table, first, today - 1, days);
+                    trackers.endRebuild(map -> map.get(table).setPast(first, days, today));
+                }
+            } catch (RuntimeException e) {
+                trackers.endRebuild(map -> {});
+                throw e;
+            }
+        }
+    }
+
+    // Drops the profile's state; the next read builds it again
+    void invalidate(String profile) {
+        profiles.remove(profile);
+    }
+
+    void clear() {
+        profiles.clear();
+    }
+
+    // One per configured metric, in registry order. The first call for a profile reads its history.
+    public List<Summary> summaries(String profile) {
+        Map<String, Tracker> trackers = trackers(profile).snapshot();
+        long today = AppClock.today().toEpochDay();
+        LocalTime now = AppClock.time();
+        List<Summary> summaries = new ArrayList<>(trackers.size());
+        trackers.forEach((metric, tracker) -> summaries.add(tracker.summary(metric, today, now)));
+        return summaries;
+    }
+
+    public Summary summary(String profile, String metric) {
+        Tracker tracker = trackers(profile).get(metric);
+        if (tracker == null) {
+            throw new IllegalArgumentException("Not a configured metric: " + metric);
+        }
+        return tracker.summary(metric, AppClock.today().toEpochDay(), AppClock.time());
+    }
+
+    // Registered before the history is read, so increments made while it is read are queued for it
+    // rather than missed; a second reader waits for the first
+    private Trackers trackers(String profile) {
+        Trackers trackers = profiles.computeIfAbsent(profile, p -> new Trackers());
+        if (trackers.isSeeded()) return trackers;
+        synchronized (trackers.rebuild) {
+            if (trackers.isSeeded()) return trackers;
+            long start = System.nanoTime();
+            trackers.beginRebuild();
+            Map<String, Tracker> seeded = new LinkedHashMap<>();
+            try {
+                for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+                    seeded.put(metric.name(), seed(profile, metric));
+                }
+            } catch (RuntimeException e) {
+                trackers.endRebuild(map -> {});
+                throw e;
+            }
+            trackers.endRebuild(map -> map.putAll(seeded));
+            long elapsed = System.nanoTime() - start;
+            if (Metrics.isEnabled()) SEED.record(elapsed);
+            Log.info("analytics", "seeded", "profile", profile, "ms", elapsed / 1_000_000);
+        }
+        return trackers;
+    }
+
+    // Replays the history day by day through the same code a new day takes, in chunks so a decade
+    // is a handful of range reads; hours only for the last few weeks, which is all the forecast uses
+    private static Tracker seed(String profile, MetricRegistry.Metric metric) {
+        LocalDate today = AppClock.today();
+        LocalDate first = DatabaseHelper.getFirstDay(profile, metric.name());
+        long from = first == null || first.isAfter(today) ? today.toEpochDay() : first.toEpochDay();
+        Tracker tracker = new Tracker(metric.goal(), from);
+        TimeSeries chunk = new TimeSeries(SEED_CHUNK_DAYS);
+        TimeSeries hours = new TimeSeries(24);
+        long hourlyFrom = today.toEpochDay() - HOURLY_SEED_DAYS;
+        for (long start = from; start < today.toEpochDay(); start += SEED_CHUNK_DAYS) {
+            long end = Math.min(start + SEED_CHUNK_DAYS, today.toEpochDay()) - 1;
+            DatabaseHelper.fillDaily(profile, metric.name(), start, end, chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                long day = start + i;
+                tracker.advance(day);
+                tracker.load((int) chunk.value(i));
+                if (day >= hourlyFrom && chunk.value(i) != 0) {
+                    DatabaseHelper.fillHourly(profile, metric.name(), LocalDate.ofEpochDay(day), hours);
+                    tracker.loadHours(hours);
+                }
+            }
+        }
+        tracker.advance(today.toEpochDay());
+        // From the store and the write queue like every other day, not the totals cache: the cache
+        // lock is held by whoever calls totalChanged
+        DatabaseHelper.fillDaily(profile, metric.name(), today.toEpochDay(), today.toEpochDay(), chunk);
+        tracker.load((int) chunk.value(0));
+        DatabaseHelper.fillHourly(profile, metric.name(), today, hours);
+        tracker.loadHours(hours);
+        return tracker;
+    }
+
+    private record Update(String table, long epochDay, int hour, int total) {}
+
+    // A profile's trackers in registry order. Reads of the store happen one at a time under
+    // rebuild, outside the object's own lock; updates that arrive meanwhile are queued and applied,
+    // in order, once the new state is in place.
+    private static final class Trackers {
+        final Object rebuild = new Object();
+        private final Map<String, Tracker> byMetric = new LinkedHashMap<>();
+        private List<Update> queued;
+        private boolean seeded;
+
+        synchronized boolean isSeeded() {
+            return seeded;
+        }
+
+        synchronized Tracker get(String table) {
+            return byMetric.get(table);
+        }
+
+        synchronized Map<String, Tracker> snapshot() {
+            return new LinkedHashMap<>(byMetric);
+        }
+
+        synchronized void totalChanged(Update update) {
+            if (queued != null) {
+                queued.add(update);
+            } else {
+                apply(update);
+            }
+        }
+
+        synchronized void beginRebuild() {
+            queued = new ArrayList<>();
+        }
+
+        synchronized void endRebuild(Consumer<Map<String, Tracker>> change) {
+            change.accept(byMetric);
+            seeded = !byMetric.isEmpty();
+            queued.forEach(this::apply);
+            queued = null;
+        }
+
+        private void apply(Update update) {
+            Tracker tracker = byMetric.get(update.table());
+            if (tracker != null) {
+                tracker.set(update.epochDay(), update.hour(), update.total());
+            }
+        }
+    }
+
+    private static final class Tracker {
+        private final int goal;
+        // The first day of the history; days before it count for nothing, not even as misses
+        private final long start;
+        private final int[] days = new int[WINDOW];
+        private final int[] todayHours = new int[24];
+        // Decayed sums of closed days' amounts per hour of day
+        private final double[] hourWeights = new double[24];
+        private long day;
+        private long closedDays;
+        // Over the 7 and 30 complete days before day
+        private long sum7;
+        private long sum30;
+        // Monday to day, and the week before
+        private long week;
+        private long lastWeek;
+        // Streaks come from the ring's days plus the days that have left it: the goal was met on
+        // each of the edgeRun days just before the ring, and longestBefore is the longest run that
+        // ended before the ring. So a day still in the ring can change without any other history.
+        private int edgeRun;
+        private int longestBefore;
+
+        Tracker(int goal, long day) {
+            this.goal = goal;
+            this.start = day;
+            this.day = day;
+        }
+
+        private static int slot(long epochDay) {
+            return (int) Math.floorMod(epochDay, (long) WINDOW);
+        }
+
+        // Today's running total, as seeded
+        void load(int total) {
+            days[slot(day)] = total;
+            week += total;
+        }
+
+        void loadHours(TimeSeries hours) {
+            for (int hour = 0; hour < 24; hour++) {
+                todayHours[hour] = (int) hours.value(hour);
+            }
+        }
+
+        // Increments move today only; older days change through setPast
+        synchronized void set(long epochDay, int hour, int total) {
+            advance(epochDay);
+            if (epochDay != day) return;
+            int delta = total - days[slot(day)];
+            days[slot(day)] = total;
+            week += delta;
+            todayHours[hour] += delta;
+        }
+
+        // Rewritten totals of the days from first on, up to the day before today; days that are
+        // not in the ring (any more) are left to historyChanged
+        synchronized void setPast(long first, TimeSeries totals, long today) {
+            advance(today);
+            long monday = day - Math.floorMod(day + 3, 7L);
+            for (int i = 0; i < totals.size(); i++) {
+                long past = first + i;
+                if (past < start || past < day - (WINDOW - 1) || past >= day) continue;
+                int total = (int) totals.value(i);
+                int delta = total - days[slot(past)];
+                if (delta == 0) continue;
+                days[slot(past)] = total;
+                long age = day - past;
+                if (age <= 7) sum7 += delta;
+                if (age <= 30) sum30 += delta;
+                if (past >= monday) {
+                    week += delta;
+                } else if (past >= monday - 7) {
+                    lastWeek += delta;
+                }
+            }
+        }
+
+        // Closes every day before to. Long gaps close as empty days until the windows are clear.
+        synchronized void advance(long to) {
+            while (day < to) {
+                if (to - day > 2 * WINDOW && days[slot(day)] == 0 && sum30 == 0 && week == 0 && lastWeek == 0
+                        && goal > 0) {
+                    skipEmpty(to);
+                    return;
+                }
+                closeDay();
+            }
+        }
+
+        private void closeDay() {
+            int total = days[slot(day)];
+            for (int hour = 0; hour < 24; hour++) {
+                hourWeights[hour] = hourWeights[hour] * HOUR_DECAY + todayHours[hour];
+                todayHours[hour] = 0;
+            }
+            sum7 += total - (closedDays >= 7 ? days[slot(day - 7)] : 0);
+            sum30 += total - (closedDays >= 30 ? days[slot(day - 30)] : 0);
+            closedDays++;
+            day++;
+            leaveRing(day - WINDOW); // its slot is the new day's
+            days[slot(day)] = 0;
+            if (Math.floorMod(day + 3, 7L) == 0) { // epoch day 0 was a Thursday, so this is a Monday
+                lastWeek = week;
+                week = 0;
+            }
+        }
+
+        private void leaveRing(long past) {
+            if (past < start) return;
+            edgeRun = days[slot(past)] >= goal ? edgeRun + 1 : 0;
+            longestBefore = Math.max(longestBefore, edgeRun);
+        }
+
+        // Nothing recorded in the windows, so skipping only ages the hour weights. The whole ring
+        // leaves it, followed by empty days.
+        private void skipEmpty(long to) {
+            for (long past = day - (WINDOW - 1); past <= day; past++) {
+                leaveRing(past);
+            }
+            edgeRun = 0;
+            long gap = to - day;
+            double decay = Math.pow(HOUR_DECAY, gap);
+            for (int hour = 0; hour < 24; hour++) {
+                hourWeights[hour] *= decay;
+                todayHours[hour] = 0;
+            }
+            Arrays.fill(days, 0);
+            closedDays += gap;
+            day = to;
+        }
+
+        synchronized Summary summary(String metric, long today, LocalTime now) {
+            advance(today);
+            int total = days[slot(day)];
+            int run = edgeRun;
+            int longest = longestBefore;
+            for (long past = Math.max(start, day - (WINDOW - 1)); past < day; past++) {
+                run = days[slot(past)] >= goal ? run + 1 : 0;
+                longest = Math.max(longest, run);
+            }
+            int current = run + (total >= goal ? 1 : 0);
+            double mean7 = closedDays == 0 ? 0 : (double) sum7 / Math.min(closedDays, 7);
+            double mean30 = closedDays == 0 ? 0 : (double) sum30 / Math.min(closedDays, 30);
+            double share = shareOfDayBy(now);
+            double remaining;
+            if (mean7 > 0) {
+                remaining = mean7 * (1 - share); // a typical rest of the day
+            } else {
+                remaining = share >= MIN_SHARE ? total * (1 - share) / share : 0; // today's pace
+            }
+            int projected = (int) Math.round(total + remaining);
+            return new Summary(metric, total, goal, current, Math.max(longest, current), mean7, mean30,
+                    week, lastWeek, projected, projected >= goal);
+        }
+
+        // How much of a typical day's amount is usually in by this time, from the hour weights, or
+        // the share of the clock while there is no history
+        private double shareOfDayBy(LocalTime now) {
+            double all = 0;
+            for (double weight : hourWeights) all += weight;
+            double elapsedInHour = now.toSecondOfDay() % 3_600 / 3_600.0;
+            if (all <= 0) {
+                return now.toSecondOfDay() / 86_400.0;
+            }
+            double done = 0;
+            for (int hour = 0; hour < now.getHour(); hour++) done += hourWeights[hour];
+            done += hourWeights[now.getHour()] * elapsedInHour;
+            return done / all;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package healthtracker;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+// The clock behind every "today", rollover and event timestamp in the reminder and storage code.
+// It is the system clock unless a simulation swaps in a virtual one (see ReminderSimulation), so
+// weeks of reminders and day changes can run in milliseconds.
+public final class AppClock {
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    private AppClock() {}
+
+    public static Clock get() {
+        return clock;
+    }
+
+    public static void set(Clock newClock) {
+        clock = newClock;
+    }
+
+    public static void reset() {
+        clock = Clock.systemDefaultZone();
+    }
+
+    public static LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    public static LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    public static LocalTime time() {
+        return LocalTime.now(clock);
+    }
+
+    public static long millis() {
+        return clock.millis();
+    }
+
+    public static ZoneId zone() {
+        return clock.getZone();
+    }
+}
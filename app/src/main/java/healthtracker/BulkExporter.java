@@ -0,0 +1,147 @@
+package healthtracker;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes a profile's daily totals for a date range, reading CHUNK_DAYS days of every metric at a
+// time so memory does not grow with the range. Days without a value are left out (CSV) or
+// stored as 0 (binary). Both formats import back with BulkImporter.
+//
+//   CSV     date,metric,value rows, date-major
+//   Binary  BinaryHeader, then per day one zigzag varint per metric: a year of three metrics is
+//           about 2 KB
+public class BulkExporter {
+    public enum Format {
+        CSV, BINARY;
+
+        public static Format detect(Path file) {
+            return file.getFileName().toString().toLowerCase().endsWith(".htb") ? BINARY : CSV;
+        }
+    }
+
+    // "HTB1"
+    private static final int MAGIC = 0x48544231;
+    private static final int CHUNK_DAYS = 366;
+    private static final LatencyHistogram EXPORT = Metrics.histogram("bulk.export");
+
+    record BinaryHeader(String profile, long firstEpochDay, int days, List<String> metrics) {
+        void write(DataOutput out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeUTF(profile);
+            out.writeLong(firstEpochDay);
+            out.writeInt(days);
+            out.writeShort(metrics.size());
+            for (String metric : metrics) {
+                out.writeUTF(metric);
+            }
+        }
+
+        static BinaryHeader read(DataInput in) throws IOException {
+            if (in.readInt() != MAGIC) throw new IOException("Not a health tracker binary export");
+            String profile = in.readUTF();
+            long first = in.readLong();
+            int days = in.readInt();
+            int count = in.readUnsignedShort();
+            List<String> metrics = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                metrics.add(in.readUTF());
+            }
+            return new BinaryHeader(profile, first, days, metrics);
+        }
+    }
+
+    // Returns the number of non-zero values written. The file is replaced only once it is complete.
+    public static long export(String profile, LocalDate from, LocalDate to, Format format, Path file,
+                              BulkImporter.Progress progress) throws IOException {
+        if (to.isBefore(from)) throw new IllegalArgumentException("Empty range: " + from + " to " + to);
+        long start = System.nanoTime();
+        List<MetricRegistry.Metric> metrics = MetricRegistry.all();
+        long first = from.toEpochDay();
+        int days = (int) (to.toEpochDay() - first + 1);
+        TimeSeries[] chunk = new TimeSeries[metrics.size()];
+        for (int m = 0; m < chunk.length; m++) {
+            chunk[m] = new TimeSeries(CHUNK_DAYS);
+        }
+
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        long records = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial), 1 << 16))) {
+            Writer csv = null;
+            if (format == Format.BINARY) {
+                new BinaryHeader(profile, first, days, metrics.stream().map(MetricRegistry.Metric::name).toList()).write(out);
+            } else {
+                csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+                csv.write("date,metric,value\n");
+            }
+            for (int offset = 0; offset < days; offset += CHUNK_DAYS) {
+                int n = Math.min(CHUNK_DAYS, days - offset);
+                for (int m = 0; m < chunk.length; m++) {
+                    DatabaseHelper.fillDaily(profile, metrics.get(m).name(), first + offset, first + offset + n - 1, chunk[m]);
+                }
+                for (int d = 0; d < n; d++) {
+                    String date = csv != null ? LocalDate.ofEpochDay(first + offset + d).toString() : null;
+                    for (int m = 0; m < chunk.length; m++) {
+                        int value = (int) chunk[m].value(d);
+                        if (value != 0) records++;
+                        if (csv == null) {
+                            writeVarInt(out, value);
+                        } else if (value != 0) {
+                            csv.write(date);
+                            csv.write(',');
+                            csv.write(metrics.get(m).name());
+                            csv.write(',');
+                            csv.write(Integer.toString(value));
+                            csv.write('\n');
+                        }
+                    }
+                }
+                progress.update(records, offset + n, days);
+            }
+            if (csv != null) csv.flush();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long elapsed = System.nanoTime() - start;
+        EXPORT.record(elapsed);
+        Log.info("bulk", "exported", "profile", profile, "format", format, "days", days, "records", records,
+                "ms", elapsed / 1_000_000);
+        return records;
+    }
+
+    // Zigzag, seven bits per byte: day values mostly fit in one or two bytes
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
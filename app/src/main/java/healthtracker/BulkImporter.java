@@ -0,0 +1,409 @@
+package healthtracker;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Streams wearable exports into the store in constant memory. Records are summed per (metric, day)
+// and per hour while parsing, and every BATCH_DAYS distinct days go to the store as one write
+// batch, i.e. one transaction of batched upserts. Imports add to what is stored, like any other
+// increment, so importing the same file twice counts it twice.
+//
+//   CSV          date or ISO date-time, metric, value (what BulkExporter writes); a header is optional
+//   Apple Health export.xml or the export.zip around it; Record types mapped by <metric>.import.appleHealth
+//   Google Fit   Takeout "Daily activity metrics" CSVs: the daily summary (Date column) or a per-day
+//                file named yyyy-MM-dd*.csv (Start time column); columns mapped by <metric>.import.googleFit
+//   Binary       BulkExporter's compact format
+public class BulkImporter {
+    public enum Format {
+        CSV, APPLE_HEALTH, GOOGLE_FIT, BINARY;
+
+        // By extension, and for .csv by whether the header names Google Fit columns
+        public static Format detect(Path file) throws IOException {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".xml") || name.endsWith(".zip")) return APPLE_HEALTH;
+            if (name.endsWith(".htb")) return BINARY;
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String header = reader.readLine();
+                if (header != null && (header.startsWith("Date,") || header.startsWith("Start time,"))) {
+                    return GOOGLE_FIT;
+                }
+            }
+            return CSV;
+        }
+    }
+
+    // done and total are bytes of the file for imports and days of the range for exports
+    @FunctionalInterface
+    public interface Progress {
+        void update(long records, long done, long total);
+    }
+
+    public record Result(long records, long skipped, long batches, long elapsedNanos) {
+        public double recordsPerSecond() {
+            return elapsedNanos == 0 ? 0 : records * 1e9 / elapsedNanos;
+        }
+    }
+
+    private static final int BATCH_DAYS = 16_384;
+    private static final int PROGRESS_EVERY = 100_000;
+    private static final LatencyHistogram IMPORT = Metrics.histogram("bulk.import");
+    private static final Metrics.Counter RECORDS = Metrics.counter("bulk.imported");
+    private static final Metrics.Counter SKIPPED = Metrics.counter("bulk.skipped");
+
+    private final String profile;
+    private final Progress progress;
+    private final ZoneId zone = AppClock.zone();
+
+    // Sums of the current batch, per day and per hour of each day
+    private final Map<WriteBehindQueue.Key, Integer> days = new LinkedHashMap<>();
+    private final Map<WriteBehindQueue.Key, Map<Integer, Integer>> hours = new HashMap<>();
+    // The oldest day written per metric, for the analytics to read again
+    private final Map<String, LocalDate> changedFrom = new HashMap<>();
+    private CountingInputStream counter;
+    private long totalBytes;
+    private long records;
+    private long skipped;
+    private long batches;
+    private String lastDateText;
+    private LocalDate lastDate;
+
+    public BulkImporter(String profile, Progress progress) {
+        this.profile = profile;
+        this.progress = progress;
+    }
+
+    public static Result importFile(String profile, Path file, Format format, Progress progress) throws IOException {
+        return new BulkImporter(profile, progress).run(file, format);
+    }
+
+    public Result run(Path file, Format format) throws IOException {
+        long start = System.nanoTime();
+        totalBytes = Files.size(file);
+        DatabaseHelper.createProfile(profile);
+        try (InputStream in = counter = new CountingInputStream(Files.newInputStream(file))) {
+            switch (format) {
+                case CSV -> readCsv(in);
+                case APPLE_HEALTH -> readAppleHealth(file, in);
+                case GOOGLE_FIT -> readGoogleFit(file, in);
+                case BINARY -> readBinary(in);
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed Apple Health export: " + e.getMessage(), e);
+        } finally {
+            flush();
+            DatabaseHelper.reloadTotals(profile, changedFrom);
+            progress.update(records, counter == null ? 0 : counter.count, totalBytes);
+        }
+        long elapsed = System.nanoTime() - start;
+        IMPORT.record(elapsed);
+        RECORDS.add(records);
+        Log.info("bulk", "imported", "profile", profile, "format", format, "records", records,
+                "skipped", skipped, "batches", batches, "ms", elapsed / 1_000_000);
+        return new Result(records, skipped, batches, elapsed);
+    }
+
+    // date,metric,value or timestamp,metric,value; a first line that does not parse is the header
+    private void readCsv(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        String[] fields = new String[3];
+        String line;
+        boolean first = true;
+        while ((line = reader.readLine()) != null) {
+            boolean header = first;
+            first = false;
+            if (line.isBlank()) continue;
+            if (split(line, fields) < 3) {
+                skip();
+                continue;
+            }
+            MetricRegistry.Metric metric = MetricRegistry.find(fields[1]);
+            try {
+                double value = Double.parseDouble(fields[2]);
+                if (metric == null) {
+                    if (!header) skip();
+                    continue;
+                }
+                String when = fields[0];
+                if (when.length() == 10) {
+                    add(metric, date(when), -1, value);
+                } else if (when.length() >= 13 && when.charAt(10) == 'T') {
+                    add(metric, date(when), hour(when), value);
+                } else {
+                    throw new IllegalArgumentException("Not an ISO date or date-time: " + when);
+                }
+            } catch (RuntimeException e) {
+                if (!header) skip();
+            }
+        }
+    }
+
+    // Apple's export is one flat list of <Record type=... unit=... startDate="2019-10-28 08:05:31 +0100"
+    // value=.../> elements; StAX keeps only the current element in memory. The time is taken as
+    // written, i.e. the wall clock where it was recorded.
+    private void readAppleHealth(Path file, InputStream in) throws IOException, XMLStreamException {
+        Map<String, MetricRegistry.Metric> types = new HashMap<>();
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            if (metric.appleHealthType() != null) types.put(metric.appleHealthType(), metric);
+        }
+        InputStream xml = in;
+        if (file.getFileName().toString().toLowerCase().endsWith(".zip")) {
+            ZipInputStream zip = new ZipInputStream(in);
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null && !entry.getName().endsWith("/export.xml")
+                    && !entry.getName().equals("export.xml")) {
+                // skip the CDA document, workout routes and clinical records
+            }
+            if (entry == null) throw new IOException("No export.xml in " + file);
+            xml = zip;
+        }
+
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = factory.createXMLStreamReader(new BufferedInputStream(xml, 1 << 16), "UTF-8");
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT || !"Record".equals(reader.getLocalName())) {
+                    continue;
+                }
+                MetricRegistry.Metric metric = types.get(reader.getAttributeValue(null, "type"));
+                if (metric == null) continue; // heart rate, sleep and the rest are not tracked here
+                String start = reader.getAttributeValue(null, "startDate");
+                String value = reader.getAttributeValue(null, "value");
+                try {
+                    double amount = Double.parseDouble(value) * unitScale(reader.getAttributeValue(null, "unit"), metric);
+                    add(metric, date(start), hour(start), amount);
+                } catch (RuntimeException e) {
+                    skip();
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    // Apple records water in the unit the user picked
+    private static double unitScale(String unit, MetricRegistry.Metric metric) {
+        if (unit == null || !metric.unit().equalsIgnoreCase("ml")) return 1;
+        return switch (unit) {
+            case "L" -> 1000;
+            case "dL" -> 100;
+            case "cL" -> 10;
+            case "fl_oz_us" -> 29.5735;
+            case "fl_oz_imp" -> 28.4131;
+            case "cup_us" -> 236.588;
+            default -> 1;
+        };
+    }
+
+    private void readGoogleFit(Path file, InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        String headerLine = reader.readLine();
+        if (headerLine == null) return;
+        String[] header = new String[64];
+        int columns = split(headerLine, header);
+        int timeColumn = -1;
+        boolean daily = false;
+        List<MetricRegistry.Metric> metrics = new ArrayList<>();
+        List<Integer> metricColumns = new ArrayList<>();
+        for (int i = 0; i < columns; i++) {
+            if (header[i].equals("Date")) {
+                timeColumn = i;
+                daily = true;
+            } else if (header[i].equals("Start time")) {
+                timeColumn = i;
+            }
+            for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+                if (header[i].equals(metric.googleFitColumn())) {
+                    metrics.add(metric);
+                    metricColumns.add(i);
+                }
+            }
+        }
+        if (timeColumn < 0) throw new IOException("Not a Google Fit activity file: no Date or Start time column");
+        // Per-day files only carry the time of day; the date is in the file name
+        LocalDate fileDate = null;
+        if (!daily) {
+            String name = file.getFileName().toString();
+            try {
+                fileDate = LocalDate.parse(name.substring(0, Math.min(10, name.length())));
+            } catch (RuntimeException e) {
+                throw new IOException("Expected a yyyy-MM-dd file name for a per-day Google Fit file: " + name);
+            }
+        }
+
+        String[] fields = new String[64];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            int count = split(line, fields);
+            try {
+                LocalDate date = daily ? date(fields[timeColumn]) : fileDate;
+                int hour = daily ? -1 : Integer.parseInt(fields[timeColumn], 0, 2, 10);
+                for (int m = 0; m < metrics.size(); m++) {
+                    int column = metricColumns.get(m);
+                    if (column >= count || fields[column].isEmpty()) continue; // Fit leaves idle periods blank
+                    add(metrics.get(m), date, hour, Double.parseDouble(fields[column]));
+                }
+            } catch (RuntimeException e) {
+                skip();
+            }
+        }
+    }
+
+    private void readBinary(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        BulkExporter.BinaryHeader header = BulkExporter.BinaryHeader.read(data);
+        MetricRegistry.Metric[] metrics = new MetricRegistry.Metric[header.metrics().size()];
+        for (int i = 0; i < metrics.length; i++) {
+            metrics[i] = MetricRegistry.find(header.metrics().get(i));
+        }
+        for (int d = 0; d < header.days(); d++) {
+            LocalDate date = LocalDate.ofEpochDay(header.firstEpochDay() + d);
+            for (MetricRegistry.Metric metric : metrics) {
+                int value = BulkExporter.readVarInt(data);
+                if (value == 0) continue;
+                if (metric == null) {
+                    skip();
+                } else {
+                    add(metric, date, -1, value);
+                }
+            }
+        }
+    }
+
+    // Exports are sorted or close to it, so consecutive records mostly share the date: only the
+    // first ten characters are compared against the last date parsed
+    private LocalDate date(String text) {
+        if (lastDate == null || !text.regionMatches(0, lastDateText, 0, 10)) {
+            lastDate = LocalDate.parse(text.substring(0, 10));
+            lastDateText = text;
+        }
+        return lastDate;
+    }
+
+    // The two digits after "yyyy-MM-dd" and one separator
+    private static int hour(String text) {
+        int hour = Integer.parseInt(text, 11, 13, 10);
+        if (hour > 23) throw new IllegalArgumentException("Not an hour: " + text);
+        return hour;
+    }
+
+    // hour is -1 for records that only have a date: they count towards the day but not the hourly chart
+    private void add(MetricRegistry.Metric metric, LocalDate date, int hour, double value) {
+        int amount = (int) Math.round(value);
+        WriteBehindQueue.Key key = new WriteBehindQueue.Key(profile, metric.name(), date);
+        days.merge(key, amount, Integer::sum);
+        if (hour >= 0) {
+            hours.computeIfAbsent(key, k -> new HashMap<>(4)).merge(hour, amount, Integer::sum);
+        }
+        if (++records % PROGRESS_EVERY == 0) {
+            progress.update(records, counter.count, totalBytes);
+        }
+        if (days.size() >= BATCH_DAYS) {
+            flush();
+        }
+    }
+
+    private void skip() {
+        skipped++;
+        SKIPPED.increment();
+    }
+
+    // One write batch: the daily sums, and one event per hour so the hourly chart has them too
+    private void flush() {
+        if (days.isEmpty()) return;
+        List<WriteBehindQueue.Increment> events = new ArrayList<>();
+        for (Map.Entry<WriteBehindQueue.Key, Map<Integer, Integer>> day : hours.entrySet()) {
+            WriteBehindQueue.Key key = day.getKey();
+            for (Map.Entry<Integer, Integer> hour : day.getValue().entrySet()) {
+                long timestamp = key.date().atTime(hour.getKey(), 0).atZone(zone).toInstant().toEpochMilli();
+                events.add(new WriteBehindQueue.Increment(profile, key.table(), key.date(), timestamp, hour.getValue()));
+            }
+        }
+        if (!DatabaseHelper.writeBatch(events, days, List.of())) {
+            throw new IllegalStateException("Import batch failed; see the db.errors log entries");
+        }
+        for (WriteBehindQueue.Key key : days.keySet()) {
+            changedFrom.merge(key.table(), key.date(), (a, b) -> a.isBefore(b) ? a : b);
+        }
+        batches++;
+        days.clear();
+        hours.clear();
+    }
+
+    // Splits one CSV line into fields, dropping surrounding quotes; returns the field count
+    static int split(String line, String[] fields) {
+        int count = 0;
+        int start = 0;
+        int length = line.length();
+        while (start <= length && count < fields.length) {
+            int end;
+            String field;
+            if (start < length && line.charAt(start) == '"') {
+                end = line.indexOf('"', start + 1);
+                if (end < 0) end = length;
+                field = line.substring(start + 1, end);
+                end = line.indexOf(',', end);
+                if (end < 0) end = length;
+            } else {
+                end = line.indexOf(',', start);
+                if (end < 0) end = length;
+                field = line.substring(start, end);
+            }
+            fields[count++] = field.strip();
+            start = end + 1;
+        }
+        return count;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package healthtracker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+
+// Command line front end for BulkImporter and BulkExporter. Storage and profile come from the usual
+// -Dhealth.storage / -Dhealth.dataDir / -Dhealth.profile properties.
+//
+//   java -cp app/target/health-tracker.jar healthtracker.BulkTransfer import <file> [csv|apple|googlefit|binary]
+//   java -cp app/target/health-tracker.jar healthtracker.BulkTransfer export <file> <from> <to> [csv|binary]
+public class BulkTransfer {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            usage();
+            return;
+        }
+        String profile = DatabaseHelper.getProfile();
+        Path file = Path.of(args[1]);
+        try {
+            switch (args[0]) {
+                case "import" -> {
+                    BulkImporter.Format format = args.length > 2 ? importFormat(args[2]) : BulkImporter.Format.detect(file);
+                    BulkImporter.Result result = BulkImporter.importFile(profile, file, format, (records, done, total) ->
+                            System.err.printf("\r%,d records, %d%%", records, total == 0 ? 100 : done * 100 / total));
+                    System.err.println();
+                    System.out.printf("Imported %,d records (%,d skipped) into %s in %.1f s, %,.0f records/s%n",
+                            result.records(), result.skipped(), profile, result.elapsedNanos() / 1e9, result.recordsPerSecond());
+                }
+                case "export" -> {
+                    if (args.length < 4) {
+                        usage();
+                        return;
+                    }
+                    BulkExporter.Format format = args.length > 4
+                            ? BulkExporter.Format.valueOf(args[4].toUpperCase(Locale.ROOT))
+                            : BulkExporter.Format.detect(file);
+                    long records = BulkExporter.export(profile, LocalDate.parse(args[2]), LocalDate.parse(args[3]),
+                            format, file, (written, done, total) -> System.err.printf("\r%,d of %,d days", done, total));
+                    System.err.println();
+                    System.out.printf("Exported %,d values of %s to %s%n", records, profile, file);
+                }
+                default -> usage();
+            }
+        } finally {
+            DatabaseHelper.close();
+        }
+    }
+
+    private static BulkImporter.Format importFormat(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "csv" -> BulkImporter.Format.CSV;
+            case "apple" -> BulkImporter.Format.APPLE_HEALTH;
+            case "googlefit" -> BulkImporter.Format.GOOGLE_FIT;
+            case "binary" -> BulkImporter.Format.BINARY;
+            default -> throw new IllegalArgumentException("Unknown import format: " + name);
+        };
+    }
+
+    private static void usage() {
+        System.err.println("usage: BulkTransfer import <file> [csv|apple|googlefit|binary]");
+        System.err.println("       BulkTransfer export <file> <from yyyy-MM-dd> <to yyyy-MM-dd> [csv|binary]");
+    }
+}
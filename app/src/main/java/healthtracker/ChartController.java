@@ -0,0 +1,323 @@
+package healthtracker;
+
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.chart.AreaChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.layout.StackPane;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Owns the dashboard charts: one AreaChart per metric, created on first use, and one cached
+// series per (metric, range) of the current profile. Switching views swaps cached series; confirms
+// patch today's point. The series of the last few profiles are kept, so switching back is free.
+public class ChartController {
+    record Key(String metric, int range) {}
+
+    private record Loaded(TimeSeries data, long day, boolean complete) {}
+
+    private static class CachedSeries {
+        TimeSeries data = new TimeSeries();
+        final XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        boolean loaded;
+        long loadedOn;
+    }
+
+    private static final int CACHED_PROFILES = 4;
+
+    private final StackPane container;
+    private final Function<String, String> colors;
+    private final DataLoader loader;
+    private double pixelsPerPoint = 2.0;
+    private final Map<String, AreaChart<Number, Number>> charts = new HashMap<>();
+    private final Map<String, Map<Key, CachedSeries>> profiles = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<Key, CachedSeries>> eldest) {
+            return size() > CACHED_PROFILES;
+        }
+    };
+    private String profile = DatabaseHelper.getProfile();
+    private Map<Key, CachedSeries> cache = profiles.computeIfAbsent(profile, p -> new HashMap<>());
+    private Key current;
+
+    // FX-thread time spent applying updates, and in the layout pass that follows them
+    private long updates;
+    private long lastUpdateNanos;
+    private long maxUpdateNanos;
+    private long totalUpdateNanos;
+    private long lastLayoutNanos;
+    private long maxLayoutNanos;
+    private boolean measureLayout;
+    private long layoutStart;
+
+    public ChartController(StackPane container, Function<String, String> colors, DataLoader loader) {
+        this.container = container;
+        this.colors = colors;
+        this.loader = loader;
+    }
+
+    public void attach(Scene scene) {
+        scene.addPreLayoutPulseListener(() -> {
+            if (measureLayout) layoutStart = System.nanoTime();
+        });
+        scene.addPostLayoutPulseListener(() -> {
+            if (measureLayout) {
+                measureLayout = false;
+                lastLayoutNanos = System.nanoTime() - layoutStart;
+                maxLayoutNanos = Math.max(maxLayoutNanos, lastLayoutNanos);
+            }
+        });
+    }
+
+    // Daily series longer than the chart's width / pixelsPerPoint are downsampled before rendering
+    public void setPixelsPerPoint(double pixelsPerPoint) {
+        this.pixelsPerPoint = pixelsPerPoint;
+        profiles.values().forEach(series -> series.values().forEach(cached -> cached.loaded = false));
+    }
+
+    // Nothing is read here: the profile's series load when they are next shown
+    public void setProfile(String profile) {
+        this.profile = profile;
+        cache = profiles.computeIfAbsent(profile, p -> new HashMap<>());
+    }
+
+    // After a bulk import: every cached series of the profile is read again when next shown
+    public void invalidate(String profile) {
+        Map<Key, CachedSeries> series = profiles.get(profile);
+        if (series != null) {
+            series.values().forEach(cached -> cached.loaded = false);
+        }
+    }
+
+    // After a sync pulled changes, which can belong to any profile
+    public void invalidateAll() {
+        profiles.values().forEach(series -> series.values().forEach(cached -> cached.loaded = false));
+    }
+
+    public void show(String metric, int range) {
+        long start = System.nanoTime();
+        Key key = new Key(metric, range);
+        CachedSeries cached = cache.computeIfAbsent(key, k -> new CachedSeries());
+        if (!cached.loaded || cached.loadedOn != AppClock.today().toEpochDay()) { // first use, or a new day
+            load(key, cached, true);
+        }
+
+        AreaChart<Number, Number> chart = charts.computeIfAbsent(metric, this::createChart);
+        chart.getXAxis().setLabel(isHourly(range) ? "Hour" : isWeekly(range) ? "Week" : "Day");
+        if (chart.getData().isEmpty() || chart.getData().get(0) != cached.series) {
+            chart.getData().setAll(List.of(cached.series));
+        }
+        if (container.getChildren().isEmpty() || container.getChildren().get(0) != chart) {
+            container.getChildren().setAll(chart);
+        }
+        current = key;
+        recordUpdate(start);
+    }
+
+    // Brings today's point of every cached series of the metric up to date after a confirm
+    public void refreshToday(String metric) {
+        long today = AppClock.today().toEpochDay();
+        for (Map.Entry<Key, CachedSeries> entry : cache.entrySet()) {
+            Key key = entry.getKey();
+            if (!key.metric().equals(metric)) continue;
+
+            CachedSeries cached = entry.getValue();
+            int last = cached.data.size() - 1;
+            if (!cached.loaded || isHourly(key.range()) || isWeekly(key.range()) || cached.loadedOn != today) {
+                load(key, cached, false); // hourly, weekly mean or a new day: re-read this one series
+            } else {
+                String profile = this.profile;
+                loader.<Integer>submit("today:" + profile + ":" + key,
+                        publish -> DatabaseHelper.getDailyTotal(profile, metric), total -> {
+                    long start = System.nanoTime();
+                    if (cached.data.size() == last + 1 && cached.data.epochDay(last) == today) {
+                        cached.data.setValue(last, total);
+                        cached.series.getData().get(last).setYValue(total);
+                    }
+                    recordUpdate(start);
+                });
+            }
+        }
+    }
+
+    // Shows previously saved data for a view until its first load replaces it (see DashboardSnapshot)
+    public void preview(String metric, int range, TimeSeries data, long day) {
+        CachedSeries cached = cache.computeIfAbsent(new Key(metric, range), k -> new CachedSeries());
+        if (!cached.loaded) {
+            apply(cached, data, range, day);
+        }
+    }
+
+    // The loaded data of a view, or null if it has not finished loading
+    public TimeSeries getLoaded(String metric, int range) {
+        CachedSeries cached = cache.get(new Key(metric, range));
+        return cached != null && cached.loaded ? cached.data : null;
+    }
+
+    public Key getCurrent() {
+        return current;
+    }
+
+    public long getUpdateCount() {
+        return updates;
+    }
+
+    public double getLastUpdateMillis() {
+        return lastUpdateNanos / 1_000_000.0;
+    }
+
+    public double getMaxUpdateMillis() {
+        return maxUpdateNanos / 1_000_000.0;
+    }
+
+    public double getMeanUpdateMillis() {
+        return updates == 0 ? 0 : totalUpdateNanos / 1_000_000.0 / updates;
+    }
+
+    public double getLastLayoutMillis() {
+        return lastLayoutNanos / 1_000_000.0;
+    }
+
+    public double getMaxLayoutMillis() {
+        return maxLayoutNanos / 1_000_000.0;
+    }
+
+    private void recordUpdate(long start) {
+        long elapsed = System.nanoTime() - start;
+        updates++;
+        lastUpdateNanos = elapsed;
+        totalUpdateNanos += elapsed;
+        maxUpdateNanos = Math.max(maxUpdateNanos, elapsed);
+        measureLayout = true;
+    }
+
+    // A range of 1 shows today per hour from the event log. Up to a month is read per day, up to
+    // a year as weekly rollups, and anything longer per day again but downsampled to the chart
+    // width so multi-year peaks stay visible.
+    private static boolean isHourly(int range) {
+        return range == 1;
+    }
+
+    private static boolean isWeekly(int range) {
+        return range > 31 && range <= 366;
+    }
+
+    private int maxPoints() {
+        double width = container.getWidth() > 0 ? container.getWidth() : container.getPrefWidth();
+        return (int) Math.max(3, width / pixelsPerPoint);
+    }
+
+    // Reads the series off the FX thread. A first load of a weekly range publishes the monthly
+    // rollup first so the chart has a coarse shape while the weekly points load.
+    private void load(Key key, CachedSeries cached, boolean coarseFirst) {
+        int range = key.range();
+        int maxPoints = maxPoints();
+        String profile = this.profile;
+        loader.<Loaded>submit("series:" + profile + ":" + key, publish -> {
+            long today = AppClock.today().toEpochDay();
+            if (isHourly(range)) {
+                TimeSeries data = new TimeSeries(24);
+                DatabaseHelper.fillHourly(profile, key.metric(), LocalDate.ofEpochDay(today), data);
+                return new Loaded(data, today, true);
+            }
+            if (!isWeekly(range)) {
+                if (range > 366 && coarseFirst) {
+                    TimeSeries coarse = new TimeSeries();
+                    DatabaseHelper.fillRollup(profile, key.metric(), RollupPeriod.MONTH, range / 30 + 1, coarse);
+                    publish.accept(new Loaded(coarse, today, false));
+                }
+                TimeSeries data = new TimeSeries(range);
+                DatabaseHelper.fillDaily(profile, key.metric(), today - range + 1, today, data);
+                if (data.size() <= maxPoints) {
+                    return new Loaded(data, today, true);
+                }
+                TimeSeries reduced = new TimeSeries(maxPoints);
+                Downsampler.lttb(data, maxPoints, reduced);
+                return new Loaded(reduced, today, true);
+            }
+            if (coarseFirst) {
+                TimeSeries coarse = new TimeSeries();
+                DatabaseHelper.fillRollup(profile, key.metric(), RollupPeriod.MONTH, range / 30 + 1, coarse);
+                publish.accept(new Loaded(coarse, today, false));
+            }
+            int weeks = (range + 6) / 7;
+            TimeSeries data = new TimeSeries(weeks);
+            DatabaseHelper.fillRollup(profile, key.metric(), RollupPeriod.WEEK, weeks, data);
+            return new Loaded(data, today, true);
+        }, loaded -> {
+            long start = System.nanoTime();
+            apply(cached, loaded.data(), range, loaded.day());
+            if (loaded.complete()) {
+                cached.data = loaded.data();
+                cached.loaded = true;
+                cached.loadedOn = loaded.day();
+            }
+            recordUpdate(start);
+        });
+    }
+
+    private static void apply(CachedSeries cached, TimeSeries data, int range, long day) {
+        if (isHourly(range)) {
+            apply(cached, data, 0, 1, 0);
+        } else {
+            apply(cached, data, firstEpochDay(day, range), isWeekly(range) ? 7 : 1, 1);
+        }
+    }
+
+    private static long firstEpochDay(long today, int range) {
+        if (isWeekly(range)) {
+            int weeks = (range + 6) / 7;
+            return RollupPeriod.WEEK.start(LocalDate.ofEpochDay(today)).minusWeeks(weeks - 1).toEpochDay();
+        }
+        return today - range + 1;
+    }
+
+    // Writes the data into the existing Data nodes, only adding or removing the difference.
+    // Points are placed by date, so a coarse series lines up with the fine one that replaces it.
+    private static void apply(CachedSeries cached, TimeSeries data, long firstEpochDay, int daysPerPoint, int xOrigin) {
+        ObservableList<XYChart.Data<Number, Number>> points = cached.series.getData();
+        int n = 0;
+        for (int i = 0; i < data.size(); i++) {
+            long offset = data.epochDay(i) - firstEpochDay;
+            if (offset < 0) continue; // coarse period starting before the range
+            double x = (double) offset / daysPerPoint + xOrigin;
+            double y = data.value(i);
+            if (n < points.size()) {
+                XYChart.Data<Number, Number> point = points.get(n);
+                if (point.getXValue().doubleValue() != x) point.setXValue(x);
+                if (point.getYValue().doubleValue() != y) point.setYValue(y);
+            } else {
+                points.add(new XYChart.Data<>(x, y));
+            }
+            n++;
+        }
+        if (points.size() > n) {
+            points.remove(n, points.size());
+        }
+    }
+
+    private AreaChart<Number, Number> createChart(String metric) {
+        NumberAxis xAxis = new NumberAxis();
+        NumberAxis yAxis = new NumberAxis();
+        yAxis.setLabel(metric);
+
+        AreaChart<Number, Number> chart = new AreaChart<>(xAxis, yAxis);
+        chart.setLegendVisible(false);
+        chart.setHorizontalGridLinesVisible(false);
+        chart.setVerticalGridLinesVisible(false);
+        chart.setAlternativeRowFillVisible(false);
+        chart.setAlternativeColumnFillVisible(false);
+        chart.setAnimated(false);
+        // Series colours come from style.css through these looked-up colours, so swapping
+        // series needs no node lookups
+        String color = colors.apply(metric);
+        chart.setStyle("-fx-background-color: transparent; -metric-color: " + color + "; -metric-fill: " + color + "99;");
+        return chart;
+    }
+}
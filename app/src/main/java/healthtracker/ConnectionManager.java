@@ -0,0 +1,87 @@
+package healthtracker;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ConnectionManager {
+    public static final String DEFAULT_URL = "jdbc:sqlite:health.db";
+
+    // Everything goes through one long-lived connection; callers hold LOCK while using a cached statement
+    public static final Object LOCK = new Object();
+
+    private static String url = DEFAULT_URL;
+    private static Connection connection;
+    private static final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    public static void open(String dbUrl) throws SQLException {
+        synchronized (LOCK) {
+            close();
+            url = dbUrl;
+            connect();
+        }
+    }
+
+    public static Connection getConnection() throws SQLException {
+        synchronized (LOCK) {
+            if (connection == null || connection.isClosed()) {
+                connect();
+            }
+            return connection;
+        }
+    }
+
+    public static PreparedStatement prepare(String sql) throws SQLException {
+        synchronized (LOCK) {
+            PreparedStatement pstmt = statements.get(sql);
+            if (pstmt == null || pstmt.isClosed()) {
+                pstmt = getConnection().prepareStatement(sql);
+                statements.put(sql, pstmt);
+            }
+            return pstmt;
+        }
+    }
+
+    // They are prepared again on next use
+    public static void closeStatements() {
+        synchronized (LOCK) {
+            for (PreparedStatement pstmt : statements.values()) {
+                try {
+                    pstmt.close();
+                } catch (SQLException e) {
+                    Log.error("sqlite", "statement_close_failed", e);
+                }
+            }
+            statements.clear();
+        }
+    }
+
+    public static void close() {
+        synchronized (LOCK) {
+            closeStatements();
+
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    Log.error("sqlite", "connection_close_failed", e);
+                }
+                connection = null;
+            }
+        }
+    }
+
+    private static void connect() throws SQLException {
+        connection = DriverManager.getConnection(url);
+        try (Statement stmt = connection.createStatement()) {
+            // Only takes effect on a new, empty file, so it goes before anything writes the header;
+            // older databases are converted by SqliteStore.reclaimSpace
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            stmt.execute("PRAGMA cache_size = -8000");
+            stmt.execute("PRAGMA busy_timeout = 5000");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package healthtracker;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+// Today's running total per table. Loaded from the database once per table per day and
+// afterwards kept current by the write paths, so reads are served from memory. Loads run outside
+// the cache's lock, so add never waits on the store: an add to a table that is not loaded makes the
+// load in flight stale, and that load reads again.
+public class DailyTotalsCache {
+    private final ToIntFunction<String> loader;
+    private final Map<String, Integer> totals = new HashMap<>();
+    private LocalDate day;
+    // Moves whenever a load in flight may have missed a write
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long rollovers;
+
+    public DailyTotalsCache(ToIntFunction<String> loader) {
+        this.loader = loader;
+    }
+
+    public int get(String table) {
+        return get(table, null);
+    }
+
+    // Also runs action, if any, on the total under the cache's lock, in order with other updates
+    public int get(String table, IntConsumer action) {
+        while (true) {
+            long seen;
+            synchronized (this) {
+                rollOver(AppClock.today());
+                Integer total = totals.get(table);
+                if (total != null) {
+                    hits++;
+                    if (action != null) action.accept(total);
+                    return total;
+                }
+                seen = generation;
+            }
+            int loaded = loader.applyAsInt(table);
+            synchronized (this) {
+                rollOver(AppClock.today());
+                Integer total = totals.get(table); // loaded by another thread meanwhile
+                if (total == null && seen == generation) {
+                    misses++;
+                    totals.put(table, loaded);
+                    total = loaded;
+                }
+                if (total != null) {
+                    if (action != null) action.accept(total);
+                    return total;
+                }
+            }
+        }
+    }
+
+    // The new total if the table is loaded for that day; otherwise the next load picks it up
+    public synchronized OptionalInt add(String table, LocalDate date, int amount) {
+        rollOver(AppClock.today());
+        Integer total = date.equals(day) ? totals.computeIfPresent(table, (k, v) -> v + amount) : null;
+        if (total == null) {
+            generation++;
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(total);
+    }
+
+    public synchronized void clear() {
+        totals.clear();
+        day = null;
+        generation++;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getRollovers() {
+        return rollovers;
+    }
+
+    private void rollOver(LocalDate today) {
+        if (!today.equals(day)) {
+            if (day != null) rollovers++;
+            totals.clear();
+            day = today;
+            generation++;
+        }
+    }
+}
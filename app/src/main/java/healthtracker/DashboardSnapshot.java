@@ -0,0 +1,71 @@
+package healthtracker;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+// The last known dashboard state, saved on exit so the next start can paint rings and the
+// initial chart before the database is open. Only trusted for the profile and day it was taken on.
+public record DashboardSnapshot(String profile, LocalDate day, double[] progress, String metric, int range,
+                                TimeSeries chart) {
+    private static final int MAGIC = 0x48444253; // "HDBS"
+    private static final int VERSION = 2;
+
+    public boolean isFor(String profile, LocalDate date) {
+        return this.profile.equals(profile) && day.equals(date);
+    }
+
+    // null when missing, unreadable or from an older format; it is only a head start
+    public static DashboardSnapshot read(Path file) {
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            String profile = in.readUTF();
+            LocalDate day = LocalDate.ofEpochDay(in.readLong());
+            double[] progress = new double[in.readInt()];
+            for (int i = 0; i < progress.length; i++) {
+                progress[i] = in.readDouble();
+            }
+            String metric = in.readUTF();
+            int range = in.readInt();
+            int points = in.readInt();
+            TimeSeries chart = new TimeSeries(Math.max(points, 1));
+            for (int i = 0; i < points; i++) {
+                chart.add(in.readLong(), in.readDouble());
+            }
+            return new DashboardSnapshot(profile, day, progress, metric, range, chart);
+        } catch (IOException | RuntimeException e) {
+            Log.warn("startup", "snapshot_unreadable", "file", file, "error", e);
+            return null;
+        }
+    }
+
+    public void write(Path file) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, "dashboard", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(profile);
+                out.writeLong(day.toEpochDay());
+                out.writeInt(progress.length);
+                for (double p : progress) {
+                    out.writeDouble(p);
+                }
+                out.writeUTF(metric);
+                out.writeInt(range);
+                out.writeInt(chart.size());
+                for (int i = 0; i < chart.size(); i++) {
+                    out.writeLong(chart.epochDay(i));
+                    out.writeDouble(chart.value(i));
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.error("startup", "snapshot_write_failed", e, "file", file);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package healthtracker;
+
+import javafx.concurrent.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Runs database reads for the UI on a background thread and hands results back on the FX thread.
+// Each request belongs to a slot; a new request cancels whatever is still pending in its slot,
+// so quick clicks never deliver stale data.
+public class DataLoader {
+    @FunctionalInterface
+    public interface Job<T> {
+        // May publish intermediate results (e.g. a coarse series) before returning the final one
+        T load(Consumer<T> publish) throws Exception;
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "data-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, Task<?>> slots = new HashMap<>();
+
+    // Must be called on the FX thread; onValue runs there for every published and the final result
+    public <T> void submit(String slot, Job<T> job, Consumer<T> onValue) {
+        Task<?> previous = slots.get(slot);
+        if (previous != null) {
+            // Not interrupted: an interrupt closes any FileChannel the load is using. Its result is dropped.
+            previous.cancel(false);
+        }
+
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return job.load(this::updateValue);
+            }
+        };
+        task.valueProperty().addListener((obs, oldValue, value) -> {
+            if (value != null && !task.isCancelled()) {
+                onValue.accept(value);
+            }
+        });
+        task.setOnFailed(e -> {
+            Log.error("loader", "load_failed", task.getException(), "slot", slot);
+        });
+        task.setOnSucceeded(e -> slots.remove(slot, task));
+        slots.put(slot, task);
+        executor.execute(task);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,577 @@
+package healthtracker;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+// Static front door for storage: today's totals cache, the write-behind queue and goal events
+// on top of a pluggable HealthStore (SQLite unless configured otherwise, see HealthStore.fromConfig).
+// All data belongs to a profile. Calls without one use the active profile; switching it only swaps
+// an in-memory reference, and each profile's cached totals load on first read.
+public class DatabaseHelper {
+    public static final String DEFAULT_PROFILE = "default";
+    // Profile names end up in file names for the mapped engine
+    private static final Pattern PROFILE_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9 _.-]{0,63}");
+
+    // Held around every store call. Pending amounts are read under it too, so a flush that
+    // commits and clears them in one step is never counted twice.
+    static final Object LOCK = new Object();
+
+    private static HealthStore store;
+    private static boolean initialized;
+    private static volatile WriteBehindQueue writeQueue;
+    private static final GoalEvents goalEvents = new GoalEvents();
+    private static final AnalyticsEngine analytics = new AnalyticsEngine();
+    // When anything was last written, so background maintenance can wait for a quiet spell
+    private static volatile long lastWriteMillis;
+
+    private record Profile(String name, DailyTotalsCache dailyTotals) {
+        Profile(String name) {
+            this(name, new DailyTotalsCache(table -> loadDailyTotal(name, table)));
+        }
+    }
+
+    private static final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+    // Reads today's totals that postIncrement found missing, off the FX thread
+    private static final ExecutorService TOTALS = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "db-totals");
+        t.setDaemon(true);
+        return t;
+    });
+    private static volatile Profile active = profile(System.getProperty("health.profile", DEFAULT_PROFILE));
+
+    // Latency of every call, exported through Metrics
+    private static final LatencyHistogram INITIALIZE = Metrics.histogram("db.initializeTables");
+    private static final LatencyHistogram POST_INCREMENT = Metrics.histogram("db.postIncrement");
+    private static final LatencyHistogram POST_REMINDERS = Metrics.histogram("db.postReminders");
+    private static final LatencyHistogram WRITE_BATCH = Metrics.histogram("db.writeBatch");
+    private static final LatencyHistogram INCREMENT = Metrics.histogram("db.incrementValue");
+    private static final LatencyHistogram REBUILD_ROLLUPS = Metrics.histogram("db.rebuildRollups");
+    private static final LatencyHistogram DAILY_TOTAL = Metrics.histogram("db.getDailyTotal");
+    private static final LatencyHistogram DAILY_PROGRESS = Metrics.histogram("db.getDailyProgress");
+    private static final LatencyHistogram LOAD_DAILY_TOTAL = Metrics.histogram("db.loadDailyTotal");
+    private static final LatencyHistogram LAST_N_VALUES = Metrics.histogram("db.getLastNValues");
+    private static final LatencyHistogram FILL_DAILY = Metrics.histogram("db.fillDaily");
+    private static final LatencyHistogram FILL_HOURLY = Metrics.histogram("db.fillHourly");
+    private static final LatencyHistogram ROLLUP_VALUES = Metrics.histogram("db.getRollupValues");
+    private static final LatencyHistogram FILL_ROLLUP = Metrics.histogram("db.fillRollup");
+    private static final LatencyHistogram SAVE_REMINDERS = Metrics.histogram("db.saveReminders");
+    private static final LatencyHistogram CLOSE = Metrics.histogram("db.close");
+    private static final LatencyHistogram SWITCH_PROFILE = Metrics.histogram("db.switchProfile");
+    private static final Metrics.Counter FAILED_WRITES = Metrics.counter("db.failedWrites");
+
+    // Uses the given engine instead of the configured one; call before anything touches the store
+    public static void open(HealthStore engine) {
+        close();
+        synchronized (LOCK) {
+            store = engine;
+            initialized = false;
+        }
+    }
+
+    // Opens the configured store and creates or migrates its schema on first use, so whichever
+    // call comes first at startup pays for it and everything else waits on LOCK
+    public static HealthStore getStore() {
+        synchronized (LOCK) {
+            if (store == null) {
+                store = HealthStore.fromConfig();
+            }
+            if (!initialized) {
+                initialized = true;
+                long start = Metrics.start();
+                store.initialize();
+                INITIALIZE.recordSince(start);
+            }
+            return store;
+        }
+    }
+
+    // Initialises the store now rather than on first use
+    public static void initializeTables() {
+        getStore();
+    }
+
+    public static synchronized WriteBehindQueue getWriteQueue() {
+        if (writeQueue == null) {
+            writeQueue = new WriteBehindQueue();
+        }
+        return writeQueue;
+    }
+
+    public static String getProfile() {
+        return active.name();
+    }
+
+    // O(1): no I/O, the new profile's totals are read when first asked for. Goal state is reset
+    // and reminder listeners re-check the new profile's goals on their own thread.
+    public static void switchProfile(String name) {
+        long start = Metrics.start();
+        Profile next = profile(name);
+        Profile previous = active;
+        active = next;
+        if (next != previous) {
+            Log.info("profiles", "switched", "from", previous.name(), "to", next.name());
+            goalEvents.profileChanged(next.name());
+        }
+        SWITCH_PROFILE.recordSince(start);
+    }
+
+    // Every profile the store knows about plus any switched to in this session
+    public static List<String> listProfiles() {
+        TreeSet<String> names = new TreeSet<>(profiles.keySet());
+        synchronized (LOCK) {
+            names.addAll(getStore().listProfiles());
+        }
+        return List.copyOf(names);
+    }
+
+    // Registers a profile with the store so it is listed before anything has been recorded for it
+    public static void createProfile(String name) {
+        profile(name);
+        synchronized (LOCK) {
+            getStore().addProfile(name);
+        }
+    }
+
+    public static boolean isValidProfileName(String name) {
+        return name != null && PROFILE_NAME.matcher(name).matches();
+    }
+
+    private static Profile profile(String name) {
+        if (!isValidProfileName(name)) {
+            throw new IllegalArgumentException("Invalid profile name: " + name);
+        }
+        return profiles.computeIfAbsent(name, Profile::new);
+    }
+
+    // Queued counterparts of incrementValue and saveReminders for callers on the FX thread. Never
+    // waits on the store: if today's total is not in memory (after midnight, a profile switch or a
+    // reload) it is read on a background thread, which then tells analytics and goal listeners.
+    public static void postIncrement(String table, int increment) {
+        Profile profile = active;
+        if (postIncrement(profile, table, increment).isEmpty()) {
+            TOTALS.execute(() -> reconcile(profile, table));
+        }
+    }
+
+    // Returns the profile's new total for today, read from the store if it is not in memory
+    public static int postIncrement(String profile, String table, int increment) {
+        Profile p = profile(profile);
+        OptionalInt total = postIncrement(p, table, increment);
+        return total.isPresent() ? total.getAsInt() : reconcile(p, table);
+    }
+
+    // The new total, or empty if today's total is not in memory and has to be loaded
+    private static OptionalInt postIncrement(Profile profile, String table, int increment) {
+        long start = Metrics.start();
+        LocalDate today = AppClock.today();
+        lastWriteMillis = AppClock.millis();
+        OptionalInt total;
+        synchronized (profile.dailyTotals()) {
+            getWriteQueue().postIncrement(profile.name(), table, today, AppClock.millis(), increment);
+            total = profile.dailyTotals().add(table, today, increment);
+            // Under the cache's lock, so concurrent increments reach analytics in order
+            if (total.isPresent()) analytics.totalChanged(profile.name(), table, today, total.getAsInt());
+        }
+        if (total.isPresent()) totalChanged(profile, table, today, total.getAsInt());
+        POST_INCREMENT.recordSince(start);
+        return total;
+    }
+
+    // Loads today's total if it is not in memory and tells analytics and goal listeners about it
+    private static int reconcile(Profile profile, String table) {
+        LocalDate today = AppClock.today();
+        int total = profile.dailyTotals().get(table, t -> analytics.totalChanged(profile.name(), table, today, t));
+        totalChanged(profile, table, today, total);
+        return total;
+    }
+
+    // One row per configured metric: done if it is in the set
+    public static void postReminders(Collection<String> done) {
+        long start = Metrics.start();
+        String profile = active.name();
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            getWriteQueue().postReminders(profile, metric.name(), done.contains(metric.name()));
+        }
+        POST_REMINDERS.recordSince(start);
+    }
+
+    // After writes that bypassed the cache (bulk imports, synced changes), with the oldest day they
+    // changed per metric: today's totals are read again on the calling thread, and analytics and,
+    // for the active profile, goal listeners hear the new totals. Analytics reads the changed past
+    // days again, so the caller must not hold LOCK.
+    public static void reloadTotals(String name, Map<String, LocalDate> changedFrom) {
+        Profile profile = profile(name);
+        changedFrom.forEach((table, from) -> analytics.historyChanged(name, table, from));
+        profile.dailyTotals().clear();
+        LocalDate today = AppClock.today();
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            int total = profile.dailyTotals().get(metric.name(),
+                    t -> analytics.totalChanged(name, metric.name(), today, t));
+            totalChanged(profile, metric.name(), today, total);
+        }
+    }
+
+    // Goal events are about the active profile only
+    private static void totalChanged(Profile profile, String table, LocalDate date, int total) {
+        if (profile == active) {
+            goalEvents.totalChanged(table, date, total, getGoal(table));
+        }
+    }
+
+    static boolean writeBatch(List<WriteBehindQueue.Increment> events,
+                              Map<WriteBehindQueue.Key, Integer> increments,
+                              Collection<WriteBehindQueue.Reminders> reminders) {
+        long start = Metrics.start();
+        lastWriteMillis = AppClock.millis();
+        boolean written;
+        synchronized (LOCK) {
+            written = getStore().writeBatch(events, increments, reminders);
+        }
+        if (!written) {
+            FAILED_WRITES.increment();
+        }
+        WRITE_BATCH.recordSince(start);
+        return written;
+    }
+
+    public static void incrementValue(String table, int increment) {
+        long start = Metrics.start();
+        Profile profile = active;
+        LocalDate today = AppClock.today();
+        OptionalInt total;
+        synchronized (profile.dailyTotals()) {
+            WriteBehindQueue.Increment event = new WriteBehindQueue.Increment(
+                    profile.name(), table, today, AppClock.millis(), increment);
+            WriteBehindQueue.Key key = new WriteBehindQueue.Key(profile.name(), table, today);
+            if (!writeBatch(List.of(event), Map.of(key, increment), List.of())) {
+                INCREMENT.recordSince(start);
+                return;
+            }
+            total = profile.dailyTotals().add(table, today, increment);
+            if (total.isPresent()) analytics.totalChanged(profile.name(), table, today, total.getAsInt());
+        }
+        if (total.isPresent()) {
+            totalChanged(profile, table, today, total.getAsInt());
+        } else {
+            reconcile(profile, table);
+        }
+        INCREMENT.recordSince(start);
+    }
+
+    public static void rebuildRollups() {
+        long start = Metrics.start();
+        synchronized (LOCK) {
+            getStore().rebuildRollups();
+        }
+        REBUILD_ROLLUPS.recordSince(start);
+    }
+
+    // Tables that are not configured have no reachable goal
+    public static int getGoal(String table) {
+        MetricRegistry.Metric metric = MetricRegistry.find(table);
+        return metric == null ? Integer.MAX_VALUE : metric.goal();
+    }
+
+    public static int getDailyTotal(String table) {
+        return getDailyTotal(active.name(), table);
+    }
+
+    public static int getDailyTotal(String profile, String table) {
+        long start = Metrics.start();
+        int total = profile(profile).dailyTotals().get(table);
+        DAILY_TOTAL.recordSince(start);
+        return total;
+    }
+
+    public static double getDailyProgress(String table) {
+        return getDailyProgress(active.name(), table);
+    }
+
+    public static double getDailyProgress(String profile, String table) {
+        long start = Metrics.start();
+        double progress = Math.min((double) profile(profile).dailyTotals().get(table) / getGoal(table), 1.0);
+        DAILY_PROGRESS.recordSince(start);
+        return progress;
+    }
+
+    public static GoalEvents getGoalEvents() {
+        return goalEvents;
+    }
+
+    public static AnalyticsEngine getAnalytics() {
+        return analytics;
+    }
+
+    // The active profile's cache
+    public static DailyTotalsCache getDailyTotals() {
+        return active.dailyTotals();
+    }
+
+    // Cache miss: committed value plus anything still waiting in the write queue
+    private static int loadDailyTotal(String profile, String table) {
+        long start = Metrics.start();
+        LocalDate today = AppClock.today();
+        int total;
+        synchronized (LOCK) {
+            total = pendingAmount(profile, table, today) + getStore().loadDaily(profile, table, today);
+        }
+        LOAD_DAILY_TOTAL.recordSince(start);
+        return total;
+    }
+
+    private static int pendingAmount(String profile, String table, LocalDate date) {
+        WriteBehindQueue queue = writeQueue;
+        return queue == null ? 0 : queue.pendingAmount(profile, table, date);
+    }
+
+    // One value per calendar day ending today; days without a row stay 0
+    public static double[] getLastNValues(String table, int n) {
+        long start = Metrics.start();
+        long today = AppClock.today().toEpochDay();
+        TimeSeries series = new TimeSeries(n);
+        fillDaily(table, today - n + 1, today, series);
+        double[] values = series.toValueArray();
+        LAST_N_VALUES.recordSince(start);
+        return values;
+    }
+
+    public static void fillDaily(String table, long fromEpochDay, long toEpochDay, TimeSeries out) {
+        fillDaily(active.name(), table, fromEpochDay, toEpochDay, out);
+    }
+
+    // Fills out with one point per day in [fromEpochDay, toEpochDay], reusing its arrays
+    public static void fillDaily(String profile, String table, long fromEpochDay, long toEpochDay, TimeSeries out) {
+        long start = Metrics.start();
+        int n = (int) (toEpochDay - fromEpochDay + 1);
+        out.reset(n);
+        for (int i = 0; i < n; i++) {
+            out.set(i, fromEpochDay + i, 0);
+        }
+        synchronized (LOCK) {
+            getStore().fillDaily(profile, table, fromEpochDay, toEpochDay, out);
+
+            // Fold in increments still waiting in the write queue: mostly today's, but a day can
+            // end before its last writes are flushed
+            WriteBehindQueue queue = writeQueue;
+            if (queue != null) {
+                queue.forEachPending(profile, table, (date, amount) -> {
+                    long index = date.toEpochDay() - fromEpochDay;
+                    if (index >= 0 && index < n) {
+                        out.setValue((int) index, out.value((int) index) + amount);
+                    }
+                });
+            }
+        }
+        FILL_DAILY.recordSince(start);
+    }
+
+    public static LocalDate getFirstDay(String profile, String table) {
+        synchronized (LOCK) {
+            return getStore().firstDay(profile, table);
+        }
+    }
+
+    public static void fillHourly(String table, LocalDate date, TimeSeries out) {
+        fillHourly(active.name(), table, date, out);
+    }
+
+    // Fills out with 24 points (key = hour of day, local time) summed from the event log
+    public static void fillHourly(String profile, String table, LocalDate date, TimeSeries out) {
+        long start = Metrics.start();
+        out.reset(24);
+        for (int hour = 0; hour < 24; hour++) {
+            out.set(hour, hour, 0);
+        }
+        synchronized (LOCK) {
+            getStore().fillHourly(profile, table, date, out);
+
+            // Still-queued increments are seconds old, so they belong to the current hour
+            if (date.equals(AppClock.today())) {
+                int hour = AppClock.time().getHour();
+                out.setValue(hour, out.value(hour) + pendingAmount(profile, table, date));
+            }
+        }
+        FILL_HOURLY.recordSince(start);
+    }
+
+    // Mean of the recorded days in each of the last count periods, ending with the current one
+    public static double[] getRollupValues(String table, RollupPeriod period, int count) {
+        long start = Metrics.start();
+        TimeSeries series = new TimeSeries(count);
+        fillRollup(table, period, count, series);
+        double[] values = series.toValueArray();
+        ROLLUP_VALUES.recordSince(start);
+        return values;
+    }
+
+    public static void fillRollup(String table, RollupPeriod period, int count, TimeSeries out) {
+        fillRollup(active.name(), table, period, count, out);
+    }
+
+    // Fills out with the last count periods, each point keyed by the epoch day its period starts
+    public static void fillRollup(String profile, String table, RollupPeriod period, int count, TimeSeries out) {
+        long start = Metrics.start();
+        LocalDate today = AppClock.today();
+        LocalDate current = period.start(today);
+        LocalDate first = period.plus(current, 1 - count);
+        out.reset(count);
+        period.fillStarts(first, count, out);
+        synchronized (LOCK) {
+            int lastDays = getStore().fillRollup(profile, table, period, first, count, out);
+            int pendingToday = pendingAmount(profile, table, today);
+            if (pendingToday != 0) {
+                // Still queued: adds to the current period's sum, or is its first write
+                double last = out.value(count - 1);
+                out.setValue(count - 1, lastDays == 0 ? pendingToday : last + (double) pendingToday / lastDays);
+            }
+        }
+        FILL_ROLLUP.recordSince(start);
+    }
+
+    // Sync goes through here so every store call holds LOCK; the network calls themselves do not
+    public static String getDeviceId() {
+        synchronized (LOCK) {
+            return getStore().deviceId();
+        }
+    }
+
+    static List<SyncChange> localChangesSince(long version, int limit) {
+        synchronized (LOCK) {
+            return getStore().localChangesSince(version, limit);
+        }
+    }
+
+    // Remote totals change the cached totals and analytics of whichever profiles they touch
+    static boolean applyRemoteChanges(List<SyncChange> changes) {
+        boolean applied;
+        synchronized (LOCK) {
+            applied = getStore().applyRemoteChanges(changes);
+        }
+        if (applied) {
+            Map<String, Map<String, LocalDate>> changedFrom = new HashMap<>();
+            for (SyncChange change : changes) {
+                if (!isValidProfileName(change.profile())) continue;
+                changedFrom.computeIfAbsent(change.profile(), p -> new HashMap<>())
+                        .merge(change.metric(), change.date(), (a, b) -> a.isBefore(b) ? a : b);
+            }
+            changedFrom.forEach(DatabaseHelper::reloadTotals);
+        } else {
+            FAILED_WRITES.increment();
+        }
+        return applied;
+    }
+
+    static String getSyncState(String key) {
+        synchronized (LOCK) {
+            return getStore().getSyncState(key);
+        }
+    }
+
+    static void setSyncState(String key, String value) {
+        synchronized (LOCK) {
+            getStore().setSyncState(key, value);
+        }
+    }
+
+    public static long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+
+    // Background maintenance, one bounded step per call so LOCK is never held for long (see MaintenanceService)
+    static int compactEvents(long beforeMillis, int limit) {
+        synchronized (LOCK) {
+            return getStore().compactEvents(beforeMillis, limit);
+        }
+    }
+
+    static int archiveReminders(LocalDate before, int limit) {
+        synchronized (LOCK) {
+            return getStore().archiveReminders(before, limit);
+        }
+    }
+
+    static long reclaimSpace(int maxPages) {
+        synchronized (LOCK) {
+            return getStore().reclaimSpace(maxPages);
+        }
+    }
+
+    static void analyze() {
+        synchronized (LOCK) {
+            getStore().analyze();
+        }
+    }
+
+    static String checkIntegrity() {
+        synchronized (LOCK) {
+            return getStore().checkIntegrity();
+        }
+    }
+
+    static long getStoreSize() {
+        synchronized (LOCK) {
+            return getStore().sizeBytes();
+        }
+    }
+
+    public static void saveReminders(Collection<String> done) {
+        long start = Metrics.start();
+        String profile = active.name();
+        LocalDate today = AppClock.today();
+        List<WriteBehindQueue.Reminders> rows = new ArrayList<>();
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            rows.add(new WriteBehindQueue.Reminders(profile, today, metric.name(), done.contains(metric.name())));
+        }
+        writeBatch(List.of(), Map.of(), rows);
+        SAVE_REMINDERS.recordSince(start);
+    }
+
+    // Commits everything still queued before the store goes away. Runs with the caller's interrupt
+    // flag cleared, which would otherwise close the mapped store's channels mid-write, and sets it again.
+    public static void close() {
+        long start = Metrics.start();
+        boolean interrupted = Thread.interrupted();
+        try {
+            WriteBehindQueue queue;
+            synchronized (DatabaseHelper.class) {
+                queue = writeQueue;
+                writeQueue = null;
+            }
+            if (queue != null) {
+                queue.close();
+            }
+            // Totals still being read in the background come from this store, never a later one
+            try {
+                TOTALS.submit(() -> {}).get();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+            profiles.values().forEach(profile -> profile.dailyTotals().clear());
+            analytics.clear();
+            goalEvents.reset();
+            synchronized (LOCK) {
+                if (store != null) {
+                    store.close();
+                    store = null;
+                }
+                initialized = false;
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        CLOSE.recordSince(start);
+    }
+}
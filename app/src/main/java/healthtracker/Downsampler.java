@@ -0,0 +1,83 @@
+package healthtracker;
+
+// Reduces a series to a bounded number of points before it reaches a chart.
+// Neither method allocates beyond growing out.
+public class Downsampler {
+
+    // Largest-Triangle-Three-Buckets: per bucket keeps the point forming the largest triangle with
+    // the previously kept point and the average of the next bucket, which preserves peaks and dips.
+    // The first and last points are always kept.
+    public static void lttb(TimeSeries in, int threshold, TimeSeries out) {
+        int n = in.size();
+        out.clear();
+        if (threshold >= n || threshold < 3) {
+            for (int i = 0; i < n; i++) out.add(in.epochDay(i), in.value(i));
+            return;
+        }
+
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        out.add(in.epochDay(0), in.value(0));
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += in.epochDay(i);
+                avgY += in.value(i);
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                avgX /= nextCount;
+                avgY /= nextCount;
+            } else {
+                avgX = in.epochDay(n - 1);
+                avgY = in.value(n - 1);
+            }
+
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double ax = in.epochDay(a);
+            double ay = in.value(a);
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((ax - avgX) * (in.value(i) - ay) - (ax - in.epochDay(i)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            out.add(in.epochDay(chosen), in.value(chosen));
+            a = chosen;
+        }
+        out.add(in.epochDay(n - 1), in.value(n - 1));
+    }
+
+    // Cheaper alternative: the minimum and maximum of each bucket, in the order they occur
+    public static void minMax(TimeSeries in, int buckets, TimeSeries out) {
+        int n = in.size();
+        out.clear();
+        if (buckets * 2 >= n || buckets < 1) {
+            for (int i = 0; i < n; i++) out.add(in.epochDay(i), in.value(i));
+            return;
+        }
+
+        double bucketSize = (double) n / buckets;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int start = (int) (bucket * bucketSize);
+            int end = Math.min((int) ((bucket + 1) * bucketSize), n);
+            int min = start;
+            int max = start;
+            for (int i = start + 1; i < end; i++) {
+                if (in.value(i) < in.value(min)) min = i;
+                if (in.value(i) > in.value(max)) max = i;
+            }
+            int first = Math.min(min, max);
+            int second = Math.max(min, max);
+            out.add(in.epochDay(first), in.value(first));
+            if (second != first) out.add(in.epochDay(second), in.value(second));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package healthtracker;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+// Server-sent events to any number of open responses. A subscribed exchange stays open after its
+// handler returns, so an idle client holds a socket but no thread. Each client has a short queue
+// of frames, written in order by at most one task at a time on the executor; a client that falls
+// MAX_QUEUED frames behind (stalled network, suspended laptop) is disconnected rather than
+// holding up everyone else.
+final class EventStream {
+    private static final int MAX_QUEUED = 32;
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final Metrics.Counter SENT = Metrics.counter("server.events.sent");
+    private static final Metrics.Counter DROPPED = Metrics.counter("server.events.droppedClients");
+
+    private final Executor executor;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+    EventStream(Executor executor) {
+        this.executor = executor;
+    }
+
+    void subscribe(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        Client client = new Client(exchange);
+        clients.add(client);
+        client.offer(HEARTBEAT); // lets the client know the stream is open
+    }
+
+    // data is a single line (JSON)
+    void publish(String event, String data) {
+        byte[] frame = ("event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        for (Client client : clients) {
+            client.offer(frame);
+        }
+    }
+
+    // A comment line, so proxies keep idle streams open and closed ones are noticed
+    void heartbeat() {
+        for (Client client : clients) {
+            client.offer(HEARTBEAT);
+        }
+    }
+
+    int size() {
+        return clients.size();
+    }
+
+    void close() {
+        for (Client client : clients) {
+            client.disconnect();
+        }
+    }
+
+    private final class Client {
+        private final HttpExchange exchange;
+        private final OutputStream out;
+        private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+        private boolean writing;
+
+        Client(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+        }
+
+        void offer(byte[] frame) {
+            synchronized (this) {
+                if (queue.size() >= MAX_QUEUED) {
+                    DROPPED.increment();
+                    Log.info("server", "event_client_dropped", "remote", exchange.getRemoteAddress());
+                } else {
+                    queue.add(frame);
+                    if (writing) return;
+                    writing = true;
+                    executor.execute(this::drain);
+                    return;
+                }
+            }
+            disconnect();
+        }
+
+        private void drain() {
+            while (true) {
+                byte[] frame;
+                synchronized (this) {
+                    frame = queue.poll();
+                    if (frame == null) {
+                        writing = false;
+                        return;
+                    }
+                }
+                try {
+                    out.write(frame);
+                    out.flush();
+                    if (frame != HEARTBEAT) SENT.increment();
+                } catch (IOException e) {
+                    disconnect();
+                    return;
+                }
+            }
+        }
+
+        // Closing writes the final chunk, which can block on a stalled client, so not on the caller
+        void disconnect() {
+            if (clients.remove(this)) {
+                executor.execute(exchange::close);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package healthtracker;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Publishes goal-reached and day-rollover events as totals change, so reminder jobs
+// react to writes instead of polling the database.
+public class GoalEvents {
+    public interface Listener {
+        void goalReached(String table);
+
+        void dayRolledOver(LocalDate day);
+
+        // Goals reached so far belonged to the previous profile
+        default void profileChanged(String profile) {
+        }
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Set<String> reached = new HashSet<>();
+    private LocalDate day = AppClock.today();
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Called with the new total after every increment
+    public void totalChanged(String table, LocalDate date, int total, int goal) {
+        checkDay(AppClock.today());
+        boolean crossed;
+        synchronized (this) {
+            crossed = date.equals(day) && total >= goal && reached.add(table);
+        }
+        if (crossed) {
+            Log.info("goals", "goal_reached", "table", table, "total", total, "goal", goal);
+            for (Listener listener : listeners) {
+                listener.goalReached(table);
+            }
+        }
+    }
+
+    public void checkDay(LocalDate today) {
+        synchronized (this) {
+            if (today.equals(day)) return;
+            day = today;
+            reached.clear();
+        }
+        Log.info("goals", "day_rolled_over", "day", today);
+        for (Listener listener : listeners) {
+            listener.dayRolledOver(today);
+        }
+    }
+
+    public void profileChanged(String profile) {
+        synchronized (this) {
+            reached.clear();
+        }
+        for (Listener listener : listeners) {
+            listener.profileChanged(profile);
+        }
+    }
+
+    // Goals reached so far were counted against a store that is gone
+    public synchronized void reset() {
+        reached.clear();
+    }
+
+    public synchronized boolean isReached(String table) {
+        return reached.contains(table);
+    }
+}
@@ -0,0 +1,328 @@
+package healthtracker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The tracker without JavaFX, for running it centrally: the same DatabaseHelper (write-behind
+// queue, totals cache, profiles) and ReminderEngine behind a small JSON API on the JDK's HTTP
+// server. Requests run on a virtual thread each when the JVM has them (Java 21+), otherwise on a
+// fixed pool of -Dhealth.server.threads platform threads. Reminders and goals of the active profile
+// go out as server-sent events; increments to any other profile are stored but raise no events, so
+// those clients read goals from the increment's progress. No authentication: main listens on the
+// loopback interface unless -Dhealth.server.bind names another address (0.0.0.0 for all), which
+// should only be on a trusted network.
+//
+//   POST /api/increment?metric=Hydration[&amount=250][&profile=..]   {"metric", "total", "goal", "progress"}
+//   GET  /api/progress[?profile=..]                                 today's totals of every metric
+//   GET  /api/history?metric=Steps&from=2025-01-01&to=2025-01-31[&profile=..]   one value per day
+//   GET  /api/events                                                the active profile's reminder and goal events
+//
+//   java [-Dhealth.server.bind=<address>] -cp app/target/health-tracker.jar healthtracker.HeadlessServer [port]
+public class HeadlessServer implements AutoCloseable {
+    private static final int MAX_HISTORY_DAYS = 3_660;
+    private static final int MAX_AMOUNT = 1_000_000;
+    private static final long HEARTBEAT_MS = 15_000;
+    private static final LatencyHistogram INCREMENT = Metrics.histogram("server.increment");
+    private static final LatencyHistogram PROGRESS = Metrics.histogram("server.progress");
+    private static final LatencyHistogram HISTORY = Metrics.histogram("server.history");
+    private static final Metrics.Counter ERRORS = Metrics.counter("server.errors");
+
+    // The JDK server closes keep-alive connections beyond 200 idle ones, so most clients of a busy
+    // office would reconnect for every request. Read when the first HttpServer is created.
+    static {
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+        }
+    }
+
+    private interface Handler {
+        String handle(Map<String, String> query);
+    }
+
+    // 4xx: the message goes back to the client
+    private static final class BadRequest extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        BadRequest(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final HttpServer http;
+    private final ExecutorService executor = requestExecutor();
+    private final ReminderScheduler scheduler = new ReminderScheduler();
+    private final EventStream events = new EventStream(executor);
+    private final ReminderEngine reminders;
+    private final GoalEvents.Listener goals = new GoalEvents.Listener() {
+        @Override
+        public void goalReached(String table) {
+            events.publish("goal", "{\"profile\":" + quote(DatabaseHelper.getProfile()) + ",\"metric\":" + quote(table) + "}");
+        }
+
+        @Override
+        public void dayRolledOver(LocalDate day) {
+        }
+    };
+
+    // Port 0 picks a free one, see getUri
+    public HeadlessServer(InetSocketAddress address) throws IOException {
+        http = HttpServer.create(address, Integer.getInteger("health.server.backlog", 1_024));
+        http.createContext("/api/increment", exchange -> serve(exchange, "POST", INCREMENT, this::increment));
+        http.createContext("/api/progress", exchange -> serve(exchange, "GET", PROGRESS, this::progress));
+        http.createContext("/api/history", exchange -> serve(exchange, "GET", HISTORY, this::history));
+        http.createContext("/api/events", this::subscribe);
+        http.setExecutor(executor);
+
+        reminders = new ReminderEngine(scheduler, DatabaseHelper.getGoalEvents(), this::deliver);
+        reminders.start(ReminderEngine.DEFAULT_REMINDERS);
+        DatabaseHelper.getGoalEvents().addListener(goals);
+        scheduler.schedule("event-heartbeat", HEARTBEAT_MS, job -> events.heartbeat());
+        http.start();
+        Log.info("server", "started", "address", http.getAddress(), "virtualThreads", !isPlatformPool(executor));
+    }
+
+    // One virtual thread per request where the JVM has them, found reflectively since the build
+    // targets Java 17; -Dhealth.server.virtualThreads=false forces the platform pool
+    static ExecutorService requestExecutor() {
+        if (!"false".equals(System.getProperty("health.server.virtualThreads"))) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // Java 17-20
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(Integer.getInteger("health.server.threads", 64), r -> {
+            Thread t = new Thread(r, "http-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static boolean isPlatformPool(ExecutorService executor) {
+        return executor instanceof ThreadPoolExecutor;
+    }
+
+    public URI getUri() {
+        InetSocketAddress address = http.getAddress();
+        String host = address.getAddress().isAnyLocalAddress() ? "localhost" : address.getHostString();
+        if (host.contains(":")) host = "[" + host + "]";
+        return URI.create("http://" + host + ":" + address.getPort() + "/");
+    }
+
+    public int getSubscriberCount() {
+        return events.size();
+    }
+
+    private String increment(Map<String, String> query) {
+        MetricRegistry.Metric metric = metric(query);
+        int amount = query.containsKey("amount") ? parseInt(query.get("amount"), "amount") : metric.increment();
+        if (amount <= 0 || amount > MAX_AMOUNT) {
+            throw new BadRequest(400, "amount must be between 1 and " + MAX_AMOUNT);
+        }
+        String profile = profile(query);
+        int total = DatabaseHelper.postIncrement(profile, metric.name(), amount);
+        return progressJson(metric, total);
+    }
+
+    private String progress(Map<String, String> query) {
+        String profile = profile(query);
+        StringBuilder json = new StringBuilder(256)
+                .append("{\"profile\":").append(quote(profile))
+                .append(",\"date\":\"").append(AppClock.today()).append("\",\"metrics\":[");
+        String separator = "";
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            json.append(separator).append(progressJson(metric, DatabaseHelper.getDailyTotal(profile, metric.name())));
+            separator = ",";
+        }
+        return json.append("]}").toString();
+    }
+
+    private String history(Map<String, String> query) {
+        MetricRegistry.Metric metric = metric(query);
+        LocalDate to = query.containsKey("to") ? parseDate(query.get("to"), "to") : AppClock.today();
+        LocalDate from = query.containsKey("from") ? parseDate(query.get("from"), "from") : to.minusDays(29);
+        long days = to.toEpochDay() - from.toEpochDay() + 1;
+        if (days <= 0 || days > MAX_HISTORY_DAYS) {
+            throw new BadRequest(400, "from..to must cover 1 to " + MAX_HISTORY_DAYS + " days");
+        }
+        TimeSeries series = new TimeSeries((int) days);
+        DatabaseHelper.fillDaily(profile(query), metric.name(), from.toEpochDay(), to.toEpochDay(), series);
+        StringBuilder json = new StringBuilder(64 + series.size() * 4)
+                .append("{\"metric\":").append(quote(metric.name()))
+                .append(",\"from\":\"").append(from).append("\",\"to\":\"").append(to).append("\",\"values\":[");
+        for (int i = 0; i < series.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append((long) series.value(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String progressJson(MetricRegistry.Metric metric, int total) {
+        return "{\"metric\":" + quote(metric.name()) + ",\"total\":" + total + ",\"goal\":" + metric.goal()
+                + ",\"progress\":" + Math.min((double) total / metric.goal(), 1.0) + "}";
+    }
+
+    private void subscribe(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getRequestBody().close();
+        events.subscribe(exchange); // stays open until the client goes away or the server stops
+    }
+
+    // Runs on the scheduler thread at the tick
+    private void deliver(ReminderEngine.Reminder reminder) {
+        events.publish("reminder", "{\"profile\":" + quote(DatabaseHelper.getProfile())
+                + ",\"metric\":" + quote(reminder.table())
+                + ",\"title\":" + quote(reminder.title())
+                + ",\"message\":" + quote(reminder.message()) + "}");
+    }
+
+    private static void serve(HttpExchange exchange, String method, LatencyHistogram latency, Handler handler)
+            throws IOException {
+        long start = Metrics.start();
+        try (exchange) {
+            exchange.getRequestBody().close();
+            int status = 200;
+            String body;
+            if (!method.equals(exchange.getRequestMethod())) {
+                status = 405;
+                body = error("use " + method);
+            } else {
+                try {
+                    body = handler.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+                } catch (BadRequest e) {
+                    status = e.status;
+                    body = error(e.getMessage());
+                } catch (RuntimeException e) {
+                    ERRORS.increment();
+                    Log.error("server", "request_failed", e, "uri", exchange.getRequestURI());
+                    status = 500;
+                    body = error("internal error");
+                }
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            latency.recordSince(start);
+        }
+    }
+
+    private static MetricRegistry.Metric metric(Map<String, String> query) {
+        String name = query.get("metric");
+        if (name == null) throw new BadRequest(400, "metric is required");
+        MetricRegistry.Metric metric = MetricRegistry.find(name);
+        if (metric == null) throw new BadRequest(404, "unknown metric: " + name);
+        return metric;
+    }
+
+    private static String profile(Map<String, String> query) {
+        String profile = query.get("profile");
+        if (profile == null) return DatabaseHelper.getProfile();
+        if (!DatabaseHelper.isValidProfileName(profile)) throw new BadRequest(400, "invalid profile: " + profile);
+        return profile;
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequest(400, name + " must be a number");
+        }
+    }
+
+    private static LocalDate parseDate(String value, String name) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequest(400, name + " must be a date (yyyy-MM-dd)");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    static String quote(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        DatabaseHelper.getGoalEvents().removeListener(goals);
+        reminders.stop();
+        scheduler.shutdown();
+        events.close();
+        executor.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("health.server.port", 8080);
+        String bind = System.getProperty("health.server.bind");
+        InetAddress host = bind == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bind);
+        DatabaseHelper.initializeTables();
+        HeadlessServer server = new HeadlessServer(new InetSocketAddress(host, port));
+        Metrics.startSnapshots(server.scheduler);
+        MaintenanceService maintenance = MaintenanceService.fromConfig();
+        if (maintenance != null) {
+            maintenance.start();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (maintenance != null) maintenance.stop();
+            server.close();
+            DatabaseHelper.close();
+        }, "shutdown"));
+        System.out.println("Health tracker API listening on " + server.getUri());
+    }
+}
@@ -0,0 +1,108 @@
+package healthtracker;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// A storage engine behind DatabaseHelper. Implementations hold committed data only; DatabaseHelper
+// folds in what is still queued and calls every method with DatabaseHelper.LOCK held. All data is
+// partitioned by profile, and each write record carries the profile it belongs to.
+public interface HealthStore {
+    // Selected with -Dhealth.storage=sqlite (default) or -Dhealth.storage=mapped
+    static HealthStore fromConfig() {
+        String engine = System.getProperty("health.storage", "sqlite");
+        return switch (engine) {
+            case "sqlite" -> new SqliteStore();
+            case "mapped" -> new MappedFileStore(System.getProperty("health.dataDir", "health-data"));
+            default -> throw new IllegalArgumentException("Unknown health.storage: " + engine);
+        };
+    }
+
+    void initialize();
+
+    // Applies one batch atomically: all of it survives a crash or none of it does
+    boolean writeBatch(List<WriteBehindQueue.Increment> events,
+                       Map<WriteBehindQueue.Key, Integer> increments,
+                       Collection<WriteBehindQueue.Reminders> reminders);
+
+    int loadDaily(String profile, String table, LocalDate date);
+
+    // The fill methods only set values; out already has its size and keys
+    void fillDaily(String profile, String table, long fromEpochDay, long toEpochDay, TimeSeries out);
+
+    void fillHourly(String profile, String table, LocalDate date, TimeSeries out);
+
+    // The earliest day the profile has a value of table on, or null if it has none
+    LocalDate firstDay(String profile, String table);
+
+    // Sets the mean of the recorded days of each period from first on, and returns the number of
+    // recorded days in the last one so pending increments can be folded into its mean
+    int fillRollup(String profile, String table, RollupPeriod period, LocalDate first, int count, TimeSeries out);
+
+    // Profiles that were created or written to, in name order
+    List<String> listProfiles();
+
+    void addProfile(String profile);
+
+    void rebuildRollups();
+
+    // Delta sync (see SyncEngine). An engine that keeps a change log has a device id; the others
+    // return null and are never synced.
+    default String deviceId() {
+        return null;
+    }
+
+    // This device's changes with a version above the given one, oldest first
+    default List<SyncChange> localChangesSince(long version, int limit) {
+        return List.of();
+    }
+
+    // Merges other devices' changes in one transaction, moving the daily totals by the difference
+    default boolean applyRemoteChanges(List<SyncChange> changes) {
+        return false;
+    }
+
+    default String getSyncState(String key) {
+        return null;
+    }
+
+    default void setSyncState(String key, String value) {
+    }
+
+    // Background maintenance (see MaintenanceService). Each call is one bounded step, so the caller
+    // holds LOCK only briefly; engines with nothing to maintain keep the defaults.
+
+    // Folds the event log before beforeMillis into one row per profile, metric and hour, whole days
+    // at a time from where the last call stopped, until about limit rows were read. Returns the rows
+    // removed, or -1 once everything before beforeMillis is compact.
+    default int compactEvents(long beforeMillis, int limit) {
+        return -1;
+    }
+
+    // Moves up to limit checklist rows from before the given day into per-month counts
+    default int archiveReminders(LocalDate before, int limit) {
+        return 0;
+    }
+
+    // Returns up to maxPages free pages to the file system; the bytes the store shrank by
+    default long reclaimSpace(int maxPages) {
+        return 0;
+    }
+
+    // Refreshes the statistics the query planner uses
+    default void analyze() {
+    }
+
+    // "ok", or the problems found; null if the engine cannot check itself
+    default String checkIntegrity() {
+        return null;
+    }
+
+    // On disk, 0 if unknown
+    default long sizeBytes() {
+        return 0;
+    }
+
+    void close();
+}
@@ -0,0 +1,135 @@
+package healthtracker;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Sends notifications through one long-lived helper that reads a command per line from a pipe.
+// On Windows that removes the per-reminder process: PowerShell shows the toast and speaks in
+// process. On Linux only the shell is kept: /bin/sh -s still forks notify-send and spd-say for
+// every message, it just no longer has to start itself first. The helper is started on the first
+// send and again on the next send after it has died.
+public class HelperProcessSink implements NotificationSink {
+    private final String name;
+    private final List<String> command;
+    private final List<String> prelude;
+    private final Function<Notification, String> script;
+
+    private Process process;
+    private Writer stdin;
+    private int starts;
+
+    HelperProcessSink(String name, List<String> command, List<String> prelude, Function<Notification, String> script) {
+        this.name = name;
+        this.command = command;
+        this.prelude = prelude;
+        this.script = script;
+    }
+
+    // The toast notifier and speech synthesizer are created once, when the helper starts
+    public static HelperProcessSink windows() {
+        return new HelperProcessSink("powershell",
+                List.of("powershell", "-NoLogo", "-NoProfile", "-NonInteractive", "-Command", "-"),
+                List.of(
+                        "[Windows.UI.Notifications.ToastNotificationManager, Windows.UI.Notifications, ContentType = WindowsRuntime] > $null",
+                        "Add-Type -AssemblyName System.Speech",
+                        "$speech = New-Object System.Speech.Synthesis.SpeechSynthesizer",
+                        "$notifier = [Windows.UI.Notifications.ToastNotificationManager]::CreateToastNotifier('HealthTracker')",
+                        "function Show-Toast($title, $text) { "
+                                + "$t = [Windows.UI.Notifications.ToastNotificationManager]::GetTemplateContent([Windows.UI.Notifications.ToastTemplateType]::ToastText02); "
+                                + "$t.GetElementsByTagName('text').Item(0).AppendChild($t.CreateTextNode($title)) > $null; "
+                                + "$t.GetElementsByTagName('text').Item(1).AppendChild($t.CreateTextNode($text)) > $null; "
+                                + "$notifier.Show([Windows.UI.Notifications.ToastNotification]::new($t)) }"),
+                n -> "Show-Toast " + powerShellQuote(n.title()) + " " + powerShellQuote(n.message())
+                        + "; $speech.SpeakAsync(" + powerShellQuote(n.speech()) + ") > $null");
+    }
+
+    // notify-send and spd-say are optional; without them the notification is only in the window
+    public static HelperProcessSink linux() {
+        return new HelperProcessSink("sh",
+                List.of("/bin/sh", "-s"),
+                List.of(),
+                n -> "notify-send -a HealthTracker -- " + shellQuote(n.title()) + " " + shellQuote(n.message())
+                        + " 2>/dev/null; command -v spd-say >/dev/null && spd-say -- " + shellQuote(n.speech()));
+    }
+
+    @Override
+    public synchronized void send(Notification notification) throws IOException {
+        if (process == null || !process.isAlive()) {
+            start();
+        }
+        try {
+            stdin.write(script.apply(notification));
+            stdin.write('\n');
+            stdin.flush();
+        } catch (IOException e) {
+            // Most likely the helper exited; the next send starts a new one
+            stop();
+            throw e;
+        }
+    }
+
+    public synchronized int getStarts() {
+        return starts;
+    }
+
+    @Override
+    public synchronized void close() {
+        stop();
+    }
+
+    private void start() throws IOException {
+        if (process != null) {
+            Log.warn("notify", "helper_exited", "helper", name, "exitCode", process.exitValue());
+            stop();
+        }
+        process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        starts++;
+        for (String line : prelude) {
+            stdin.write(line);
+            stdin.write('\n');
+        }
+        stdin.flush();
+        Log.info("notify", "helper_started", "helper", name, "pid", process.pid());
+    }
+
+    // Closing stdin lets the helper finish what it has read and exit on its own
+    private void stop() {
+        if (process == null) return;
+        try {
+            stdin.close();
+        } catch (IOException ignored) {
+        }
+        try {
+            if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                process.destroy();
+            }
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+        }
+        process = null;
+        stdin = null;
+    }
+
+    // Every command must stay on one line
+    private static String oneLine(String s) {
+        return s == null ? "" : s.replaceAll("\\R", " ");
+    }
+
+    static String powerShellQuote(String s) {
+        return "'" + oneLine(s).replace("'", "''") + "'";
+    }
+
+    static String shellQuote(String s) {
+        return "'" + oneLine(s).replace("'", "'\\''") + "'";
+    }
+}
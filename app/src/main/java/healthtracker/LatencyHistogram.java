@@ -0,0 +1,116 @@
+package healthtracker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size latency histogram in the style of HdrHistogram: values below 256 ns get their own
+// bucket, larger ones are bucketed by power of two with 128 linear sub-buckets each, so any
+// recorded value is reported within 1% of its true value up to MAX_NANOS (~68 s).
+// Recording is lock-free and allocation-free.
+public class LatencyHistogram implements Metrics.LatencyMXBean {
+    private static final int SUB_BITS = 8;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF = SUB_COUNT / 2;
+    private static final long MAX_NANOS = (1L << 36) - 1;
+    private static final int BUCKETS = index(MAX_NANOS) + 1;
+
+    public record Snapshot(long count, double meanNanos, long p50, long p90, long p99, long p999, long max) {}
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_NANOS);
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    // start comes from Metrics.start(); 0 means metrics were off when it was taken
+    public void recordSince(long start) {
+        if (start != 0 && Metrics.isEnabled()) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        long highest = max.get();
+        return new Snapshot(n, n == 0 ? 0 : (double) total.get() / count.get(),
+                Math.min(percentile(copy, n, 0.50), highest), Math.min(percentile(copy, n, 0.90), highest),
+                Math.min(percentile(copy, n, 0.99), highest), Math.min(percentile(copy, n, 0.999), highest), highest);
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return snapshot().meanNanos() / 1_000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return snapshot().p50() / 1_000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return snapshot().p90() / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return snapshot().p99() / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return max.get() / 1_000.0;
+    }
+
+    // Highest value equivalent to the bucket holding the requested rank, as HdrHistogram reports
+    private static long percentile(long[] copy, long n, double quantile) {
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < copy.length; i++) {
+            seen += copy[i];
+            if (seen >= rank) return highestValue(i);
+        }
+        return highestValue(copy.length - 1);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        int sub = (int) (value >>> shift);
+        return SUB_COUNT + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    private static long highestValue(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = (index - SUB_COUNT) / HALF + 1;
+        long sub = (index - SUB_COUNT) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
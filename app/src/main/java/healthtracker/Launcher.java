@@ -0,0 +1,11 @@
+package healthtracker;
+
+import javafx.application.Application;
+
+// Entry point for plain classpath launches (java -jar, the CDS archive): JavaFX refuses to start
+// when the main class itself extends Application and javafx.* is not on the module path.
+public class Launcher {
+    public static void main(String[] args) {
+        Application.launch(Main.class, args);
+    }
+}
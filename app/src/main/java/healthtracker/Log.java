@@ -0,0 +1,93 @@
+package healthtracker;
+
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+// Single-line structured logger: "<time> <LEVEL> <component> <event> key=value ...".
+// A disabled call costs one volatile read; hot paths check isEnabled before building fields.
+// The threshold comes from -Dhealth.log=debug|info|warn|error|off (default info).
+public final class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+    private static volatile Level threshold = parse(System.getProperty("health.log", "info"));
+
+    private Log() {}
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static void debug(String component, String event, Object... fields) {
+        if (isEnabled(Level.DEBUG)) write(Level.DEBUG, component, event, null, fields);
+    }
+
+    public static void info(String component, String event, Object... fields) {
+        if (isEnabled(Level.INFO)) write(Level.INFO, component, event, null, fields);
+    }
+
+    public static void warn(String component, String event, Object... fields) {
+        if (isEnabled(Level.WARN)) write(Level.WARN, component, event, null, fields);
+    }
+
+    // error may be null; otherwise its stack trace follows the line
+    public static void error(String component, String event, Throwable error, Object... fields) {
+        if (isEnabled(Level.ERROR)) write(Level.ERROR, component, event, error, fields);
+    }
+
+    private static void write(Level level, String component, String event, Throwable error, Object[] fields) {
+        StringBuilder line = new StringBuilder(96)
+                .append(LocalDateTime.now().format(TIME)).append(' ')
+                .append(level).append(' ')
+                .append(component).append(' ')
+                .append(event);
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(' ').append(fields[i]).append('=');
+            appendValue(line, String.valueOf(fields[i + 1]));
+        }
+        if (error != null) {
+            line.append(" error=");
+            appendValue(line, String.valueOf(error));
+        }
+
+        PrintStream out = level.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+        synchronized (out) {
+            out.println(line);
+            if (error != null) error.printStackTrace(out);
+        }
+    }
+
+    // Values with spaces, quotes or '=' are quoted so lines stay machine-parsable
+    private static void appendValue(StringBuilder line, String value) {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ' ' || c == '"' || c == '=' || c == '\n';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') line.append('\\');
+            line.append(c == '\n' ? ' ' : c);
+        }
+        line.append('"');
+    }
+
+    private static Level parse(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
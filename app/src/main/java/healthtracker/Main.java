@@ -0,0 +1,568 @@
+package healthtracker;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.image.Image;
+import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Line;
+import javafx.scene.text.Text;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import javafx.scene.input.MouseEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class Main extends Application {
+    private static final LatencyHistogram UPDATE_CHART = Metrics.histogram("fx.updateChart");
+    private static final LatencyHistogram REFRESH_RINGS = Metrics.histogram("fx.refreshProgressRings");
+    private static final LatencyHistogram FIRST_FRAME = Metrics.histogram("startup.firstFrame");
+    private static final LatencyHistogram DATA_LOADED = Metrics.histogram("startup.dataLoaded");
+    private static final long LAUNCHED = System.nanoTime();
+    private static final Path SNAPSHOT_FILE = Paths.get(System.getProperty("health.snapshot", "dashboard.snapshot"));
+    private static final String START_METRIC = MetricRegistry.all().get(0).name();
+    private static final int START_RANGE = 7;
+
+    private StackPane dashBoard;
+    // Per metric, in registry order
+    private final Map<String, ProgressIndicator> rings = new LinkedHashMap<>();
+    private final Map<String, CheckBox> tasks = new LinkedHashMap<>();
+    private final Map<String, Label> analytics = new LinkedHashMap<>();
+    private Button confirmBtn;
+    private String currentStat = START_METRIC;
+    private int currentRange = START_RANGE;
+    private ChartController chartController;
+    private final DataLoader dataLoader = new DataLoader();
+
+    private AnchorPane root;
+    private ReminderManager reminderManager;
+    private SyncEngine sync;
+    private MaintenanceService maintenance;
+    private ComboBox<String> profileBox;
+    private Label transferStatus;
+    private final ExecutorService transfers = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "bulk-transfer");
+        t.setDaemon(true);
+        return t;
+    });
+    private boolean dataLoaded;
+
+    private void switchChart(String stat) {
+        currentStat = stat;
+        updateChart();
+    }
+
+    private void updateChart() {
+        long start = Metrics.start();
+        chartController.show(currentStat, currentRange);
+        UPDATE_CHART.recordSince(start);
+    }
+
+    private String getColor(String stat) {
+        MetricRegistry.Metric metric = MetricRegistry.find(stat);
+        return metric != null ? metric.color() : "#000000";
+    }
+
+    private ProgressIndicator createRing(String color) {
+        ProgressIndicator circle = new ProgressIndicator(0);
+        circle.setStyle("-fx-progress-color: " + color);
+        circle.setPrefSize(150, 150);
+        return circle;
+    }
+
+    private StackPane wrapWithProgress(StackPane pane, String name, ProgressIndicator circle) {
+        StackPane infoPane = new StackPane(circle, pane);
+        infoPane.setId(name);
+        infoPane.getStyleClass().add("metric-pane");
+        infoPane.setMaxSize(130, 130);
+        infoPane.setMinSize(130, 130);
+        return infoPane;
+    }
+
+    // Switching only swaps in-memory state; the rings and chart then load the profile's data on the
+    // loader thread, or come straight from its cached series if it was used recently
+    private void switchProfile(String name) {
+        String profile = name == null ? "" : name.strip();
+        if (profile.equals(DatabaseHelper.getProfile())) return;
+        if (!DatabaseHelper.isValidProfileName(profile)) {
+            profileBox.setValue(DatabaseHelper.getProfile());
+            return;
+        }
+        if (!profileBox.getItems().contains(profile)) {
+            profileBox.getItems().add(profile);
+            dataLoader.<Boolean>submit("create-profile:" + profile, publish -> {
+                DatabaseHelper.createProfile(profile);
+                return true;
+            }, created -> {});
+        }
+        DatabaseHelper.switchProfile(profile);
+        chartController.setProfile(profile);
+        updateChart();
+        refreshProgressRings();
+    }
+
+    // Today's totals are read on the loader thread; only setting the rings happens on the FX thread.
+    // The recorded time is the FX-thread part: submitting plus applying the result.
+    private void refreshProgressRings() {
+        long start = Metrics.start();
+        long[] submitNanos = new long[1];
+        String profile = DatabaseHelper.getProfile();
+        dataLoader.<double[]>submit("rings", publish -> {
+            List<MetricRegistry.Metric> metrics = MetricRegistry.all();
+            double[] progress = new double[metrics.size()];
+            for (MetricRegistry.Metric metric : metrics) {
+                progress[metric.index()] = DatabaseHelper.getDailyProgress(profile, metric.name());
+            }
+            return progress;
+        }, progress -> {
+            long applied = Metrics.start();
+            setRingProgress(progress);
+            if (applied != 0) {
+                REFRESH_RINGS.record(submitNanos[0] + System.nanoTime() - applied);
+            }
+            if (!dataLoaded) {
+                dataLoaded = true;
+                reportStartup("data_loaded", DATA_LOADED);
+                if (Boolean.getBoolean("health.startup.exitAfterLoad")) {
+                    Platform.exit(); // training run for the class-data-sharing archive
+                }
+            }
+        });
+        submitNanos[0] = start == 0 ? 0 : System.nanoTime() - start;
+        refreshAnalytics(profile);
+    }
+
+    // The first read of a profile replays its history on the loader thread; later ones are in-memory
+    private void refreshAnalytics(String profile) {
+        dataLoader.<List<AnalyticsEngine.Summary>>submit("analytics",
+                publish -> DatabaseHelper.getAnalytics().summaries(profile),
+                summaries -> summaries.forEach(summary -> {
+                    Label label = analytics.get(summary.metric());
+                    if (label != null) label.setText(describe(summary));
+                }));
+    }
+
+    private static String describe(AnalyticsEngine.Summary s) {
+        MetricRegistry.Metric metric = MetricRegistry.find(s.metric());
+        String unit = metric == null || metric.unit().isEmpty() ? "" : " " + metric.unit();
+        return String.format("Streak %d %s · best %d\n", s.currentStreak(), s.currentStreak() == 1 ? "day" : "days",
+                s.longestStreak())
+                + String.format("Average %,.0f (7 days) · %,.0f (30 days)\n", s.mean7(), s.mean30())
+                + String.format("This week %,d%s · last week %,d\n", s.thisWeek(), unit, s.lastWeek())
+                + String.format("Today %,d%s, heading for %,d: %s", s.today(), unit, s.projected(),
+                s.today() >= s.goal() ? "goal met" : s.onTrack() ? "on track" : "behind");
+    }
+
+    // Startup: the store is opened and migrated on a background thread while the window is built
+    // and shown, painted from the last snapshot if there is one. The first loads queue behind the
+    // migration on the loader thread; reminders start once the store is ready.
+    @Override
+    public void start(Stage stage) {
+        Executor startup = r -> {
+            Thread t = new Thread(r, "startup");
+            t.setDaemon(true);
+            t.start();
+        };
+        CompletableFuture<Void> storeReady = CompletableFuture.runAsync(DatabaseHelper::initializeTables, startup);
+        DashboardSnapshot snapshot = DashboardSnapshot.read(SNAPSHOT_FILE);
+        // Unless -Dhealth.profile says otherwise, the profile used last is opened again
+        if (snapshot != null && System.getProperty("health.profile") == null
+                && DatabaseHelper.isValidProfileName(snapshot.profile())) {
+            DatabaseHelper.switchProfile(snapshot.profile());
+        }
+        if (snapshot != null && !snapshot.isFor(DatabaseHelper.getProfile(), AppClock.today())) {
+            snapshot = null;
+        }
+
+        root = new AnchorPane();
+
+        // One ring, chart toggle and checklist task per configured metric
+        List<StackPane> metricPanes = new ArrayList<>();
+        HBox toggleBar = new HBox(10);
+        ToggleGroup group = new ToggleGroup();
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            ProgressIndicator ring = createRing(metric.ringColor());
+            rings.put(metric.name(), ring);
+            String id = "metric-" + metric.name();
+            StackPane pane = wrapWithProgress(createInfoPane(metric.label(), id), id, ring);
+            AnchorPane.setTopAnchor(pane, 20.0);
+            AnchorPane.setLeftAnchor(pane, 500.0 + 150 * metric.index());
+            metricPanes.add(pane);
+
+            ToggleButton button = new ToggleButton(metric.name());
+            button.setToggleGroup(group);
+            button.setSelected(metric.name().equals(START_METRIC));
+            button.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+                if(button.isSelected()) {
+                    e.consume();
+                }
+            });
+            button.setOnAction(e -> switchChart(metric.name()));
+            toggleBar.getChildren().add(button);
+        }
+        if (snapshot != null && snapshot.progress().length == rings.size()) {
+            setRingProgress(snapshot.progress());
+        }
+        refreshProgressRings();
+
+        toggleBar.setAlignment(Pos.CENTER);
+        toggleBar.setPadding(new Insets(20));
+        AnchorPane.setTopAnchor(toggleBar, 530.0);
+        AnchorPane.setLeftAnchor(toggleBar, 30.0);
+
+        // One analytics panel per metric under the chart, filled by refreshAnalytics
+        HBox analyticsRow = new HBox(15);
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            Label title = new Label(metric.label());
+            title.getStyleClass().add("analytics-title");
+            Label body = new Label("…");
+            body.getStyleClass().add("analytics-body");
+            analytics.put(metric.name(), body);
+            VBox panel = new VBox(4, title, body);
+            panel.setId("analytics-" + metric.name());
+            panel.getStyleClass().add("analytics-pane");
+            panel.setPrefSize((930 - 15.0 * (MetricRegistry.all().size() - 1)) / MetricRegistry.all().size(), 120);
+            analyticsRow.getChildren().add(panel);
+        }
+        AnchorPane.setTopAnchor(analyticsRow, 600.0);
+        AnchorPane.setLeftAnchor(analyticsRow, 30.0);
+
+        dashBoard = new StackPane();
+        dashBoard.setId("dash");
+        dashBoard.setPrefSize(930, 300);
+        chartController = new ChartController(dashBoard, this::getColor, dataLoader);
+        if (snapshot != null && snapshot.metric().equals(START_METRIC) && snapshot.range() == START_RANGE) {
+            chartController.preview(START_METRIC, START_RANGE, snapshot.chart(), snapshot.day().toEpochDay());
+        }
+        updateChart();
+        AnchorPane.setTopAnchor(dashBoard, 230.0);
+        AnchorPane.setLeftAnchor(dashBoard, 30.0);
+
+        StackPane reminderList = new StackPane();
+        reminderList.setId("reminder");
+        reminderList.setMaxSize(400, 200);
+        reminderList.setMinSize(400, 200);
+
+        AnchorPane.setLeftAnchor(reminderList, 30.0);
+        AnchorPane.setTopAnchor(reminderList, 20.0);
+
+        Text reminder = new Text("Daily Reminder");
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            CheckBox task = new CheckBox(metric.task());
+            task.setId("restTask");
+            task.setMaxSize(250, 5);
+            task.setMinSize(250, 5);
+            tasks.put(metric.name(), task);
+        }
+
+        confirmBtn = new Button("Confirm");
+        confirmBtn.setId("confirm");
+        confirmBtn.setDisable(true);
+        confirmBtn.setPrefSize(120, 30);
+        confirmBtn.setOnAction(e -> {
+            Set<String> done = new HashSet<>();
+            tasks.forEach((metric, task) -> {
+                if (task.isSelected()) done.add(metric);
+            });
+
+            DatabaseHelper.postReminders(done);
+
+            for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+                if (done.contains(metric.name())) {
+                    DatabaseHelper.postIncrement(metric.name(), metric.increment());
+                    chartController.refreshToday(metric.name());
+                    tasks.get(metric.name()).setSelected(false);
+                }
+            }
+
+            refreshProgressRings();
+        });
+
+        ChangeListener<Boolean> changeListener = (obs, oldVal, newVal) -> {
+            confirmBtn.setDisable(tasks.values().stream().noneMatch(CheckBox::isSelected));
+        };
+        tasks.values().forEach(task -> task.selectedProperty().addListener(changeListener));
+
+        AnchorPane reminderListPane = new AnchorPane();
+        AnchorPane.setTopAnchor(reminder, 10.0);
+        AnchorPane.setLeftAnchor(reminder, 50.0);
+        double taskTop = 50.0;
+        for (CheckBox task : tasks.values()) {
+            AnchorPane.setTopAnchor(task, taskTop);
+            AnchorPane.setLeftAnchor(task, 50.0);
+            taskTop += 40.0;
+        }
+        AnchorPane.setTopAnchor(confirmBtn, Math.max(150.0, taskTop - 20.0));
+        AnchorPane.setLeftAnchor(confirmBtn, 140.0);
+
+        reminderListPane.getChildren().add(reminder);
+        reminderListPane.getChildren().addAll(tasks.values());
+        reminderListPane.getChildren().add(confirmBtn);
+        reminderList.getChildren().add(reminderListPane);
+
+        Line line = new Line(450, 20, 450, 200);
+        line.setStrokeWidth(2);
+        line.setStroke(Color.BLACK);
+
+        ToggleGroup timeButtonGroup = new ToggleGroup();
+        ToggleButton todayBtn = new ToggleButton("Today");
+        todayBtn.setToggleGroup(timeButtonGroup);
+        ToggleButton weekBtn = new ToggleButton("Week");
+        weekBtn.setSelected(true);
+        weekBtn.setToggleGroup(timeButtonGroup);
+        ToggleButton monthBtn = new ToggleButton("Month");
+        monthBtn.setToggleGroup(timeButtonGroup);
+        ToggleButton yearBtn = new ToggleButton("Year");
+        yearBtn.setToggleGroup(timeButtonGroup);
+        ToggleButton fiveYearBtn = new ToggleButton("5 Years");
+        fiveYearBtn.setToggleGroup(timeButtonGroup);
+
+        todayBtn.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            if(todayBtn.isSelected()) {
+                e.consume();
+            }
+        });
+        weekBtn.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            if(weekBtn.isSelected()) {
+                e.consume();
+            }
+        });
+        monthBtn.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            if(monthBtn.isSelected()) {
+                e.consume();
+            }
+        });
+        yearBtn.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            if(yearBtn.isSelected()) {
+                e.consume();
+            }
+        });
+        fiveYearBtn.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            if(fiveYearBtn.isSelected()) {
+                e.consume();
+            }
+        });
+
+        todayBtn.setOnAction(e -> { currentRange = 1; updateChart(); });
+        weekBtn.setOnAction(e -> { currentRange = 7; updateChart(); });
+        monthBtn.setOnAction(e -> { currentRange = 30; updateChart(); });
+        yearBtn.setOnAction(e -> { currentRange = 365; updateChart(); });
+        fiveYearBtn.setOnAction(e -> { currentRange = 5 * 365; updateChart(); });
+
+        HBox timeButtons = new HBox(10, todayBtn, weekBtn, monthBtn, yearBtn, fiveYearBtn);
+        timeButtons.setAlignment(Pos.CENTER);
+        timeButtons.setPadding(new Insets(20));
+        AnchorPane.setTopAnchor(timeButtons, 160.0);
+        AnchorPane.setLeftAnchor(timeButtons, 500.0);
+
+        profileBox = new ComboBox<>();
+        profileBox.setEditable(true);
+        profileBox.setPromptText("Profile");
+        profileBox.setPrefWidth(160);
+        profileBox.getItems().add(DatabaseHelper.getProfile());
+        profileBox.setValue(DatabaseHelper.getProfile());
+        profileBox.setOnAction(e -> switchProfile(profileBox.getValue()));
+        Button importBtn = new Button("Import…");
+        importBtn.setOnAction(e -> importFile(stage));
+        Button exportBtn = new Button("Export…");
+        exportBtn.setOnAction(e -> exportRange(stage));
+        transferStatus = new Label();
+        HBox profileBar = new HBox(10, transferStatus, importBtn, exportBtn, new Label("Profile"), profileBox);
+        profileBar.setAlignment(Pos.CENTER_RIGHT);
+        AnchorPane.setBottomAnchor(profileBar, 20.0);
+        AnchorPane.setRightAnchor(profileBar, 40.0);
+
+        root.getChildren().addAll(metricPanes);
+        root.getChildren().addAll(toggleBar, line, dashBoard, reminderList, timeButtons, analyticsRow, profileBar);
+
+        Scene scene = new Scene(root, 1000, 790);
+        scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        chartController.attach(scene);
+
+        stage.setTitle("Health Tracker");
+        stage.getIcons().add(new Image("/icon.png"));
+        stage.setScene(scene);
+        stage.setResizable(false);
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this); // the pulse that renders the first frame
+                reportStartup("first_frame", FIRST_FRAME);
+            }
+        });
+        stage.show();
+
+        // The reminder engine reads today's totals as it starts, so it is built on the startup thread,
+        // which also loads the remaining totals before the first confirmation needs them
+        storeReady.thenApplyAsync(ready -> {
+            ReminderManager reminders = new ReminderManager(stage);
+            MetricRegistry.all().forEach(metric -> DatabaseHelper.getDailyTotal(metric.name()));
+            return reminders;
+        }, startup).thenAccept(reminders -> Platform.runLater(() -> {
+            reminderManager = reminders;
+            Metrics.startSnapshots(reminderManager.getScheduler());
+            sync = SyncEngine.fromConfig();
+            if (sync != null) {
+                sync.start(Long.getLong("health.sync.intervalMs", 60_000), () -> Platform.runLater(() -> {
+                    chartController.invalidateAll();
+                    updateChart();
+                    refreshProgressRings();
+                }));
+            }
+            maintenance = MaintenanceService.fromConfig();
+            if (maintenance != null) {
+                maintenance.start();
+            }
+            dataLoader.<List<String>>submit("profiles", publish -> DatabaseHelper.listProfiles(), names -> {
+                for (String name : names) {
+                    if (!profileBox.getItems().contains(name)) profileBox.getItems().add(name);
+                }
+                profileBox.getItems().sort(null);
+            });
+        }));
+    }
+
+    // Imports run on their own thread so chart loads are not stuck behind them; the file format is
+    // detected from its name and header
+    private void importFile(Stage stage) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import health data");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Health exports", "*.csv", "*.xml", "*.zip", "*.htb"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(stage);
+        if (file == null) return;
+        String profile = DatabaseHelper.getProfile();
+        transferStatus.setText("Importing…");
+        transfers.execute(() -> {
+            String status;
+            try {
+                BulkImporter.Result result = BulkImporter.importFile(profile, file.toPath(),
+                        BulkImporter.Format.detect(file.toPath()), (records, done, total) -> Platform.runLater(() ->
+                                transferStatus.setText(String.format("Importing… %d%%", total == 0 ? 100 : done * 100 / total))));
+                status = String.format("Imported %,d records", result.records());
+            } catch (IOException | RuntimeException ex) {
+                Log.error("bulk", "import_failed", ex, "file", file);
+                status = "Import failed";
+            }
+            String done = status;
+            Platform.runLater(() -> {
+                transferStatus.setText(done);
+                chartController.invalidate(profile);
+                if (profile.equals(DatabaseHelper.getProfile())) {
+                    updateChart();
+                    refreshProgressRings();
+                }
+            });
+        });
+    }
+
+    // Exports the range the chart is showing
+    private void exportRange(Stage stage) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export health data");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("Compact binary", "*.htb"));
+        chooser.setInitialFileName("health-export.csv");
+        File file = chooser.showSaveDialog(stage);
+        if (file == null) return;
+        String profile = DatabaseHelper.getProfile();
+        LocalDate to = AppClock.today();
+        LocalDate from = to.minusDays(currentRange - 1);
+        transferStatus.setText("Exporting…");
+        transfers.execute(() -> {
+            String status;
+            try {
+                long records = BulkExporter.export(profile, from, to, BulkExporter.Format.detect(file.toPath()),
+                        file.toPath(), (written, done, total) -> {});
+                status = String.format("Exported %,d values", records);
+            } catch (IOException | RuntimeException ex) {
+                Log.error("bulk", "export_failed", ex, "file", file);
+                status = "Export failed";
+            }
+            String done = status;
+            Platform.runLater(() -> transferStatus.setText(done));
+        });
+    }
+
+    // Logs the time since JVM start and since the application class was loaded
+    private static void reportStartup(String event, LatencyHistogram histogram) {
+        long sinceJvmMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        long sinceLaunchMs = (System.nanoTime() - LAUNCHED) / 1_000_000;
+        histogram.record(sinceJvmMs * 1_000_000);
+        Log.info("startup", event, "sinceJvmStartMs", sinceJvmMs, "sinceLaunchMs", sinceLaunchMs);
+    }
+
+    @Override
+    public void stop() {
+        if (reminderManager != null) {
+            reminderManager.stop();
+        }
+        if (sync != null) {
+            sync.stop();
+        }
+        if (maintenance != null) {
+            maintenance.stop();
+        }
+        dataLoader.shutdown();
+        transfers.shutdownNow();
+        if (dataLoaded) {
+            saveSnapshot();
+        }
+        DatabaseHelper.close();
+        if (Metrics.isEnabled()) {
+            Metrics.writeSnapshot(Metrics.snapshotFile());
+        }
+    }
+
+    private void saveSnapshot() {
+        TimeSeries chart = chartController.getLoaded(START_METRIC, START_RANGE);
+        new DashboardSnapshot(DatabaseHelper.getProfile(), AppClock.today(),
+                rings.values().stream().mapToDouble(ProgressIndicator::getProgress).toArray(),
+                START_METRIC, START_RANGE, chart != null ? chart : new TimeSeries()).write(SNAPSHOT_FILE);
+    }
+
+    private void setRingProgress(double[] progress) {
+        int i = 0;
+        for (ProgressIndicator ring : rings.values()) {
+            ring.setProgress(progress[i++]);
+        }
+    }
+
+    private StackPane createInfoPane(String text, String id) {
+        Label label = new Label(text);
+        label.setStyle("-fx-font-size: 14px; -fx-text-fill: black;");
+        VBox box = new VBox(label);
+        box.setAlignment(Pos.CENTER);
+        StackPane pane = new StackPane(box);
+        pane.setId(id);
+        pane.setPrefSize(100, 100);
+        pane.setStyle("-fx-background-color: transparent;");
+        return pane;
+    }
+
+    public static void main(String[] args) {
+        launch();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,181 @@
+package healthtracker;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Keeps a database that runs for years small and its query plans current. A run, on a thread of
+// its own:
+//   1. folds the event log older than -Dhealth.retention.eventDays (default 90) into one row per
+//      hour. Not into weekly or monthly summaries: those already exist as the Rollups rows, and
+//      the daily tables hold each day, so hourly rows keep the hourly chart of old days at a
+//      fraction of the events while no chart or streak loses anything. Days without events are
+//      skipped by an index seek, so a gap in the history costs one query per series.
+//   2. moves checklist rows older than -Dhealth.retention.reminderDays (default 365) into
+//      per-month counts (RemindersArchive)
+//   3. returns up to -Dhealth.maintenance.vacuumPages (default 2,048) free pages to the file system
+//   4. refreshes the planner statistics from a bounded sample
+//   5. checks integrity, at most once a week since that reads the whole file
+// Steps 1 and 2 go in transactions of CHUNK rows, at most -Dhealth.maintenance.maxRows (default
+// 50,000) a run, so reads and writes never wait on more than one chunk; the rest is left for the
+// next run. A run starts once nothing was written for -Dhealth.maintenance.idleMs (ten minutes)
+// and the last one finished -Dhealth.maintenance.intervalMs (a day) ago. -Dhealth.maintenance=off
+// turns it off. Each run logs the bytes reclaimed and the time of the dashboard's reads before and
+// after.
+//
+//   java -cp app/target/health-tracker.jar healthtracker.MaintenanceService [health.db]
+public class MaintenanceService {
+    public record Report(int eventsCompacted, int remindersArchived, long bytesBefore, long bytesAfter,
+                         String integrity, double queryMillisBefore, double queryMillisAfter, long elapsedNanos) {
+        public long bytesReclaimed() {
+            return bytesBefore - bytesAfter;
+        }
+    }
+
+    private static final int CHUNK = 5_000;
+    private static final long CHECK_EVERY_MS = 15 * 60_000L;
+    private static final long INTEGRITY_EVERY_MS = 7 * 86_400_000L;
+    private static final String LAST_RUN = "maintenance.lastRun";
+    private static final String LAST_CHECK = "maintenance.lastCheck";
+    private static final LatencyHistogram RUN = Metrics.histogram("maintenance.run");
+    private static final Metrics.Counter FAILURES = Metrics.counter("maintenance.failures");
+
+    private final int eventDays = Integer.getInteger("health.retention.eventDays", 90);
+    private final int reminderDays = Integer.getInteger("health.retention.reminderDays", 365);
+    private final int maxRows = Integer.getInteger("health.maintenance.maxRows", 50_000);
+    private final int vacuumPages = Integer.getInteger("health.maintenance.vacuumPages", 2_048);
+    private final long idleMs = Long.getLong("health.maintenance.idleMs", 10 * 60_000L);
+    private final long intervalMs = Long.getLong("health.maintenance.intervalMs", 86_400_000L);
+    private ScheduledThreadPoolExecutor executor;
+
+    // null if health.maintenance=off
+    public static MaintenanceService fromConfig() {
+        return "off".equals(System.getProperty("health.maintenance")) ? null : new MaintenanceService();
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length > 0) {
+            DatabaseHelper.open(new SqliteStore());
+            ConnectionManager.open("jdbc:sqlite:" + args[0]);
+        }
+        DatabaseHelper.initializeTables();
+        Report report = new MaintenanceService().run();
+        System.out.printf(Locale.ROOT, "%,d events compacted, %,d checklist rows archived, %,d -> %,d bytes (%,d reclaimed)%n",
+                report.eventsCompacted(), report.remindersArchived(), report.bytesBefore(), report.bytesAfter(),
+                report.bytesReclaimed());
+        System.out.printf(Locale.ROOT, "dashboard reads %.2f ms -> %.2f ms, integrity %s, %.0f ms%n",
+                report.queryMillisBefore(), report.queryMillisAfter(), report.integrity(), report.elapsedNanos() / 1e6);
+        DatabaseHelper.close();
+    }
+
+    // Looks for an idle spell every quarter of an hour
+    public synchronized void start() {
+        if (executor != null) return;
+        executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "maintenance");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                if (isDue()) run();
+            } catch (RuntimeException e) {
+                FAILURES.increment();
+                Log.error("maintenance", "run_failed", e);
+            }
+        }, CHECK_EVERY_MS, CHECK_EVERY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private boolean isDue() {
+        long now = AppClock.millis();
+        return now - DatabaseHelper.getLastWriteMillis() >= idleMs && now - stateMillis(LAST_RUN) >= intervalMs;
+    }
+
+    // Runs every step now, idle or not
+    public synchronized Report run() {
+        long start = System.nanoTime();
+        LocalDate today = AppClock.today();
+        LocalDate eventHorizon = today.minusDays(eventDays);
+        double queryBefore = probeMillis(eventHorizon.minusDays(1));
+        long bytesBefore = DatabaseHelper.getStoreSize();
+
+        int budget = maxRows;
+        int compacted = 0;
+        long cutoff = eventHorizon.atStartOfDay(AppClock.zone()).toInstant().toEpochMilli();
+        while (budget > 0 && !Thread.currentThread().isInterrupted()) {
+            int removed = DatabaseHelper.compactEvents(cutoff, Math.min(budget, CHUNK));
+            if (removed < 0) break;
+            compacted += removed;
+            budget -= CHUNK;
+        }
+        int archived = 0;
+        while (budget > 0 && !Thread.currentThread().isInterrupted()) {
+            int moved = DatabaseHelper.archiveReminders(today.minusDays(reminderDays), Math.min(budget, CHUNK));
+            archived += moved;
+            budget -= CHUNK;
+            if (moved == 0) break;
+        }
+
+        DatabaseHelper.reclaimSpace(vacuumPages);
+        DatabaseHelper.analyze();
+        String integrity = null;
+        long now = AppClock.millis();
+        if (now - stateMillis(LAST_CHECK) >= INTEGRITY_EVERY_MS) {
+            integrity = DatabaseHelper.checkIntegrity();
+            DatabaseHelper.setSyncState(LAST_CHECK, Long.toString(now));
+            if (integrity != null && !integrity.equals("ok")) {
+                Log.error("maintenance", "integrity_check_failed", null, "problems", integrity);
+            }
+        }
+
+        long bytesAfter = DatabaseHelper.getStoreSize();
+        double queryAfter = probeMillis(eventHorizon.minusDays(1));
+        DatabaseHelper.setSyncState(LAST_RUN, Long.toString(AppClock.millis()));
+        long elapsed = System.nanoTime() - start;
+        if (Metrics.isEnabled()) RUN.record(elapsed);
+        Report report = new Report(compacted, archived, bytesBefore, bytesAfter, integrity, queryBefore, queryAfter, elapsed);
+        Log.info("maintenance", "completed", "eventsCompacted", compacted, "remindersArchived", archived,
+                "bytesReclaimed", report.bytesReclaimed(), "bytes", bytesAfter, "integrity", integrity,
+                "queryMsBefore", String.format(Locale.ROOT, "%.2f", queryBefore),
+                "queryMsAfter", String.format(Locale.ROOT, "%.2f", queryAfter), "ms", elapsed / 1_000_000);
+        return report;
+    }
+
+    // Kept in the store's key/value table, so a restart does not run everything again
+    private static long stateMillis(String key) {
+        String value = DatabaseHelper.getSyncState(key);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    // What a dashboard refresh reads for every metric (a year of days, today's hours, two years of
+    // months) plus the hours of a compacted day; best of five, so the first rounds warm up
+    private static double probeMillis(LocalDate compactedDay) {
+        String profile = DatabaseHelper.getProfile();
+        LocalDate today = AppClock.today();
+        TimeSeries days = new TimeSeries(366);
+        TimeSeries hours = new TimeSeries(24);
+        TimeSeries months = new TimeSeries(24);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+                DatabaseHelper.fillDaily(profile, metric.name(), today.toEpochDay() - 365, today.toEpochDay(), days);
+                DatabaseHelper.fillHourly(profile, metric.name(), today, hours);
+                DatabaseHelper.fillHourly(profile, metric.name(), compactedDay, hours);
+                DatabaseHelper.fillRollup(profile, metric.name(), RollupPeriod.MONTH, 24, months);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+}
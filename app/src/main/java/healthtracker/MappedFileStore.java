@@ -0,0 +1,422 @@
+package healthtracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Memory-mapped engine for kiosks: per profile a directory profiles/<profile>/ holding per metric a
+// <metric>.daily file keyed by epoch day and a <metric>.hourly file keyed by epoch day * 24 + local
+// hour, plus a <metric>.done file of checklist flags. Increments are O(1) record updates and ranges are contiguous
+// reads, with no SQL or JDBC. A profile's files are only mapped once it is read or written.
+//
+// Crash safety: each batch is first appended to journal.log as one CRC-checked frame of absolute
+// record values and forced to disk, then applied to the mapped files. Pages are written back at
+// checkpoints, after which the journal is truncated. On open every complete frame is replayed;
+// values are absolute, so replaying a frame that already reached the files is harmless. One journal
+// covers all profiles.
+public class MappedFileStore implements HealthStore {
+    private static final String JOURNAL = "journal.log";
+    private static final String PROFILES = "profiles";
+    private static final long CHECKPOINT_BYTES = 1 << 20;
+    private static final int HOURLY_HISTORY_DAYS = 366;
+    // Series files kept mapped at once, least recently used closed first, so thousands of
+    // profiles do not hold thousands of file handles
+    private static final int MAX_OPEN_FILES = 192;
+    private static final Metrics.Counter ERRORS = Metrics.counter("db.errors");
+
+    // file is relative to the profiles directory: <profile>/<name>
+    private record Slot(String file, long key) {}
+
+    private final Path dir;
+    private final ZoneId zone = AppClock.zone();
+    private final Map<String, MappedSeriesFile> files = new LinkedHashMap<>(16, 0.75f, true);
+    private FileChannel journal;
+
+    public MappedFileStore(String dir) {
+        this.dir = Paths.get(dir);
+    }
+
+    @Override
+    public void initialize() {
+        try {
+            open();
+        } catch (IOException e) {
+            failed("open", e);
+        }
+    }
+
+    @Override
+    public boolean writeBatch(List<WriteBehindQueue.Increment> events,
+                              Map<WriteBehindQueue.Key, Integer> increments,
+                              Collection<WriteBehindQueue.Reminders> reminders) {
+        try {
+            open();
+            closeIdleFiles();
+            Map<Slot, Integer> updates = new LinkedHashMap<>();
+            for (Map.Entry<WriteBehindQueue.Key, Integer> entry : increments.entrySet()) {
+                WriteBehindQueue.Key key = entry.getKey();
+                add(updates, key.profile() + "/" + key.table() + ".daily", key.date().toEpochDay(), entry.getValue());
+            }
+            for (WriteBehindQueue.Increment event : events) {
+                String hourly = event.profile() + "/" + event.table() + ".hourly";
+                long hour = event.date().toEpochDay() * 24 +
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(event.timestamp()), zone).getHour();
+                if (hour < file(hourly).base()) continue; // older than the hourly history, daily only
+                add(updates, hourly, hour, event.amount());
+            }
+            for (WriteBehindQueue.Reminders rem : reminders) {
+                updates.put(new Slot(rem.profile() + "/" + rem.metric() + ".done", rem.date().toEpochDay()),
+                        rem.done() ? 1 : 0);
+            }
+            apply(updates);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            failed("write_batch", e);
+            return false;
+        }
+    }
+
+    @Override
+    public int loadDaily(String profile, String table, LocalDate date) {
+        MappedSeriesFile daily = existing(profile + "/" + table + ".daily");
+        return daily == null ? 0 : daily.get(date.toEpochDay());
+    }
+
+    @Override
+    public void fillDaily(String profile, String table, long fromEpochDay, long toEpochDay, TimeSeries out) {
+        MappedSeriesFile daily = existing(profile + "/" + table + ".daily");
+        if (daily == null) return;
+        for (int i = 0; i < out.size(); i++) {
+            out.setValue(i, daily.get(fromEpochDay + i));
+        }
+    }
+
+    @Override
+    public void fillHourly(String profile, String table, LocalDate date, TimeSeries out) {
+        MappedSeriesFile hourly = existing(profile + "/" + table + ".hourly");
+        if (hourly == null) return;
+        long first = date.toEpochDay() * 24;
+        for (int hour = 0; hour < 24; hour++) {
+            out.setValue(hour, out.value(hour) + hourly.get(first + hour));
+        }
+    }
+
+    // A scan of the daily file's records, which start at epoch day 0
+    @Override
+    public LocalDate firstDay(String profile, String table) {
+        MappedSeriesFile daily = existing(profile + "/" + table + ".daily");
+        if (daily == null) return null;
+        long first = daily.firstSet();
+        return first < daily.end() ? LocalDate.ofEpochDay(first) : null;
+    }
+
+    // Computed from the daily records on read; a period is at most 31 records
+    @Override
+    public int fillRollup(String profile, String table, RollupPeriod period, LocalDate first, int count, TimeSeries out) {
+        MappedSeriesFile daily = existing(profile + "/" + table + ".daily");
+        if (daily == null) return 0;
+        long end = period.plus(first, count).toEpochDay();
+        int days = 0;
+        for (int i = 0; i < count; i++) {
+            long next = i + 1 < count ? out.epochDay(i + 1) : end;
+            long sum = 0;
+            days = 0;
+            for (long day = out.epochDay(i); day < next; day++) {
+                if (daily.isSet(day)) {
+                    sum += daily.get(day);
+                    days++;
+                }
+            }
+            out.setValue(i, days == 0 ? 0 : (double) sum / days);
+        }
+        return days;
+    }
+
+    @Override
+    public void rebuildRollups() {
+        // Nothing stored: rollups are computed from the daily files
+    }
+
+    @Override
+    public List<String> listProfiles() {
+        List<String> profiles = new ArrayList<>();
+        try {
+            open();
+            profiles = listProfileDirs();
+        } catch (IOException e) {
+            failed("list_profiles", e);
+        }
+        Collections.sort(profiles);
+        return profiles;
+    }
+
+    private List<String> listProfileDirs() throws IOException {
+        List<String> profiles = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(dir.resolve(PROFILES), Files::isDirectory)) {
+            for (Path profile : dirs) {
+                profiles.add(profile.getFileName().toString());
+            }
+        }
+        return profiles;
+    }
+
+    @Override
+    public void addProfile(String profile) {
+        try {
+            Files.createDirectories(dir.resolve(PROFILES).resolve(profile));
+        } catch (IOException e) {
+            failed("add_profile", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (journal == null) return;
+        try {
+            open(); // the journal may have been closed by an interrupt
+            checkpoint();
+            for (MappedSeriesFile file : files.values()) {
+                file.close();
+            }
+            journal.close();
+        } catch (IOException e) {
+            failed("close", e);
+        }
+        files.clear();
+        journal = null;
+    }
+
+    // Also reopens a journal closed under us: a thread interrupted during a FileChannel operation
+    // closes the channel. Replay then drops a frame the interrupt left half-written.
+    private void open() throws IOException {
+        if (journal != null && journal.isOpen()) return;
+        boolean reopen = journal != null;
+        if (!reopen) {
+            Files.createDirectories(dir.resolve(PROFILES));
+            migrateToProfiles();
+        }
+        journal = FileChannel.open(dir.resolve(JOURNAL),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (reopen) {
+            Log.warn("mapped", "journal_reopened", "dir", dir);
+        }
+        replay();
+        if (!reopen) {
+            migrateReminderMasks();
+        }
+    }
+
+    private void apply(Map<Slot, Integer> updates) throws IOException {
+        if (updates.isEmpty()) return;
+        // Everything that can fail happens before the frame is durable
+        for (Slot slot : updates.keySet()) {
+            file(slot.file()).reserve(slot.key());
+        }
+        appendFrame(updates);
+        for (Map.Entry<Slot, Integer> update : updates.entrySet()) {
+            file(update.getKey().file()).put(update.getKey().key(), update.getValue());
+        }
+        if (journal.size() >= CHECKPOINT_BYTES) {
+            checkpoint();
+        }
+    }
+
+    private void add(Map<Slot, Integer> updates, String file, long key, int amount) throws IOException {
+        Slot slot = new Slot(file, key);
+        Integer current = updates.get(slot);
+        updates.put(slot, (current != null ? current : file(file).get(key)) + amount);
+    }
+
+    // Frame: int payload length, int CRC32 of the payload, payload = count, then (file, key, value)
+    private void appendFrame(Map<Slot, Integer> updates) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeInt(updates.size());
+        for (Map.Entry<Slot, Integer> update : updates.entrySet()) {
+            payload.writeUTF(update.getKey().file());
+            payload.writeLong(update.getKey().key());
+            payload.writeInt(update.getValue());
+        }
+        byte[] data = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        ByteBuffer frame = ByteBuffer.allocate(8 + data.length);
+        frame.putInt(data.length).putInt((int) crc.getValue()).put(data).flip();
+        long end = journal.size();
+        try {
+            while (frame.hasRemaining()) {
+                journal.write(frame, end + frame.position());
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            // Drop the partial frame so it cannot be half-replayed later; a closed journal is
+            // reopened and replayed by the next open(), which drops it instead
+            if (journal.isOpen()) {
+                journal.truncate(end);
+            }
+            throw e;
+        }
+    }
+
+    // Applies every intact frame, stopping at the first torn or corrupt one
+    private void replay() throws IOException {
+        long size = journal.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        int frames = 0;
+        while (position + 8 <= size) {
+            header.clear();
+            journal.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int expected = header.getInt();
+            if (length < 0 || position + 8 + length > size) break;
+
+            ByteBuffer data = ByteBuffer.allocate(length);
+            journal.read(data, position + 8);
+            CRC32 crc = new CRC32();
+            crc.update(data.array());
+            if ((int) crc.getValue() != expected) break;
+
+            DataInputStream payload = new DataInputStream(new ByteArrayInputStream(data.array()));
+            int count = payload.readInt();
+            for (int i = 0; i < count; i++) {
+                String file = payload.readUTF();
+                if (file.indexOf('/') < 0) {
+                    file = DatabaseHelper.DEFAULT_PROFILE + "/" + file; // written before profiles
+                }
+                long key = payload.readLong();
+                file(file).put(key, payload.readInt());
+            }
+            position += 8 + length;
+            frames++;
+        }
+        if (frames > 0) {
+            Log.info("mapped", "journal_replayed", "frames", frames, "dir", dir);
+        }
+        checkpoint();
+    }
+
+    // Writes all mapped pages back, after which the journal is no longer needed
+    private void checkpoint() throws IOException {
+        for (MappedSeriesFile file : files.values()) {
+            file.force();
+        }
+        journal.truncate(0);
+        journal.force(true);
+    }
+
+    private MappedSeriesFile file(String name) throws IOException {
+        MappedSeriesFile file = files.get(name);
+        if (file != null && !file.isOpen()) {
+            file.close(); // forces what the mapping holds, then it is mapped again
+            files.remove(name);
+            file = null;
+        }
+        if (file == null) {
+            long base = name.endsWith(".hourly") ? (AppClock.today().toEpochDay() - HOURLY_HISTORY_DAYS) * 24 : 0;
+            Path path = dir.resolve(PROFILES).resolve(name);
+            Files.createDirectories(path.getParent());
+            file = new MappedSeriesFile(path, base);
+            files.put(name, file);
+        }
+        return file;
+    }
+
+    // Only called between operations, so a file an operation is using is never closed under it.
+    // Forcing first keeps the journal's guarantee: its frames are on disk once the file is gone.
+    private void closeIdleFiles() throws IOException {
+        Iterator<MappedSeriesFile> eldest = files.values().iterator();
+        while (files.size() > MAX_OPEN_FILES && eldest.hasNext()) {
+            MappedSeriesFile file = eldest.next();
+            file.force();
+            file.close();
+            eldest.remove();
+        }
+    }
+
+    // For reads: null rather than creating a file that was never written
+    private MappedSeriesFile existing(String name) {
+        try {
+            open();
+            closeIdleFiles();
+            MappedSeriesFile file = files.get(name);
+            if (file == null && Files.exists(dir.resolve(PROFILES).resolve(name))) {
+                file = file(name);
+            }
+            return file;
+        } catch (IOException e) {
+            failed("open_file", e);
+            return null;
+        }
+    }
+
+    // Series files from before profiles sit directly in dir; they become the default profile's
+    private void migrateToProfiles() throws IOException {
+        List<Path> legacy = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{daily,hourly}")) {
+            files.forEach(legacy::add);
+        }
+        if (legacy.isEmpty()) return;
+        Path target = dir.resolve(PROFILES).resolve(DatabaseHelper.DEFAULT_PROFILE);
+        Files.createDirectories(target);
+        for (Path file : legacy) {
+            Files.move(file, target.resolve(file.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+        }
+        Log.info("mapped", "migrated_to_profiles", "files", legacy.size(), "profile", DatabaseHelper.DEFAULT_PROFILE);
+    }
+
+    // Reminders.daily held one bit mask per day (1 water, 2 posture, 4 rest); each bit becomes a
+    // record of its metric's .done file. Goes through the journal like any batch, so a crash
+    // part way simply repeats the conversion on the next open.
+    private void migrateReminderMasks() throws IOException {
+        String[] metrics = {"Hydration", "Posture", "Steps"};
+        for (String profile : listProfileDirs()) {
+            String name = profile + "/Reminders.daily";
+            if (!Files.exists(dir.resolve(PROFILES).resolve(name))) continue;
+            MappedSeriesFile masks = file(name);
+            Map<Slot, Integer> updates = new LinkedHashMap<>();
+            for (long day = masks.base(); day < masks.end(); day++) {
+                if (!masks.isSet(day)) continue;
+                int mask = masks.get(day);
+                for (int bit = 0; bit < metrics.length; bit++) {
+                    updates.put(new Slot(profile + "/" + metrics[bit] + ".done", day), (mask >> bit) & 1);
+                }
+            }
+            apply(updates);
+            checkpoint();
+            files.remove(name);
+            masks.close();
+            Files.delete(dir.resolve(PROFILES).resolve(name));
+            Log.info("mapped", "migrated_reminders", "profile", profile, "days", updates.size() / metrics.length);
+        }
+    }
+
+    private static void failed(String operation, Exception e) {
+        ERRORS.increment();
+        Log.error("mapped", operation + "_failed", e);
+    }
+}
@@ -0,0 +1,133 @@
+package healthtracker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// A file of fixed 8-byte records (int value, int flags) indexed directly by a long key such as an
+// epoch day: the record for key k sits at HEADER + (k - base) * RECORD. The whole file is mapped
+// read-write, so a point read or update is one buffer access and a range read is contiguous.
+class MappedSeriesFile {
+    private static final int MAGIC = 0x48545346; // "HTSF"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+    private static final int RECORD = 8;
+    private static final int GROW_RECORDS = 4_096;
+    private static final int PRESENT = 1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long base;
+    private MappedByteBuffer map;
+    private long capacity; // records
+    private boolean dirty;
+
+    // base is only used when the file is created; an existing file keeps the one in its header
+    MappedSeriesFile(Path path, long base) throws IOException {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putLong(base).putInt(RECORD).flip();
+            channel.write(header, 0);
+            channel.force(true);
+            this.base = base;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                channel.close();
+                throw new IOException("Not a series file: " + path);
+            }
+            this.base = header.getLong();
+        }
+        remap((channel.size() - HEADER) / RECORD);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long base() {
+        return base;
+    }
+
+    // One past the last key the file has room for
+    long end() {
+        return base + capacity;
+    }
+
+    // 0 for keys that were never written
+    int get(long key) {
+        long index = key - base;
+        if (index < 0 || index >= capacity) return 0;
+        return map.getInt(position(index));
+    }
+
+    boolean isSet(long key) {
+        long index = key - base;
+        if (index < 0 || index >= capacity) return false;
+        return (map.getInt(position(index) + 4) & PRESENT) != 0;
+    }
+
+    // The lowest key that was ever written, or end() if there is none
+    long firstSet() {
+        for (long index = 0; index < capacity; index++) {
+            if ((map.getInt(position(index) + 4) & PRESENT) != 0) return base + index;
+        }
+        return end();
+    }
+
+    // Grows the file so key can be written without further I/O
+    void reserve(long key) throws IOException {
+        long index = key - base;
+        if (index < 0) {
+            throw new IllegalArgumentException("Key " + key + " before base " + base + " of " + path);
+        }
+        if (index >= capacity) {
+            remap((index / GROW_RECORDS + 1) * GROW_RECORDS);
+        }
+    }
+
+    void put(long key, int value) throws IOException {
+        reserve(key);
+        int position = position(key - base);
+        map.putInt(position, value);
+        map.putInt(position + 4, PRESENT);
+        dirty = true;
+    }
+
+    // Writes dirty pages back to the file
+    void force() {
+        if (dirty) {
+            map.force();
+            dirty = false;
+        }
+    }
+
+    // False once an interrupt closed the channel; the mapping still works but cannot grow
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    void close() throws IOException {
+        force();
+        map = null;
+        channel.close();
+    }
+
+    private static int position(long index) {
+        return (int) (HEADER + index * RECORD);
+    }
+
+    private void remap(long records) throws IOException {
+        if (map != null) force();
+        // Mapping past the end extends the file with zeroes, i.e. unset records
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + records * RECORD);
+        capacity = records;
+    }
+}
@@ -0,0 +1,38 @@
+package healthtracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps what it is sent, so the dispatch path can be benchmarked and checked without a desktop
+public class MemorySink implements NotificationSink {
+    private final List<Notification> sent = new ArrayList<>();
+
+    @Override
+    public synchronized void send(Notification notification) {
+        sent.add(notification);
+        notifyAll();
+    }
+
+    public synchronized List<Notification> getSent() {
+        return new ArrayList<>(sent);
+    }
+
+    public synchronized int size() {
+        return sent.size();
+    }
+
+    public synchronized void clear() {
+        sent.clear();
+    }
+
+    // Returns false if fewer than count have arrived when the timeout runs out
+    public synchronized boolean awaitSize(int count, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (sent.size() < count) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+}
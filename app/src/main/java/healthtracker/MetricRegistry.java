@@ -0,0 +1,141 @@
+package healthtracker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// The tracked metrics, read once from metrics.properties on the classpath or the file named by
+// -Dhealth.metricConfig (the classpath defaults if that file does not exist). Everything per metric (table, goal, reminder, colours, UI) comes from
+// here, so adding one is a config change. Lookups by name are a single map get.
+public final class MetricRegistry {
+    public record Metric(int index, String name, String label, String unit, int goal, int increment,
+                         String color, String ringColor, String task, long reminderIntervalMs,
+                         String reminderTitle, String reminderMessage, String reminderSpeech,
+                         String appleHealthType, String googleFitColumn) {}
+
+    // Names are used as SQL table and file names, and must not clash with the other tables
+    private static final Pattern NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_]{0,31}");
+    private static final Set<String> RESERVED = Set.of("Reminders", "RemindersArchive", "Rollups", "Events", "Profiles", "SyncCounters", "SyncState");
+
+    private static final List<Metric> METRICS;
+    private static final Map<String, Metric> BY_NAME = new HashMap<>();
+
+    static {
+        METRICS = load(System.getProperty("health.metricConfig"));
+        for (Metric metric : METRICS) {
+            BY_NAME.put(metric.name(), metric);
+        }
+        Log.debug("metrics", "registry_loaded", "metrics", METRICS.size());
+    }
+
+    private MetricRegistry() {}
+
+    public static List<Metric> all() {
+        return METRICS;
+    }
+
+    public static Metric get(String name) {
+        Metric metric = BY_NAME.get(name);
+        if (metric == null) {
+            throw new IllegalArgumentException("Unknown metric: " + name);
+        }
+        return metric;
+    }
+
+    // null for names that are not configured
+    public static Metric find(String name) {
+        return BY_NAME.get(name);
+    }
+
+    static List<Metric> load(String file) {
+        if (file != null && !Files.isRegularFile(Path.of(file))) {
+            Log.warn("metrics", "config_missing", "file", file);
+            file = null;
+        }
+        Properties config = new Properties();
+        try (InputStream in = file != null
+                ? Files.newInputStream(Path.of(file))
+                : MetricRegistry.class.getResourceAsStream("/metrics.properties")) {
+            if (in == null) {
+                throw new IllegalStateException("metrics.properties is missing from the classpath");
+            }
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                config.load(reader);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read metric config " + (file != null ? file : "metrics.properties"), e);
+        }
+        return parse(config);
+    }
+
+    static List<Metric> parse(Properties config) {
+        List<Metric> metrics = new ArrayList<>();
+        for (String name : config.getProperty("metrics", "").split(",")) {
+            name = name.strip();
+            if (name.isEmpty()) continue;
+            if (!NAME.matcher(name).matches() || RESERVED.contains(name)) {
+                throw new IllegalStateException("Invalid metric name: " + name);
+            }
+            // Tables are looked up case-insensitively by SQLite and on some file systems
+            String folded = name;
+            if (metrics.stream().anyMatch(m -> m.name().equalsIgnoreCase(folded))) {
+                throw new IllegalStateException("Duplicate metric name: " + name);
+            }
+            String color = required(config, name, "color");
+            metrics.add(new Metric(metrics.size(), name,
+                    config.getProperty(name + ".label", name),
+                    config.getProperty(name + ".unit", ""),
+                    positive(config, name, "goal"),
+                    positive(config, name, "increment"),
+                    color,
+                    config.getProperty(name + ".ringColor", color),
+                    config.getProperty(name + ".task", name),
+                    Long.parseLong(config.getProperty(name + ".reminder.intervalMs", "0").strip()),
+                    config.getProperty(name + ".reminder.title", name + " Reminder"),
+                    config.getProperty(name + ".reminder.message", name),
+                    config.getProperty(name + ".reminder.speech", name),
+                    optional(config, name, "import.appleHealth"),
+                    optional(config, name, "import.googleFit")));
+        }
+        if (metrics.isEmpty()) {
+            throw new IllegalStateException("No metrics configured");
+        }
+        return Collections.unmodifiableList(metrics);
+    }
+
+    private static String required(Properties config, String name, String key) {
+        String value = config.getProperty(name + "." + key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException("Missing " + name + "." + key);
+        }
+        return value.strip();
+    }
+
+    // null when not set
+    private static String optional(Properties config, String name, String key) {
+        String value = config.getProperty(name + "." + key);
+        return value == null || value.isBlank() ? null : value.strip();
+    }
+
+    private static int positive(Properties config, String name, String key) {
+        String value = required(config, name, key);
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) return parsed;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalStateException(name + "." + key + " must be a positive integer: " + value);
+    }
+}
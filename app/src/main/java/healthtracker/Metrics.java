@@ -0,0 +1,152 @@
+package healthtracker;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide latency histograms and counters. Each one is registered as an MXBean under
+// healthtracker:type=Latency|Counter,name=<name> when first used, and all of them can be
+// written to a JSON snapshot file periodically. -Dhealth.metrics=off turns recording into a no-op.
+public final class Metrics {
+    public interface LatencyMXBean {
+        long getCount();
+
+        double getMeanMicros();
+
+        double getP50Micros();
+
+        double getP90Micros();
+
+        double getP99Micros();
+
+        double getMaxMicros();
+    }
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public static final class Counter implements CounterMXBean {
+        private final LongAdder value = new LongAdder();
+
+        public void increment() {
+            if (enabled) value.increment();
+        }
+
+        public void add(long n) {
+            if (enabled) value.add(n);
+        }
+
+        @Override
+        public long getCount() {
+            return value.sum();
+        }
+    }
+
+    private static volatile boolean enabled = !"off".equals(System.getProperty("health.metrics"));
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    // Start of a timed section; pass it to LatencyHistogram.recordSince
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> register("Latency", n, new LatencyHistogram(n)));
+    }
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> register("Counter", n, new Counter()));
+    }
+
+    // Writes every histogram and counter to file, through a temp file so readers never see half of it
+    public static void writeSnapshot(Path file) {
+        StringBuilder json = new StringBuilder(4_096);
+        json.append("{\n  \"time\": \"").append(LocalDateTime.now()).append("\",\n  \"latencies\": {");
+        String separator = "\n";
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram.Snapshot s = entry.getValue().snapshot();
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": {")
+                    .append("\"count\": ").append(s.count())
+                    .append(", \"meanUs\": ").append(micros(Math.round(s.meanNanos())))
+                    .append(", \"p50Us\": ").append(micros(s.p50()))
+                    .append(", \"p90Us\": ").append(micros(s.p90()))
+                    .append(", \"p99Us\": ").append(micros(s.p99()))
+                    .append(", \"p999Us\": ").append(micros(s.p999()))
+                    .append(", \"maxUs\": ").append(micros(s.max()))
+                    .append('}');
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"counters\": {");
+        separator = "\n";
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": ")
+                    .append(entry.getValue().getCount());
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, "metrics", ".tmp");
+            Files.writeString(temp, json);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.error("metrics", "snapshot_failed", e, "file", file);
+        }
+    }
+
+    // Snapshot every -Dhealth.metrics.intervalMs (default 60 s) to -Dhealth.metrics.file
+    // (default metrics.json) on the shared scheduler thread
+    public static void startSnapshots(TaskScheduler scheduler) {
+        if (!enabled) return;
+        Path file = snapshotFile();
+        long intervalMs = Long.getLong("health.metrics.intervalMs", 60_000);
+        scheduler.schedule("metrics-snapshot", intervalMs, job -> writeSnapshot(file));
+        Log.info("metrics", "snapshots_started", "file", file, "intervalMs", intervalMs);
+    }
+
+    public static Path snapshotFile() {
+        return Paths.get(System.getProperty("health.metrics.file", "metrics.json"));
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000.0);
+    }
+
+    private static <T> T register(String type, String name, T bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("healthtracker:type=" + type + ",name=" + name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException e) {
+            Log.warn("metrics", "mbean_registration_failed", "name", name, "error", e);
+        }
+        return bean;
+    }
+}
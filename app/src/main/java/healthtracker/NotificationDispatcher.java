@@ -0,0 +1,137 @@
+package healthtracker;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Hands notifications to a sink from one background thread, so neither the scheduler nor the FX
+// thread ever waits on a helper process. post never blocks: a repeat of a recent notification,
+// anything over the rate limit and anything that finds the queue full is dropped and counted.
+public class NotificationDispatcher {
+    private static final int QUEUE_CAPACITY = 32;
+    private static final long DEDUPE_WINDOW_MS = 10_000;
+    // Token bucket: bursts of up to BURST, then one every REFILL_MS
+    private static final int BURST = 5;
+    private static final long REFILL_MS = 6_000;
+
+    private static final LatencyHistogram DISPATCH = Metrics.histogram("notification.dispatch");
+    private static final Metrics.Counter SENT = Metrics.counter("notification.sent");
+    private static final Metrics.Counter DUPLICATES = Metrics.counter("notification.duplicates");
+    private static final Metrics.Counter RATE_LIMITED = Metrics.counter("notification.rateLimited");
+    private static final Metrics.Counter DROPPED = Metrics.counter("notification.dropped");
+    private static final Metrics.Counter ERRORS = Metrics.counter("notification.errors");
+
+    private record Posted(NotificationSink.Notification notification, long start) {}
+
+    private final NotificationSink sink;
+    private final BlockingQueue<Posted> queue;
+    private final long dedupeWindowNanos;
+    private final int burst;
+    private final long refillNanos;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // Guarded by this
+    private final Map<NotificationSink.Notification, Long> recent = new HashMap<>();
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public NotificationDispatcher(NotificationSink sink) {
+        this(sink, QUEUE_CAPACITY, DEDUPE_WINDOW_MS, BURST, REFILL_MS);
+    }
+
+    // refillMs <= 0 turns the rate limit off
+    NotificationDispatcher(NotificationSink sink, int capacity, long dedupeWindowMs, int burst, long refillMs) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dedupeWindowNanos = TimeUnit.MILLISECONDS.toNanos(dedupeWindowMs);
+        this.burst = burst;
+        this.refillNanos = TimeUnit.MILLISECONDS.toNanos(refillMs);
+        this.tokens = burst;
+        worker = new Thread(this::run, "notification-dispatch");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Returns whether the notification was queued
+    public boolean post(NotificationSink.Notification notification) {
+        long start = Metrics.start();
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (!running) return false;
+            Long last = recent.get(notification);
+            if (last != null && now - last < dedupeWindowNanos) {
+                DUPLICATES.increment();
+                return false;
+            }
+            if (refillNanos > 0) {
+                tokens = Math.min(burst, tokens + (double) (now - lastRefillNanos) / refillNanos);
+                lastRefillNanos = now;
+                if (tokens < 1) {
+                    RATE_LIMITED.increment();
+                    return false;
+                }
+            }
+            if (!queue.offer(new Posted(notification, start))) {
+                DROPPED.increment();
+                Log.warn("notify", "queue_full", "title", notification.title());
+                return false;
+            }
+            if (refillNanos > 0) tokens--;
+            recent.put(notification, now);
+            if (recent.size() > QUEUE_CAPACITY) {
+                recent.values().removeIf(t -> now - t >= dedupeWindowNanos);
+            }
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // Stops new posts; the worker sends what is already queued, then closes the sink
+    public void close() {
+        synchronized (this) {
+            running = false;
+        }
+        worker.interrupt();
+        try {
+            worker.join(2_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                send(queue.take());
+            }
+        } catch (InterruptedException ignored) {
+        }
+        try {
+            // close() has stopped new posts, so this ends
+            Thread.interrupted();
+            for (Posted posted; (posted = queue.poll()) != null; ) {
+                send(posted);
+            }
+        } finally {
+            sink.close();
+        }
+    }
+
+    private void send(Posted posted) {
+        try {
+            sink.send(posted.notification());
+            SENT.increment();
+            DISPATCH.recordSince(posted.start());
+        } catch (IOException | RuntimeException e) {
+            ERRORS.increment();
+            Log.error("notify", "send_failed", e, "title", posted.notification().title());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package healthtracker;
+
+import java.io.IOException;
+
+// Where reminders go outside the window. The dispatcher calls send from its own thread, one
+// notification at a time, so implementations may block but need not be thread-safe.
+public interface NotificationSink {
+    record Notification(String title, String message, String speech) {}
+
+    // Selected with -Dhealth.notify=auto (default), windows, linux, log or off
+    static NotificationSink fromConfig() {
+        String sink = System.getProperty("health.notify", "auto");
+        if (sink.equals("auto")) {
+            String os = System.getProperty("os.name", "");
+            sink = os.startsWith("Windows") ? "windows" : os.startsWith("Linux") ? "linux" : "log";
+        }
+        return switch (sink) {
+            case "windows" -> HelperProcessSink.windows();
+            case "linux" -> HelperProcessSink.linux();
+            case "log" -> n -> Log.info("notify", "notification", "title", n.title(), "message", n.message());
+            case "off" -> n -> {};
+            default -> throw new IllegalArgumentException("Unknown health.notify: " + sink);
+        };
+    }
+
+    void send(Notification notification) throws IOException;
+
+    default void close() {
+    }
+}
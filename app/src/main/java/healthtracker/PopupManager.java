@@ -0,0 +1,172 @@
+package healthtracker;
+
+import javafx.animation.*;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Font;
+import javafx.stage.Popup;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// In-window reminder popups. At most POOL_SIZE popups are ever built and they are reused; a message
+// that arrives while one is on screen is stacked into it, and messages that find every popup busy
+// wait and are shown together. Nothing is shown or animated while the window is minimized.
+// Must only be used on the FX thread.
+public class PopupManager {
+    private static final int POOL_SIZE = 2;
+    private static final int MAX_LINES = 4;
+    private static final Duration SLIDE = Duration.millis(400);
+    private static final Duration HOLD = Duration.seconds(3);
+
+    private static final Metrics.Counter SHOWN = Metrics.counter("popup.shown");
+    private static final Metrics.Counter COALESCED = Metrics.counter("popup.coalesced");
+    private static final Metrics.Counter SKIPPED = Metrics.counter("popup.skipped");
+
+    private final Stage stage;
+    private final List<Slot> pool = new ArrayList<>(POOL_SIZE);
+    private final Deque<Slot> idle = new ArrayDeque<>(POOL_SIZE);
+    private final List<String> queued = new ArrayList<>();
+    // On screen and still accepting messages; null once it starts to leave
+    private Slot current;
+
+    public PopupManager(Stage stage) {
+        this.stage = stage;
+        stage.iconifiedProperty().addListener((obs, was, iconified) -> {
+            if (iconified) hideAll();
+        });
+    }
+
+    public void show(String message) {
+        if (stage.isIconified() || !stage.isShowing()) {
+            SKIPPED.increment();
+            return;
+        }
+        if (current != null) {
+            current.add(message);
+            COALESCED.increment();
+            return;
+        }
+        queued.add(message);
+        showQueued();
+    }
+
+    public void hideAll() {
+        queued.clear();
+        for (Slot slot : pool) {
+            slot.cancel();
+        }
+    }
+
+    private void showQueued() {
+        if (queued.isEmpty()) return;
+        if (idle.isEmpty() && pool.size() < POOL_SIZE) {
+            Slot slot = new Slot();
+            pool.add(slot);
+            idle.push(slot);
+        }
+        // Every popup is still leaving; the first one back shows the queue
+        if (idle.isEmpty()) return;
+        current = idle.pop();
+        current.show(queued);
+        queued.clear();
+        SHOWN.increment();
+    }
+
+    private final class Slot {
+        private final Popup popup = new Popup();
+        private final Label label = new Label();
+        private final StackPane pane = new StackPane(label);
+        private final List<String> lines = new ArrayList<>(MAX_LINES);
+        private int hiddenLines;
+
+        private final Animation enter;
+        private final PauseTransition hold = new PauseTransition(HOLD);
+        private final Animation leave;
+
+        private Slot() {
+            label.setFont(new Font("Arial", 18));
+            label.setStyle("-fx-background-color: white; -fx-text-fill: #333; -fx-padding: 15; -fx-background-radius: 15;");
+            label.setMinWidth(250);
+            label.setWrapText(true);
+            pane.setStyle("-fx-background-color: transparent;");
+            popup.getContent().add(pane);
+            popup.setAutoHide(true);
+            popup.setOnAutoHide(e -> cancel());
+
+            enter = slideAndFade(50, 0, 0, 1);
+            leave = slideAndFade(0, 50, 1, 0);
+            enter.setOnFinished(e -> hold.playFromStart());
+            hold.setOnFinished(e -> {
+                if (current == this) current = null;
+                leave.playFromStart();
+            });
+            leave.setOnFinished(e -> {
+                popup.hide();
+                release();
+                showQueued();
+            });
+        }
+
+        private Animation slideAndFade(double fromY, double toY, double fromOpacity, double toOpacity) {
+            TranslateTransition slide = new TranslateTransition(SLIDE, pane);
+            slide.setFromY(fromY);
+            slide.setToY(toY);
+            FadeTransition fade = new FadeTransition(SLIDE, pane);
+            fade.setFromValue(fromOpacity);
+            fade.setToValue(toOpacity);
+            return new ParallelTransition(slide, fade);
+        }
+
+        private void show(List<String> messages) {
+            lines.clear();
+            hiddenLines = 0;
+            messages.forEach(this::append);
+            updateText();
+            pane.setTranslateY(50);
+            pane.setOpacity(0);
+            popup.show(stage);
+            enter.playFromStart();
+        }
+
+        // Stacks another message and keeps the popup up for a full hold from now
+        private void add(String message) {
+            append(message);
+            updateText();
+            if (hold.getStatus() == Animation.Status.RUNNING) {
+                hold.playFromStart();
+            }
+        }
+
+        private void append(String message) {
+            if (lines.contains(message)) return;
+            if (lines.size() == MAX_LINES) {
+                lines.remove(0);
+                hiddenLines++;
+            }
+            lines.add(message);
+        }
+
+        private void updateText() {
+            String text = String.join("\n", lines);
+            label.setText(hiddenLines == 0 ? text : text + "\n+" + hiddenLines + " more");
+        }
+
+        private void cancel() {
+            enter.stop();
+            hold.stop();
+            leave.stop();
+            popup.hide();
+            if (current == this) current = null;
+            release();
+        }
+
+        private void release() {
+            if (!idle.contains(this)) idle.push(this);
+        }
+    }
+}
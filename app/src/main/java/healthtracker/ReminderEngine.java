@@ -0,0 +1,102 @@
+package healthtracker;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Reminder lifecycle without any UI: one scheduler job per reminder, paused as soon as
+// its goal is reached and resumed at day rollover. Delivery is left to the sink.
+public class ReminderEngine implements GoalEvents.Listener {
+    public record Reminder(String table, long intervalMs, String title, String message, String tts) {}
+
+    // One reminder per configured metric that has a reminder interval
+    public static final List<Reminder> DEFAULT_REMINDERS = MetricRegistry.all().stream()
+            .filter(metric -> metric.reminderIntervalMs() > 0)
+            .map(metric -> new Reminder(metric.name(), metric.reminderIntervalMs(), metric.reminderTitle(),
+                    metric.reminderMessage(), metric.reminderSpeech()))
+            .toList();
+
+    private static final long ROLLOVER_MARGIN_MS = 1_000;
+
+    private final TaskScheduler scheduler;
+    private final GoalEvents goalEvents;
+    private final Consumer<Reminder> sink;
+    private final Map<String, TaskScheduler.Job> jobs = new LinkedHashMap<>();
+
+    public ReminderEngine(TaskScheduler scheduler, GoalEvents goalEvents, Consumer<Reminder> sink) {
+        this.scheduler = scheduler;
+        this.goalEvents = goalEvents;
+        this.sink = sink;
+    }
+
+    public void start(List<Reminder> reminders) {
+        goalEvents.addListener(this);
+        for (Reminder reminder : reminders) {
+            TaskScheduler.Job job = scheduler.schedule(reminder.title(), reminder.intervalMs(),
+                    j -> sink.accept(reminder));
+            jobs.put(reminder.table(), job);
+            pauseIfGoalMet(reminder.table(), job);
+        }
+        scheduleRollover();
+    }
+
+    // The only reads of goal state, at start and on a profile switch; otherwise it arrives as events
+    private void pauseIfGoalMet(String table, TaskScheduler.Job job) {
+        if (DatabaseHelper.getDailyTotal(table) >= DatabaseHelper.getGoal(table)) {
+            job.pause();
+            Log.info("reminder", "paused_goal_already_met", "reminder", job.getName());
+        }
+    }
+
+    public void stop() {
+        goalEvents.removeListener(this);
+        jobs.values().forEach(TaskScheduler.Job::cancel);
+    }
+
+    public void resetGoals() {
+        jobs.values().forEach(TaskScheduler.Job::resume);
+    }
+
+    public boolean isActive(String table) {
+        TaskScheduler.Job job = jobs.get(table);
+        return job != null && !job.isPaused();
+    }
+
+    @Override
+    public void goalReached(String table) {
+        TaskScheduler.Job job = jobs.get(table);
+        if (job != null && !job.isPaused()) {
+            job.pause();
+            Log.info("reminder", "paused_goal_met", "reminder", job.getName());
+        }
+    }
+
+    @Override
+    public void dayRolledOver(LocalDate day) {
+        resetGoals();
+    }
+
+    // Runs on the scheduler thread, since reading the new profile's totals may hit the store
+    @Override
+    public void profileChanged(String profile) {
+        scheduler.runOnce("profile-changed", 0, () -> {
+            jobs.forEach((table, job) -> {
+                job.resume();
+                pauseIfGoalMet(table, job);
+            });
+        });
+    }
+
+    private void scheduleRollover() {
+        LocalDateTime now = AppClock.now();
+        long delayMs = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+        scheduler.runOnce("day-rollover", delayMs + ROLLOVER_MARGIN_MS, () -> {
+            goalEvents.checkDay(AppClock.today());
+            scheduleRollover();
+        });
+    }
+}
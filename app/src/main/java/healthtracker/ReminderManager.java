@@ -0,0 +1,52 @@
+package healthtracker;
+
+import javafx.application.Platform;
+import javafx.stage.Stage;
+
+public class ReminderManager {
+    private static final LatencyHistogram TICK_TO_NOTIFICATION = Metrics.histogram("reminder.tickToNotification");
+    private static final Metrics.Counter DELIVERED = Metrics.counter("reminder.delivered");
+
+    private final Stage stage;
+    // Built on the FX thread when the first reminder is shown
+    private PopupManager popups;
+
+    // All reminder jobs share the scheduler's single daemon thread
+    private final ReminderScheduler scheduler = new ReminderScheduler();
+    private final ReminderEngine engine;
+    private final NotificationDispatcher notifications = new NotificationDispatcher(NotificationSink.fromConfig());
+
+    // Reads today's totals and starts the notification helper, so it is built off the FX thread
+    public ReminderManager(Stage stage) {
+        this.stage = stage;
+        this.engine = new ReminderEngine(scheduler, DatabaseHelper.getGoalEvents(), this::deliver);
+        engine.start(ReminderEngine.DEFAULT_REMINDERS);
+    }
+
+    // Called on the scheduler thread at the tick; the latency runs until the FX thread has shown it.
+    // The desktop notification and speech are queued for the dispatcher's thread.
+    private void deliver(ReminderEngine.Reminder reminder) {
+        long ticked = Metrics.start();
+        notifications.post(new NotificationSink.Notification(reminder.title(), reminder.message(), reminder.tts()));
+        Platform.runLater(() -> {
+            if (popups == null) popups = new PopupManager(stage);
+            popups.show(reminder.message());
+            TICK_TO_NOTIFICATION.recordSince(ticked);
+            DELIVERED.increment();
+        });
+    }
+
+    public void stop() {
+        engine.stop();
+        scheduler.shutdown();
+        notifications.close();
+    }
+
+    public void resetGoals() {
+        engine.resetGoals();
+    }
+
+    public ReminderScheduler getScheduler() {
+        return scheduler;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package healthtracker;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// One scheduler thread shared by every reminder job. Jobs can be paused, resumed and
+// rescheduled at any time; the thread is only created when the first job is scheduled.
+public class ReminderScheduler implements TaskScheduler {
+    private static final Metrics.Counter FAILURES = Metrics.counter("scheduler.failures");
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    public ReminderScheduler() {
+        executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "reminder-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public Job schedule(String name, long periodMs, Consumer<TaskScheduler.Job> task) {
+        Job job = new Job(name, periodMs, task);
+        job.resume();
+        return job;
+    }
+
+    @Override
+    public void runOnce(String name, long delayMs, Runnable task) {
+        executor.schedule(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                FAILURES.increment();
+                Log.error("scheduler", "task_failed", e, "task", name);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    public int getThreadCount() {
+        return executor.getPoolSize();
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public class Job implements TaskScheduler.Job {
+        private final String name;
+        private final Consumer<TaskScheduler.Job> task;
+        private long periodMs;
+        private ScheduledFuture<?> future;
+        // Bumped on every pause and resume, so a run of an earlier schedule that was already
+        // waiting for this job when it was cancelled or rescheduled does nothing
+        private long generation;
+
+        // Tick jitter: how late each run started compared to its fixed-rate slot
+        private long firstRunNanos;
+        private long slot;
+        private long ticks;
+        private long totalJitterNanos;
+        private long maxJitterNanos;
+
+        private Job(String name, long periodMs, Consumer<TaskScheduler.Job> task) {
+            this.name = name;
+            this.periodMs = periodMs;
+            this.task = task;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public synchronized long getPeriodMs() {
+            return periodMs;
+        }
+
+        @Override
+        public synchronized boolean isPaused() {
+            return future == null;
+        }
+
+        @Override
+        public synchronized void pause() {
+            if (future != null) {
+                future.cancel(false);
+                future = null;
+                generation++;
+            }
+        }
+
+        @Override
+        public synchronized void resume() {
+            if (future == null && !executor.isShutdown()) {
+                firstRunNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(periodMs);
+                slot = 0;
+                long current = ++generation;
+                future = executor.scheduleAtFixedRate(() -> tick(current), periodMs, periodMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public synchronized void reschedule(long newPeriodMs) {
+            boolean wasRunning = future != null;
+            pause();
+            periodMs = newPeriodMs;
+            if (wasRunning) resume();
+        }
+
+        @Override
+        public void cancel() {
+            pause();
+        }
+
+        public synchronized long getTicks() {
+            return ticks;
+        }
+
+        public synchronized double getMaxJitterMillis() {
+            return maxJitterNanos / 1_000_000.0;
+        }
+
+        public synchronized double getMeanJitterMillis() {
+            return ticks == 0 ? 0 : totalJitterNanos / 1_000_000.0 / ticks;
+        }
+
+        private void tick(long scheduled) {
+            synchronized (this) {
+                if (scheduled != generation) return;
+                long expected = firstRunNanos + slot++ * TimeUnit.MILLISECONDS.toNanos(periodMs);
+                long jitter = Math.max(0, System.nanoTime() - expected);
+                ticks++;
+                totalJitterNanos += jitter;
+                maxJitterNanos = Math.max(maxJitterNanos, jitter);
+            }
+            try {
+                task.accept(this);
+            } catch (RuntimeException e) {
+                // An exception would otherwise silently cancel the periodic schedule
+                FAILURES.increment();
+                Log.error("scheduler", "job_failed", e, "job", name);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package healthtracker;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+// The reminder engine and DatabaseHelper on simulated time, for scenarios and benchmarks: reminder
+// ticks, goal pauses, day rollovers and confirmations run as fast as the code allows, against
+// whatever store DatabaseHelper has open. AppClock points at the simulation until close, so only
+// one can run per JVM at a time. Everything happens on the calling thread except the write-behind
+// flushes, which reads include while they are pending.
+public class ReminderSimulation implements AutoCloseable {
+    public record Delivery(LocalDateTime at, String table) {}
+
+    private final VirtualTimeScheduler scheduler;
+    private final ReminderEngine engine;
+    private final List<Delivery> deliveries = new ArrayList<>();
+
+    public ReminderSimulation(LocalDateTime start) {
+        this(start, AppClock.zone(), ReminderEngine.DEFAULT_REMINDERS);
+    }
+
+    public ReminderSimulation(LocalDateTime start, ZoneId zone, List<ReminderEngine.Reminder> reminders) {
+        scheduler = new VirtualTimeScheduler(start.atZone(zone).toInstant(), zone);
+        AppClock.set(scheduler.getClock());
+        GoalEvents goalEvents = DatabaseHelper.getGoalEvents();
+        // Goal state still belongs to the wall clock's day
+        goalEvents.checkDay(AppClock.today());
+        engine = new ReminderEngine(scheduler, goalEvents,
+                reminder -> deliveries.add(new Delivery(AppClock.now(), reminder.table())));
+        engine.start(reminders);
+    }
+
+    // What the Confirm button does: the day's checklist row per metric, then an increment per done
+    // task. A total that is not in memory is read here rather than in the background, so goal events
+    // have fired when this returns.
+    public void confirm(Collection<String> done) {
+        DatabaseHelper.postReminders(done);
+        String profile = DatabaseHelper.getProfile();
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            if (done.contains(metric.name())) {
+                DatabaseHelper.postIncrement(profile, metric.name(), metric.increment());
+            }
+        }
+    }
+
+    public void confirm(String... metrics) {
+        confirm(Set.of(metrics));
+    }
+
+    // The engine re-checks the new profile's goals in a task of its own, which runs straight away
+    public void switchProfile(String profile) {
+        DatabaseHelper.switchProfile(profile);
+        scheduler.runUntil(scheduler.now());
+    }
+
+    public void advance(Duration duration) {
+        scheduler.advance(duration);
+    }
+
+    public void advanceTo(LocalDateTime time) {
+        scheduler.runUntil(time.atZone(scheduler.getClock().getZone()).toInstant());
+    }
+
+    public LocalDateTime now() {
+        return AppClock.now();
+    }
+
+    public boolean isActive(String table) {
+        return engine.isActive(table);
+    }
+
+    public List<Delivery> getDeliveries() {
+        return deliveries;
+    }
+
+    // Reminders for table delivered in [from, to)
+    public long countDeliveries(String table, LocalDateTime from, LocalDateTime to) {
+        return deliveries.stream()
+                .filter(d -> d.table().equals(table) && !d.at().isBefore(from) && d.at().isBefore(to))
+                .count();
+    }
+
+    public VirtualTimeScheduler getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public void close() {
+        engine.stop();
+        scheduler.shutdown();
+        AppClock.reset();
+    }
+}
@@ -0,0 +1,82 @@
+package healthtracker;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.temporal.TemporalAdjusters;
+
+// Calendar periods kept pre-aggregated in the Rollups table
+public enum RollupPeriod {
+    WEEK("W"),
+    MONTH("M");
+
+    private final String code;
+
+    RollupPeriod(String code) {
+        this.code = code;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public LocalDate start(LocalDate date) {
+        return switch (this) {
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate plus(LocalDate start, long periods) {
+        return switch (this) {
+            case WEEK -> start.plusWeeks(periods);
+            case MONTH -> start.plusMonths(periods);
+        };
+    }
+
+    // Keys out's first count points by the epoch day of each consecutive period start, without allocating
+    void fillStarts(LocalDate first, int count, TimeSeries out) {
+        long day = first.toEpochDay();
+        int year = first.getYear();
+        int month = first.getMonthValue();
+        for (int i = 0; i < count; i++) {
+            out.set(i, day, 0);
+            if (this == WEEK) {
+                day += 7;
+            } else {
+                day += Month.of(month).length(Year.isLeap(year));
+                if (++month > 12) {
+                    month = 1;
+                    year++;
+                }
+            }
+        }
+    }
+
+    // Parameter for sqlIndex(): the ordinal of the first period of a range
+    long indexBase(LocalDate first) {
+        return switch (this) {
+            case WEEK -> first.toEpochDay();
+            case MONTH -> first.getYear() * 12L + first.getMonthValue();
+        };
+    }
+
+    // SQLite expression for the position of a period start column relative to indexBase(),
+    // so rows can be placed without parsing dates in Java
+    String sqlIndex(String column) {
+        return switch (this) {
+            case WEEK -> "(CAST(julianday(" + column + ") - 2440587.5 AS INTEGER) - ?) / 7";
+            case MONTH -> "CAST(strftime('%Y', " + column + ") AS INTEGER) * 12 + " +
+                    "CAST(strftime('%m', " + column + ") AS INTEGER) - ?";
+        };
+    }
+
+    // SQLite expression for the period start of a date column, matching start()
+    String sqlStart(String column) {
+        return switch (this) {
+            case WEEK -> "date(" + column + ", 'weekday 0', '-6 days')";
+            case MONTH -> "strftime('%Y-%m-01', " + column + ")";
+        };
+    }
+}
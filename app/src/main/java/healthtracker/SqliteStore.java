@@ -0,0 +1,995 @@
+package healthtracker;
+
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// The SQLite engine: one daily table per configured metric, rollups and the event log over
+// ConnectionManager's connection
+public class SqliteStore implements HealthStore {
+    // The metric tables of databases from before the registry
+    private static final String[] LEGACY_TABLES = {"Hydration", "Posture", "Steps"};
+    // 1: every table keyed by profile. 2: one Reminders row per metric. 3: sync change log.
+    private static final int SCHEMA_VERSION = 3;
+    private static final String INSERT_EVENT_SQL = "INSERT INTO Events (ts, metric, amount, profile) VALUES (?, ?, ?, ?)";
+    private static final String SAVE_REMINDERS_SQL =
+            "INSERT OR REPLACE INTO Reminders (profile, date, metric, done) VALUES (?, ?, ?, ?)";
+    private static final String ADD_PROFILE_SQL = "INSERT OR IGNORE INTO Profiles (profile) VALUES (?)";
+    private static final String RECORD_LOCAL_SQL =
+            "INSERT INTO SyncCounters (profile, metric, date, device, value, version) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT(profile, metric, date, device) DO UPDATE SET value = value + excluded.value, version = excluded.version";
+    private static final String LOCAL_CHANGES_SQL =
+            "SELECT profile, metric, date, value, version FROM SyncCounters WHERE device = ? AND version > ? ORDER BY version LIMIT ?";
+    private static final String REMOTE_COUNTER_SQL =
+            "SELECT value, version FROM SyncCounters WHERE profile = ? AND metric = ? AND date = ? AND device = ?";
+    private static final String STORE_REMOTE_SQL =
+            "INSERT OR REPLACE INTO SyncCounters (profile, metric, date, device, value, version) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String COMPACTED_TO = "maintenance.eventsCompactedTo";
+    private static final String ARCHIVE_ROWS_SQL =
+            "SELECT rowid FROM Reminders WHERE date < ? ORDER BY date, rowid LIMIT ?";
+    // Switching an older database to incremental vacuum rewrites all of it, so only up to 256 MB
+    private static final long CONVERT_MAX_PAGES = 65_536;
+    private static final Metrics.Counter ERRORS = Metrics.counter("db.errors");
+
+    // Per-metric statement text, built once from the registry so no call concatenates SQL;
+    // ConnectionManager prepares each text once per connection
+    private record MetricSql(String create, String upsert, String loadDaily, String fillDaily, String firstDay,
+                             String refreshRollup) {}
+
+    private record RollupSlot(String profile, String table, RollupPeriod period, LocalDate start) {}
+
+    private record CounterKey(String profile, String metric, LocalDate date, String device) {}
+
+    private static final Map<String, MetricSql> METRIC_SQL = new HashMap<>();
+
+    static {
+        for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+            String table = metric.name();
+            METRIC_SQL.put(table, new MetricSql(
+                    createMetricTableSql(table),
+                    "INSERT INTO " + table + " (profile, date, value) VALUES (?, ?, ?) " +
+                            "ON CONFLICT(profile, date) DO UPDATE SET value = value + excluded.value",
+                    "SELECT value FROM " + table + " WHERE profile = ? AND date = ?",
+                    "SELECT CAST(julianday(date) - 2440587.5 AS INTEGER) - ?, value FROM " + table +
+                            " WHERE profile = ? AND date >= date(? * 86400, 'unixepoch') AND date <= date(? * 86400, 'unixepoch')",
+                    "SELECT MIN(date) FROM " + table + " WHERE profile = ?",
+                    "INSERT OR REPLACE INTO Rollups (profile, metric, period, start, days, sum, min, max) " +
+                            "SELECT ?, ?, ?, ?, COUNT(*), SUM(value), MIN(value), MAX(value) FROM " + table +
+                            " WHERE profile = ? AND date >= ? AND date < ?"));
+        }
+    }
+
+    // This database's sync identity and the version its last committed write got
+    private String device;
+    private long localVersion;
+
+    private static MetricSql sql(String table) throws SQLException {
+        MetricSql sql = METRIC_SQL.get(table);
+        if (sql == null) {
+            throw new SQLException("Not a configured metric: " + table);
+        }
+        return sql;
+    }
+
+    @Override
+    public void initialize() {
+        synchronized (ConnectionManager.LOCK) {
+            try (Statement stmt = ConnectionManager.getConnection().createStatement()) {
+                int version = schemaVersion(stmt);
+                if (version == 0 && tableExists(stmt, "Hydration")) {
+                    migrate(stmt, 1, "profiles", SqliteStore::migrateToProfiles);
+                    version = 1;
+                }
+                if (version == 1) {
+                    if (tableExists(stmt, "Reminders")) {
+                        migrate(stmt, 2, "reminder_rows", SqliteStore::migrateReminderRows);
+                    }
+                    version = 2;
+                }
+                if (version == 2) {
+                    migrate(stmt, 3, "sync_counters", SqliteStore::migrateSyncCounters);
+                }
+
+                // A metric added to the registry just gets its table here
+                for (MetricSql sql : METRIC_SQL.values()) {
+                    stmt.execute(sql.create());
+                }
+
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS Reminders (
+                        profile TEXT NOT NULL,
+                        date TEXT NOT NULL,
+                        metric TEXT NOT NULL,
+                        done INTEGER NOT NULL,
+                        PRIMARY KEY (profile, date, metric)
+                    );
+                """);
+                stmt.execute("CREATE INDEX IF NOT EXISTS RemindersByDate ON Reminders (date)");
+
+                // Checklist rows past the retention horizon, as days tracked and days done per month
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS RemindersArchive (
+                        profile TEXT NOT NULL,
+                        month TEXT NOT NULL,
+                        metric TEXT NOT NULL,
+                        days INTEGER NOT NULL,
+                        done INTEGER NOT NULL,
+                        PRIMARY KEY (profile, month, metric)
+                    );
+                """);
+
+                // Per-week and per-month aggregates of the metric tables, kept current on every write
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS Rollups (
+                        profile TEXT NOT NULL,
+                        metric TEXT NOT NULL,
+                        period TEXT NOT NULL,
+                        start TEXT NOT NULL,
+                        days INTEGER NOT NULL,
+                        sum INTEGER NOT NULL,
+                        min INTEGER NOT NULL,
+                        max INTEGER NOT NULL,
+                        PRIMARY KEY (profile, metric, period, start)
+                    );
+                """);
+
+                // Append-only log of every increment (epoch millis); the daily tables are kept as its per-day sums.
+                // Past the retention horizon it holds one row per hour instead (see compactEvents).
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS Events (
+                        ts INTEGER NOT NULL,
+                        metric TEXT NOT NULL,
+                        amount INTEGER NOT NULL,
+                        profile TEXT NOT NULL DEFAULT 'default'
+                    );
+                """);
+                stmt.execute("CREATE INDEX IF NOT EXISTS EventsByProfile ON Events (profile, metric, ts)");
+
+                stmt.execute("CREATE TABLE IF NOT EXISTS Profiles (profile TEXT PRIMARY KEY)");
+                createSyncTables(stmt);
+                device = ensureDeviceId(stmt);
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT COALESCE(MAX(version), 0) FROM SyncCounters WHERE device = '" + device + "'")) {
+                    localVersion = rs.next() ? rs.getLong(1) : 0;
+                }
+                stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+
+                try (ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM Rollups)")) {
+                    if (rs.next() && !rs.getBoolean(1)) {
+                        rebuildRollups();
+                    }
+                }
+
+            } catch (SQLException e) {
+                failed("initialize", e);
+            }
+        }
+    }
+
+    // Every row is keyed by (profile, date); the composite primary key is the index all reads use
+    private static String createMetricTableSql(String table) {
+        return "CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "profile TEXT NOT NULL, date TEXT NOT NULL, value INTEGER NOT NULL, PRIMARY KEY (profile, date))";
+    }
+
+    private static int schemaVersion(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static boolean tableExists(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + table + "'")) {
+            return rs.next();
+        }
+    }
+
+    private interface Migration {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    // Runs one schema step and records its version in a single transaction
+    private static void migrate(Statement stmt, int toVersion, String name, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        Connection conn = stmt.getConnection();
+        conn.setAutoCommit(false);
+        try {
+            migration.apply(stmt);
+            stmt.execute("PRAGMA user_version = " + toVersion);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        Log.info("sqlite", "migrated", "migration", name, "version", toVersion,
+                "ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Databases from before profiles: every row moves to the default profile. Rollups are dropped
+    // and rebuilt from the migrated daily tables.
+    private static void migrateToProfiles(Statement stmt) throws SQLException {
+        String profile = "'" + DatabaseHelper.DEFAULT_PROFILE + "'";
+        for (String table : LEGACY_TABLES) {
+            if (!tableExists(stmt, table)) continue;
+            stmt.execute("ALTER TABLE " + table + " RENAME TO " + table + "_v0");
+            stmt.execute(createMetricTableSql(table));
+            stmt.execute("INSERT INTO " + table + " (profile, date, value) SELECT " + profile +
+                    ", date, value FROM " + table + "_v0");
+            stmt.execute("DROP TABLE " + table + "_v0");
+        }
+        if (tableExists(stmt, "Reminders")) {
+            stmt.execute("ALTER TABLE Reminders RENAME TO Reminders_v0");
+            stmt.execute("CREATE TABLE Reminders (profile TEXT NOT NULL, date TEXT NOT NULL, " +
+                    "water INTEGER, posture INTEGER, rest INTEGER, PRIMARY KEY (profile, date))");
+            stmt.execute("INSERT INTO Reminders SELECT " + profile + ", date, water, posture, rest FROM Reminders_v0");
+            stmt.execute("DROP TABLE Reminders_v0");
+        }
+        stmt.execute("DROP TABLE IF EXISTS Rollups");
+        if (tableExists(stmt, "Events")) {
+            stmt.execute("ALTER TABLE Events ADD COLUMN profile TEXT NOT NULL DEFAULT " + profile);
+            stmt.execute("DROP INDEX IF EXISTS EventsByMetric");
+        }
+        stmt.execute("CREATE TABLE IF NOT EXISTS Profiles (profile TEXT PRIMARY KEY)");
+        stmt.execute("INSERT OR IGNORE INTO Profiles (profile) VALUES (" + profile + ")");
+    }
+
+    // Per device, its running total of every (profile, metric, day) it wrote to, and the local
+    // version of its last change, which is what sync cursors count in
+    private static void createSyncTables(Statement stmt) throws SQLException {
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS SyncCounters (
+                profile TEXT NOT NULL,
+                metric TEXT NOT NULL,
+                date TEXT NOT NULL,
+                device TEXT NOT NULL,
+                value INTEGER NOT NULL,
+                version INTEGER NOT NULL,
+                PRIMARY KEY (profile, metric, date, device)
+            );
+        """);
+        stmt.execute("CREATE INDEX IF NOT EXISTS SyncCountersByVersion ON SyncCounters (device, version)");
+        stmt.execute("CREATE TABLE IF NOT EXISTS SyncState (key TEXT PRIMARY KEY, value TEXT NOT NULL)");
+    }
+
+    // Random per database, so copies of a database file made before syncing need a fresh one
+    private static String ensureDeviceId(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT value FROM SyncState WHERE key = 'device'")) {
+            if (rs.next()) return rs.getString(1);
+        }
+        String device = UUID.randomUUID().toString();
+        stmt.execute("INSERT INTO SyncState (key, value) VALUES ('device', '" + device + "')");
+        return device;
+    }
+
+    // Everything recorded before sync existed becomes this device's own contribution
+    private static void migrateSyncCounters(Statement stmt) throws SQLException {
+        createSyncTables(stmt);
+        String device = ensureDeviceId(stmt);
+        for (String table : METRIC_SQL.keySet()) {
+            if (!tableExists(stmt, table)) continue;
+            stmt.execute("INSERT OR IGNORE INTO SyncCounters (profile, metric, date, device, value, version) " +
+                    "SELECT profile, '" + table + "', date, '" + device + "', value, 0 FROM " + table);
+        }
+        stmt.execute("UPDATE SyncCounters SET version = rowid WHERE device = '" + device + "'");
+    }
+
+    // Version 1 had a column per checklist task (water, posture, rest); each becomes a row of its metric
+    private static void migrateReminderRows(Statement stmt) throws SQLException {
+        stmt.execute("ALTER TABLE Reminders RENAME TO Reminders_v1");
+        stmt.execute("CREATE TABLE Reminders (profile TEXT NOT NULL, date TEXT NOT NULL, metric TEXT NOT NULL, " +
+                "done INTEGER NOT NULL, PRIMARY KEY (profile, date, metric))");
+        String[][] columns = {{"water", "Hydration"}, {"posture", "Posture"}, {"rest", "Steps"}};
+        for (String[] column : columns) {
+            stmt.execute("INSERT INTO Reminders (profile, date, metric, done) SELECT profile, date, '" + column[1] +
+                    "', " + column[0] + " FROM Reminders_v1 WHERE " + column[0] + " IS NOT NULL");
+        }
+        stmt.execute("DROP TABLE Reminders_v1");
+    }
+
+    // One transaction: append the raw events, then apply their per-day sums to the daily tables
+    // (the materialised view everything else reads) and the rollups
+    @Override
+    public boolean writeBatch(List<WriteBehindQueue.Increment> events,
+                              Map<WriteBehindQueue.Key, Integer> increments,
+                              Collection<WriteBehindQueue.Reminders> reminders) {
+        synchronized (ConnectionManager.LOCK) {
+            Connection conn = null;
+            long version = localVersion;
+            try {
+                conn = ConnectionManager.getConnection();
+                conn.setAutoCommit(false);
+                Set<String> profiles = new HashSet<>();
+                if (!events.isEmpty()) {
+                    PreparedStatement pstmt = ConnectionManager.prepare(INSERT_EVENT_SQL);
+                    for (WriteBehindQueue.Increment event : events) {
+                        pstmt.setLong(1, event.timestamp());
+                        pstmt.setString(2, event.table());
+                        pstmt.setInt(3, event.amount());
+                        pstmt.setString(4, event.profile());
+                        pstmt.addBatch();
+                        profiles.add(event.profile());
+                    }
+                    pstmt.executeBatch();
+                }
+                // Batched per table, then each touched week and month is recomputed once, so a bulk
+                // import of years costs one rollup refresh per period rather than per day
+                Set<PreparedStatement> upserts = new LinkedHashSet<>();
+                Set<RollupSlot> rollups = new LinkedHashSet<>();
+                for (Map.Entry<WriteBehindQueue.Key, Integer> entry : increments.entrySet()) {
+                    WriteBehindQueue.Key key = entry.getKey();
+                    PreparedStatement pstmt = ConnectionManager.prepare(sql(key.table()).upsert());
+                    pstmt.setString(1, key.profile());
+                    pstmt.setString(2, key.date().toString());
+                    pstmt.setInt(3, entry.getValue());
+                    pstmt.addBatch();
+                    upserts.add(pstmt);
+                    for (RollupPeriod period : RollupPeriod.values()) {
+                        rollups.add(new RollupSlot(key.profile(), key.table(), period, period.start(key.date())));
+                    }
+                    profiles.add(key.profile());
+                }
+                for (PreparedStatement pstmt : upserts) {
+                    pstmt.executeBatch();
+                }
+                refreshRollups(rollups);
+                // The same amounts go to this device's sync counters, each change with the next version
+                if (!increments.isEmpty()) {
+                    PreparedStatement counters = ConnectionManager.prepare(RECORD_LOCAL_SQL);
+                    for (Map.Entry<WriteBehindQueue.Key, Integer> entry : increments.entrySet()) {
+                        WriteBehindQueue.Key key = entry.getKey();
+                        counters.setString(1, key.profile());
+                        counters.setString(2, key.table());
+                        counters.setString(3, key.date().toString());
+                        counters.setString(4, device);
+                        counters.setInt(5, entry.getValue());
+                        counters.setLong(6, ++version);
+                        counters.addBatch();
+                    }
+                    counters.executeBatch();
+                }
+                if (!reminders.isEmpty()) {
+                    PreparedStatement pstmt = ConnectionManager.prepare(SAVE_REMINDERS_SQL);
+                    for (WriteBehindQueue.Reminders rem : reminders) {
+                        pstmt.setString(1, rem.profile());
+                        pstmt.setString(2, rem.date().toString());
+                        pstmt.setString(3, rem.metric());
+                        pstmt.setInt(4, rem.done() ? 1 : 0);
+                        pstmt.addBatch();
+                        profiles.add(rem.profile());
+                    }
+                    pstmt.executeBatch();
+                }
+                for (String profile : profiles) {
+                    insertProfile(profile);
+                }
+                conn.commit();
+                localVersion = version;
+                return true;
+            } catch (SQLException e) {
+                failed("write_batch", e);
+                if (conn != null) {
+                    try {
+                        conn.rollback();
+                    } catch (SQLException ex) {
+                        failed("rollback", ex);
+                    }
+                }
+                return false;
+            } finally {
+                if (conn != null) {
+                    try {
+                        conn.setAutoCommit(true);
+                    } catch (SQLException e) {
+                        failed("reset_autocommit", e);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String deviceId() {
+        return device;
+    }
+
+    @Override
+    public List<SyncChange> localChangesSince(long version, int limit) {
+        List<SyncChange> changes = new ArrayList<>();
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                PreparedStatement pstmt = ConnectionManager.prepare(LOCAL_CHANGES_SQL);
+                pstmt.setString(1, device);
+                pstmt.setLong(2, version);
+                pstmt.setInt(3, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        changes.add(new SyncChange(device, rs.getString(1), rs.getString(2),
+                                LocalDate.parse(rs.getString(3)), rs.getInt(4), rs.getLong(5)));
+                    }
+                }
+            } catch (SQLException e) {
+                failed("local_changes", e);
+            }
+        }
+        return changes;
+    }
+
+    // A change only wins over a stored total of the same device with a lower version; the day's value
+    // moves by the difference, through the same batched upserts and rollup refresh as local writes.
+    // Within a batch only each device total's newest version counts, as the lookups below only see
+    // what was stored before it.
+    @Override
+    public boolean applyRemoteChanges(List<SyncChange> batch) {
+        Map<CounterKey, SyncChange> newest = new LinkedHashMap<>();
+        for (SyncChange change : batch) {
+            newest.merge(new CounterKey(change.profile(), change.metric(), change.date(), change.device()), change,
+                    (a, b) -> a.version() >= b.version() ? a : b);
+        }
+        Collection<SyncChange> changes = newest.values();
+        synchronized (ConnectionManager.LOCK) {
+            Connection conn = null;
+            try {
+                conn = ConnectionManager.getConnection();
+                conn.setAutoCommit(false);
+                PreparedStatement current = ConnectionManager.prepare(REMOTE_COUNTER_SQL);
+                PreparedStatement store = ConnectionManager.prepare(STORE_REMOTE_SQL);
+                Set<PreparedStatement> upserts = new LinkedHashSet<>();
+                Set<RollupSlot> rollups = new LinkedHashSet<>();
+                Set<String> profiles = new HashSet<>();
+                for (SyncChange change : changes) {
+                    if (change.device().equals(device)) continue; // only this device writes its own totals
+                    String date = change.date().toString();
+                    current.setString(1, change.profile());
+                    current.setString(2, change.metric());
+                    current.setString(3, date);
+                    current.setString(4, change.device());
+                    int delta = change.value();
+                    try (ResultSet rs = current.executeQuery()) {
+                        if (rs.next()) {
+                            if (rs.getLong(2) >= change.version()) continue;
+                            delta -= rs.getInt(1);
+                        }
+                    }
+                    store.setString(1, change.profile());
+                    store.setString(2, change.metric());
+                    store.setString(3, date);
+                    store.setString(4, change.device());
+                    store.setInt(5, change.value());
+                    store.setLong(6, change.version());
+                    store.addBatch();
+                    profiles.add(change.profile());
+
+                    MetricSql sql = METRIC_SQL.get(change.metric());
+                    if (sql == null || delta == 0) continue; // kept, and counted once the metric is configured here
+                    PreparedStatement upsert = ConnectionManager.prepare(sql.upsert());
+                    upsert.setString(1, change.profile());
+                    upsert.setString(2, date);
+                    upsert.setInt(3, delta);
+                    upsert.addBatch();
+                    upserts.add(upsert);
+                    for (RollupPeriod period : RollupPeriod.values()) {
+                        rollups.add(new RollupSlot(change.profile(), change.metric(), period, period.start(change.date())));
+                    }
+                }
+                store.executeBatch();
+                for (PreparedStatement pstmt : upserts) {
+                    pstmt.executeBatch();
+                }
+                refreshRollups(rollups);
+                for (String profile : profiles) {
+                    insertProfile(profile);
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                failed("apply_remote", e);
+                if (conn != null) {
+                    try {
+                        conn.rollback();
+                    } catch (SQLException ex) {
+                        failed("rollback", ex);
+                    }
+                }
+                return false;
+            } finally {
+                if (conn != null) {
+                    try {
+                        conn.setAutoCommit(true);
+                    } catch (SQLException e) {
+                        failed("reset_autocommit", e);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getSyncState(String key) {
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                PreparedStatement pstmt = ConnectionManager.prepare("SELECT value FROM SyncState WHERE key = ?");
+                pstmt.setString(1, key);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString(1) : null;
+                }
+            } catch (SQLException e) {
+                failed("get_sync_state", e);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void setSyncState(String key, String value) {
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                PreparedStatement pstmt = ConnectionManager.prepare("INSERT OR REPLACE INTO SyncState (key, value) VALUES (?, ?)");
+                pstmt.setString(1, key);
+                pstmt.setString(2, value);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                failed("set_sync_state", e);
+            }
+        }
+    }
+
+    // Events of profiles or metrics that are no longer listed are left alone, and so are events
+    // imported later for days already compacted
+    @Override
+    public int compactEvents(long beforeMillis, int limit) {
+        ZoneId zone = AppClock.zone();
+        synchronized (ConnectionManager.LOCK) {
+            Connection conn = null;
+            try {
+                conn = ConnectionManager.getConnection();
+                List<String> profiles = listProfiles();
+                String marker = getSyncState(COMPACTED_TO);
+                long from = marker != null ? Long.parseLong(marker) : Long.MIN_VALUE;
+                if (from >= beforeMillis) return -1;
+
+                conn.setAutoCommit(false);
+                PreparedStatement select = ConnectionManager.prepare(
+                        "SELECT ts, amount FROM Events WHERE profile = ? AND metric = ? AND ts >= ? AND ts < ?");
+                PreparedStatement delete = ConnectionManager.prepare(
+                        "DELETE FROM Events WHERE profile = ? AND metric = ? AND ts >= ? AND ts < ?");
+                PreparedStatement insert = ConnectionManager.prepare(INSERT_EVENT_SQL);
+                // Every query counts towards limit, even one that finds nothing, so a run's I/O stays
+                // bounded however many series there are and however long the gaps between events
+                int series = profiles.size() * METRIC_SQL.size();
+                int read = 0;
+                int removed = 0;
+                Map<Long, Long> hours = new TreeMap<>();
+                while (read < limit && from < beforeMillis) {
+                    // Straight to the next day with events rather than through every empty one
+                    long next = nextEvent(profiles, from, beforeMillis);
+                    read += series;
+                    if (next == Long.MAX_VALUE) {
+                        from = beforeMillis;
+                        break;
+                    }
+                    LocalDate day = Instant.ofEpochMilli(next).atZone(zone).toLocalDate();
+                    from = Math.max(from, day.atStartOfDay(zone).toInstant().toEpochMilli());
+                    long to = Math.min(day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(), beforeMillis);
+                    for (String profile : profiles) {
+                        for (String metric : METRIC_SQL.keySet()) {
+                            hours.clear();
+                            int rows = 0;
+                            bindRange(select, profile, metric, from, to);
+                            try (ResultSet rs = select.executeQuery()) {
+                                while (rs.next()) {
+                                    long hour = Instant.ofEpochMilli(rs.getLong(1)).atZone(zone)
+                                            .truncatedTo(ChronoUnit.HOURS).toInstant().toEpochMilli();
+                                    hours.merge(hour, rs.getLong(2), Long::sum);
+                                    rows++;
+                                }
+                            }
+                            read += Math.max(rows, 1);
+                            if (rows == hours.size()) continue; // already one row per hour
+                            bindRange(delete, profile, metric, from, to);
+                            delete.executeUpdate();
+                            for (Map.Entry<Long, Long> hour : hours.entrySet()) {
+                                insert.setLong(1, hour.getKey());
+                                insert.setString(2, metric);
+                                insert.setLong(3, hour.getValue());
+                                insert.setString(4, profile);
+                                insert.addBatch();
+                            }
+                            insert.executeBatch();
+                            removed += rows - hours.size();
+                        }
+                    }
+                    from = to;
+                }
+                setSyncState(COMPACTED_TO, Long.toString(from));
+                conn.commit();
+                return removed;
+            } catch (SQLException e) {
+                failed("compact_events", e);
+                rollback(conn);
+                return -1;
+            } finally {
+                resetAutoCommit(conn);
+            }
+        }
+    }
+
+    private static void bindRange(PreparedStatement pstmt, String profile, String metric, long from, long to)
+            throws SQLException {
+        pstmt.setString(1, profile);
+        pstmt.setString(2, metric);
+        pstmt.setLong(3, from);
+        pstmt.setLong(4, to);
+    }
+
+    // The first event in [from, to) of any series, or Long.MAX_VALUE; one seek of the (profile,
+    // metric, ts) index per series, so no scan of the log
+    private static long nextEvent(List<String> profiles, long from, long to) throws SQLException {
+        PreparedStatement pstmt = ConnectionManager.prepare(
+                "SELECT MIN(ts) FROM Events WHERE profile = ? AND metric = ? AND ts >= ? AND ts < ?");
+        long next = Long.MAX_VALUE;
+        for (String profile : profiles) {
+            for (String metric : METRIC_SQL.keySet()) {
+                bindRange(pstmt, profile, metric, from, to);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next() && rs.getObject(1) != null) {
+                        next = Math.min(next, rs.getLong(1));
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    // Nothing writes checklist rows for past days, so a month's counts only ever add up
+    @Override
+    public int archiveReminders(LocalDate before, int limit) {
+        synchronized (ConnectionManager.LOCK) {
+            Connection conn = null;
+            try {
+                conn = ConnectionManager.getConnection();
+                conn.setAutoCommit(false);
+                PreparedStatement archive = ConnectionManager.prepare(
+                        "INSERT INTO RemindersArchive (profile, month, metric, days, done) " +
+                        "SELECT profile, substr(date, 1, 7) AS month, metric, COUNT(*), SUM(done) FROM Reminders " +
+                        "WHERE rowid IN (" + ARCHIVE_ROWS_SQL + ") GROUP BY profile, month, metric " +
+                        "ON CONFLICT(profile, month, metric) DO UPDATE SET days = days + excluded.days, done = done + excluded.done");
+                archive.setString(1, before.toString());
+                archive.setInt(2, limit);
+                archive.executeUpdate();
+                PreparedStatement delete = ConnectionManager.prepare(
+                        "DELETE FROM Reminders WHERE rowid IN (" + ARCHIVE_ROWS_SQL + ")");
+                delete.setString(1, before.toString());
+                delete.setInt(2, limit);
+                int moved = delete.executeUpdate();
+                conn.commit();
+                return moved;
+            } catch (SQLException e) {
+                failed("archive_reminders", e);
+                rollback(conn);
+                return 0;
+            } finally {
+                resetAutoCommit(conn);
+            }
+        }
+    }
+
+    // Incremental vacuum, then a truncating checkpoint so the file itself shrinks. A database created
+    // before incremental vacuum is converted once by a full VACUUM while it is small enough.
+    @Override
+    public long reclaimSpace(int maxPages) {
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                Connection conn = ConnectionManager.getConnection();
+                long before;
+                long pages;
+                boolean incremental;
+                try (Statement stmt = conn.createStatement()) {
+                    before = sizeBytes(stmt);
+                    pages = pragma(stmt, "page_count");
+                    incremental = pragma(stmt, "auto_vacuum") == 2;
+                }
+                if (!incremental && pages <= CONVERT_MAX_PAGES) {
+                    // VACUUM refuses to run while any other statement on the connection is open
+                    ConnectionManager.closeStatements();
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.executeUpdate("PRAGMA auto_vacuum = INCREMENTAL");
+                        stmt.executeUpdate("VACUUM");
+                    }
+                    Log.info("sqlite", "converted_to_incremental_vacuum", "pages", pages);
+                } else if (!incremental) {
+                    Log.warn("sqlite", "incremental_vacuum_unavailable", "pages", pages);
+                }
+                try (Statement stmt = conn.createStatement()) {
+                    if (incremental) {
+                        // It frees a page per step; executeUpdate steps it to the end
+                        stmt.executeUpdate("PRAGMA incremental_vacuum(" + maxPages + ")");
+                    }
+                    stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                    return before - sizeBytes(stmt);
+                }
+            } catch (SQLException e) {
+                failed("reclaim_space", e);
+                return 0;
+            }
+        }
+    }
+
+    // Samples at most analysis_limit rows per index, so a large database costs no more than a small one
+    @Override
+    public void analyze() {
+        synchronized (ConnectionManager.LOCK) {
+            try (Statement stmt = ConnectionManager.getConnection().createStatement()) {
+                stmt.execute("PRAGMA analysis_limit = 1000");
+                stmt.execute("ANALYZE");
+            } catch (SQLException e) {
+                failed("analyze", e);
+            }
+        }
+    }
+
+    @Override
+    public String checkIntegrity() {
+        synchronized (ConnectionManager.LOCK) {
+            try (Statement stmt = ConnectionManager.getConnection().createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA quick_check(20)")) {
+                List<String> problems = new ArrayList<>();
+                while (rs.next()) {
+                    problems.add(rs.getString(1));
+                }
+                return String.join("; ", problems);
+            } catch (SQLException e) {
+                failed("check_integrity", e);
+                return e.getMessage();
+            }
+        }
+    }
+
+    @Override
+    public long sizeBytes() {
+        synchronized (ConnectionManager.LOCK) {
+            try (Statement stmt = ConnectionManager.getConnection().createStatement()) {
+                return sizeBytes(stmt);
+            } catch (SQLException e) {
+                failed("size", e);
+                return 0;
+            }
+        }
+    }
+
+    private static long sizeBytes(Statement stmt) throws SQLException {
+        return pragma(stmt, "page_count") * pragma(stmt, "page_size");
+    }
+
+    private static long pragma(Statement stmt, String name) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA " + name)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static void rollback(Connection conn) {
+        if (conn == null) return;
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            failed("rollback", e);
+        }
+    }
+
+    private static void resetAutoCommit(Connection conn) {
+        if (conn == null) return;
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            failed("reset_autocommit", e);
+        }
+    }
+
+    private static void insertProfile(String profile) throws SQLException {
+        PreparedStatement pstmt = ConnectionManager.prepare(ADD_PROFILE_SQL);
+        pstmt.setString(1, profile);
+        pstmt.executeUpdate();
+    }
+
+    // Recomputes each week or month from the at most 31 day rows it covers
+    private static void refreshRollups(Set<RollupSlot> slots) throws SQLException {
+        Set<PreparedStatement> batches = new LinkedHashSet<>();
+        for (RollupSlot slot : slots) {
+            PreparedStatement pstmt = ConnectionManager.prepare(sql(slot.table()).refreshRollup());
+            pstmt.setString(1, slot.profile());
+            pstmt.setString(2, slot.table());
+            pstmt.setString(3, slot.period().code());
+            pstmt.setString(4, slot.start().toString());
+            pstmt.setString(5, slot.profile());
+            pstmt.setString(6, slot.start().toString());
+            pstmt.setString(7, slot.period().plus(slot.start(), 1).toString());
+            pstmt.addBatch();
+            batches.add(pstmt);
+        }
+        for (PreparedStatement pstmt : batches) {
+            pstmt.executeBatch();
+        }
+    }
+
+    @Override
+    public void rebuildRollups() {
+        synchronized (ConnectionManager.LOCK) {
+            try (Statement stmt = ConnectionManager.getConnection().createStatement()) {
+                stmt.execute("DELETE FROM Rollups");
+                for (String table : METRIC_SQL.keySet()) {
+                    for (RollupPeriod period : RollupPeriod.values()) {
+                        String start = period.sqlStart("date");
+                        stmt.execute("INSERT INTO Rollups (profile, metric, period, start, days, sum, min, max) " +
+                                "SELECT profile, '" + table + "', '" + period.code() + "', " + start + " AS s, " +
+                                "COUNT(*), SUM(value), MIN(value), MAX(value) FROM " + table + " GROUP BY profile, s");
+                    }
+                }
+            } catch (SQLException e) {
+                failed("rebuild_rollups", e);
+            }
+        }
+    }
+
+    @Override
+    public int loadDaily(String profile, String table, LocalDate date) {
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                PreparedStatement pstmt = ConnectionManager.prepare(sql(table).loadDaily());
+                pstmt.setString(1, profile);
+                pstmt.setString(2, date.toString());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt("value");
+                    }
+                }
+            } catch (SQLException e) {
+                failed("load_daily", e);
+            }
+            return 0;
+        }
+    }
+
+    @Override
+    public void fillDaily(String profile, String table, long fromEpochDay, long toEpochDay, TimeSeries out) {
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                PreparedStatement pstmt = ConnectionManager.prepare(sql(table).fillDaily());
+                pstmt.setLong(1, fromEpochDay);
+                pstmt.setString(2, profile);
+                pstmt.setLong(3, fromEpochDay);
+                pstmt.setLong(4, toEpochDay);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        out.setValue(rs.getInt(1), rs.getDouble(2));
+                    }
+                }
+            } catch (SQLException e) {
+                failed("fill_daily", e);
+            }
+        }
+    }
+
+    @Override
+    public LocalDate firstDay(String profile, String table) {
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                PreparedStatement pstmt = ConnectionManager.prepare(sql(table).firstDay());
+                pstmt.setString(1, profile);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    String first = rs.next() ? rs.getString(1) : null;
+                    return first == null ? null : LocalDate.parse(first);
+                }
+            } catch (SQLException e) {
+                failed("first_day", e);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void fillHourly(String profile, String table, LocalDate date, TimeSeries out) {
+        ZoneId zone = AppClock.zone();
+        long from = date.atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        String sql = "SELECT (ts - ?) / 3600000 AS hour, SUM(amount) FROM Events " +
+                "WHERE profile = ? AND metric = ? AND ts >= ? AND ts < ? GROUP BY hour";
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                PreparedStatement pstmt = ConnectionManager.prepare(sql);
+                pstmt.setLong(1, from);
+                pstmt.setString(2, profile);
+                pstmt.setString(3, table);
+                pstmt.setLong(4, from);
+                pstmt.setLong(5, to);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        int hour = Math.min(rs.getInt(1), 23); // a 25-hour DST day folds into the last hour
+                        out.setValue(hour, out.value(hour) + rs.getDouble(2));
+                    }
+                }
+            } catch (SQLException e) {
+                failed("fill_hourly", e);
+            }
+        }
+    }
+
+    @Override
+    public int fillRollup(String profile, String table, RollupPeriod period, LocalDate first, int count, TimeSeries out) {
+        String sql = "SELECT " + period.sqlIndex("start") + ", days, sum FROM Rollups " +
+                "WHERE profile = ? AND metric = ? AND period = ? AND start >= date(? * 86400, 'unixepoch')";
+        int lastDays = 0;
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                PreparedStatement pstmt = ConnectionManager.prepare(sql);
+                pstmt.setLong(1, period.indexBase(first));
+                pstmt.setString(2, profile);
+                pstmt.setString(3, table);
+                pstmt.setString(4, period.code());
+                pstmt.setLong(5, first.toEpochDay());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        int index = rs.getInt(1);
+                        if (index < 0 || index >= count) continue;
+                        int days = rs.getInt(2);
+                        if (index == count - 1) lastDays = days;
+                        out.setValue(index, days == 0 ? 0 : (double) rs.getLong(3) / days);
+                    }
+                }
+            } catch (SQLException e) {
+                failed("fill_rollup", e);
+            }
+        }
+        return lastDays;
+    }
+
+    @Override
+    public List<String> listProfiles() {
+        List<String> profiles = new ArrayList<>();
+        synchronized (ConnectionManager.LOCK) {
+            try (ResultSet rs = ConnectionManager.prepare("SELECT profile FROM Profiles ORDER BY profile").executeQuery()) {
+                while (rs.next()) {
+                    profiles.add(rs.getString(1));
+                }
+            } catch (SQLException e) {
+                failed("list_profiles", e);
+            }
+        }
+        return profiles;
+    }
+
+    @Override
+    public void addProfile(String profile) {
+        synchronized (ConnectionManager.LOCK) {
+            try {
+                insertProfile(profile);
+            } catch (SQLException e) {
+                failed("add_profile", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        ConnectionManager.close();
+    }
+
+    private static void failed(String operation, Exception e) {
+        ERRORS.increment();
+        Log.error("sqlite", operation + "_failed", e);
+    }
+}
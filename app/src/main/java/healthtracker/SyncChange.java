@@ -0,0 +1,8 @@
+package healthtracker;
+
+import java.time.LocalDate;
+
+// One device's own running total for a (profile, metric, day), at the version that device gave it.
+// A day's value is the sum of every device's total; a newer version of the same device's total
+// replaces the older one, so merges are commutative and replaying a change is harmless.
+public record SyncChange(String device, String profile, String metric, LocalDate date, int value, long version) {}
@@ -0,0 +1,128 @@
+package healthtracker;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// Wire format of a batch of SyncChanges: deflated, with device, profile and metric names sent once
+// and then referred to by index, and changes sorted so each day and version is a small delta from
+// the previous one. A year of one metric's daily totals is about a kilobyte.
+final class SyncCodec {
+    // "HSY1"
+    private static final int MAGIC = 0x48535931;
+    private static final Comparator<SyncChange> ORDER = Comparator.comparing(SyncChange::device)
+            .thenComparing(SyncChange::profile)
+            .thenComparing(SyncChange::metric)
+            .thenComparing(SyncChange::date);
+
+    private SyncCodec() {}
+
+    static void write(List<SyncChange> changes, OutputStream target) throws IOException {
+        List<SyncChange> sorted = new ArrayList<>(changes);
+        sorted.sort(ORDER);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream deflated = new DeflaterOutputStream(target, deflater, 1 << 13);
+            DataOutputStream out = new DataOutputStream(deflated);
+            out.writeInt(MAGIC);
+            BulkExporter.writeVarInt(out, sorted.size());
+            Map<String, Integer> names = new HashMap<>();
+            long day = 0;
+            long version = 0;
+            for (SyncChange change : sorted) {
+                writeName(out, names, change.device());
+                writeName(out, names, change.profile());
+                writeName(out, names, change.metric());
+                writeVarLong(out, change.date().toEpochDay() - day);
+                BulkExporter.writeVarInt(out, change.value());
+                writeVarLong(out, change.version() - version);
+                day = change.date().toEpochDay();
+                version = change.version();
+            }
+            out.flush();
+            deflated.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static List<SyncChange> read(InputStream source) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            DataInputStream in = new DataInputStream(new InflaterInputStream(source, inflater, 1 << 13));
+            if (in.readInt() != MAGIC) throw new IOException("Not a sync payload");
+            int count = BulkExporter.readVarInt(in);
+            List<SyncChange> changes = new ArrayList<>(Math.min(count, 1 << 16));
+            List<String> names = new ArrayList<>();
+            long day = 0;
+            long version = 0;
+            for (int i = 0; i < count; i++) {
+                String device = readName(in, names);
+                String profile = readName(in, names);
+                String metric = readName(in, names);
+                day += readVarLong(in);
+                int value = BulkExporter.readVarInt(in);
+                version += readVarLong(in);
+                changes.add(new SyncChange(device, profile, metric, LocalDate.ofEpochDay(day), value, version));
+            }
+            return changes;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Index into the names sent so far; the next free index is followed by the new name itself
+    private static void writeName(DataOutputStream out, Map<String, Integer> names, String name) throws IOException {
+        Integer index = names.get(name);
+        if (index != null) {
+            BulkExporter.writeVarInt(out, index);
+        } else {
+            BulkExporter.writeVarInt(out, names.size());
+            out.writeUTF(name);
+            names.put(name, names.size());
+        }
+    }
+
+    private static String readName(DataInputStream in, List<String> names) throws IOException {
+        int index = BulkExporter.readVarInt(in);
+        if (index < names.size()) return names.get(index);
+        if (index > names.size()) throw new IOException("Bad name index " + index);
+        String name = in.readUTF();
+        names.add(name);
+        return name;
+    }
+
+    // Zigzag like BulkExporter.writeVarInt, for deltas that can exceed an int
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
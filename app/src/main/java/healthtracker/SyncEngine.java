@@ -0,0 +1,150 @@
+package healthtracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Delta sync of this database with a sync server (see SyncServer). Each sync first pushes this
+// device's counter changes since the last acknowledged version, then pulls other devices' changes
+// since the last server cursor. Both go in pages of PAGE changes, and each cursor is saved as soon
+// as its page is through, so an interrupted sync resumes where it stopped. Concurrent increments on
+// two devices add up: every device only ever replaces its own totals (see SyncChange).
+//
+// Enabled with -Dhealth.sync.url=http://host:port/ (and -Dhealth.sync.intervalMs, default a minute).
+public class SyncEngine {
+    public record Stats(int pushed, int pulled, long bytesSent, long bytesReceived, long elapsedNanos) {}
+
+    private static final int PAGE = 10_000;
+    private static final String PUSHED = "pushed";
+    private static final LatencyHistogram SYNC = Metrics.histogram("sync.duration");
+    private static final Metrics.Counter FAILURES = Metrics.counter("sync.failures");
+
+    private final URI server;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String pulledKey;
+    private ScheduledExecutorService executor;
+
+    public SyncEngine(URI server) {
+        this.server = server.toString().endsWith("/") ? server : URI.create(server + "/");
+        this.pulledKey = "pulled@" + this.server;
+    }
+
+    // null unless health.sync.url is set
+    public static SyncEngine fromConfig() {
+        String url = System.getProperty("health.sync.url");
+        return url == null || url.isBlank() ? null : new SyncEngine(URI.create(url.strip()));
+    }
+
+    // Syncs now and then every periodMs on a thread of its own; onPulled runs after a sync that
+    // brought in changes
+    public synchronized void start(long periodMs, Runnable onPulled) {
+        if (executor != null) return;
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "sync");
+            t.setDaemon(true);
+            return t;
+        });
+        pool.scheduleWithFixedDelay(() -> {
+            try {
+                if (sync().pulled() > 0) onPulled.run();
+            } catch (IOException e) {
+                FAILURES.increment();
+                Log.warn("sync", "sync_failed", "server", server, "error", e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                FAILURES.increment();
+                Log.error("sync", "sync_failed", e, "server", server);
+            }
+        }, 0, periodMs, TimeUnit.MILLISECONDS);
+        executor = pool;
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public synchronized Stats sync() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        String device = DatabaseHelper.getDeviceId();
+        if (device == null) {
+            throw new IOException("The configured storage engine does not support sync");
+        }
+        long[] bytes = new long[2];
+        int pushed = push(bytes);
+        int pulled = pull(device, bytes);
+        long elapsed = System.nanoTime() - start;
+        SYNC.record(elapsed);
+        Log.info("sync", "synced", "server", server, "pushed", pushed, "pulled", pulled,
+                "bytesSent", bytes[0], "bytesReceived", bytes[1], "ms", elapsed / 1_000_000);
+        return new Stats(pushed, pulled, bytes[0], bytes[1], elapsed);
+    }
+
+    private int push(long[] bytes) throws IOException, InterruptedException {
+        long acknowledged = parseCursor(DatabaseHelper.getSyncState(PUSHED));
+        int pushed = 0;
+        while (true) {
+            List<SyncChange> changes = DatabaseHelper.localChangesSince(acknowledged, PAGE);
+            if (changes.isEmpty()) return pushed;
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            SyncCodec.write(changes, body);
+            HttpRequest request = HttpRequest.newBuilder(server.resolve("sync/push"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/octet-stream")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                    .build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("Push rejected with HTTP " + response.statusCode());
+            }
+            bytes[0] += body.size();
+            pushed += changes.size();
+            acknowledged = changes.get(changes.size() - 1).version();
+            DatabaseHelper.setSyncState(PUSHED, Long.toString(acknowledged));
+            if (changes.size() < PAGE) return pushed;
+        }
+    }
+
+    private int pull(String device, long[] bytes) throws IOException, InterruptedException {
+        long cursor = parseCursor(DatabaseHelper.getSyncState(pulledKey));
+        int pulled = 0;
+        while (true) {
+            HttpRequest request = HttpRequest.newBuilder(
+                            server.resolve("sync/pull?device=" + device + "&since=" + cursor + "&limit=" + PAGE))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("Pull rejected with HTTP " + response.statusCode());
+            }
+            bytes[1] += response.body().length;
+            List<SyncChange> changes = SyncCodec.read(new ByteArrayInputStream(response.body()));
+            if (!changes.isEmpty() && !DatabaseHelper.applyRemoteChanges(changes)) {
+                throw new IOException("Could not apply pulled changes; see the db.errors log entries");
+            }
+            pulled += changes.size();
+            cursor = Long.parseLong(response.headers().firstValue("X-Sync-Cursor").orElse(Long.toString(cursor)));
+            DatabaseHelper.setSyncState(pulledKey, Long.toString(cursor));
+            if (!Boolean.parseBoolean(response.headers().firstValue("X-Sync-More").orElse("false"))) {
+                return pulled;
+            }
+        }
+    }
+
+    private static long parseCursor(String value) {
+        return value == null ? 0 : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,185 @@
+package healthtracker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Local stand-in for the sync service, on the JDK's built-in HTTP server, holding everything in
+// memory. It keeps the newest version of each device's total per (profile, metric, day) and
+// numbers every accepted change, so a device pulls what others pushed since its cursor.
+// No authentication: main listens on the loopback interface unless -Dhealth.sync.bind names
+// another address (0.0.0.0 for all), which should only be on a trusted network.
+//
+//   POST /sync/push                            body: SyncCodec payload; 204
+//   GET  /sync/pull?device=..&since=..&limit=..  SyncCodec payload of other devices' changes;
+//                                              X-Sync-Cursor is the next since, X-Sync-More is true
+//                                              while more pages are waiting
+//
+//   java [-Dhealth.sync.bind=<address>] -cp app/target/health-tracker.jar healthtracker.SyncServer [port]
+public class SyncServer implements AutoCloseable {
+    private record RowKey(String profile, String metric, LocalDate date, String device) {}
+
+    private record Row(int value, long version, long seq) {}
+
+    private static final int MAX_PAGE = 50_000;
+
+    private final Map<RowKey, Row> rows = new HashMap<>();
+    private final TreeMap<Long, RowKey> bySeq = new TreeMap<>();
+    private long seq;
+
+    private final HttpServer http;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "sync-server");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Port 0 picks a free one, see getUri
+    public SyncServer(InetSocketAddress address) throws IOException {
+        http = HttpServer.create(address, 0);
+        http.createContext("/sync/push", this::handlePush);
+        http.createContext("/sync/pull", this::handlePull);
+        http.setExecutor(executor);
+        http.start();
+        Log.info("sync_server", "started", "address", http.getAddress());
+    }
+
+    public URI getUri() {
+        InetSocketAddress address = http.getAddress();
+        String host = address.getAddress().isAnyLocalAddress() ? "localhost" : address.getHostString();
+        if (host.contains(":")) host = "[" + host + "]";
+        return URI.create("http://" + host + ":" + address.getPort() + "/");
+    }
+
+    // Keeps each change unless the server already has the same or a newer version of that total
+    synchronized int merge(List<SyncChange> changes) {
+        int accepted = 0;
+        for (SyncChange change : changes) {
+            RowKey key = new RowKey(change.profile(), change.metric(), change.date(), change.device());
+            Row row = rows.get(key);
+            if (row != null) {
+                if (row.version() >= change.version()) continue;
+                bySeq.remove(row.seq());
+            }
+            rows.put(key, new Row(change.value(), change.version(), ++seq));
+            bySeq.put(seq, key);
+            accepted++;
+        }
+        return accepted;
+    }
+
+    // Up to limit changes after since from devices other than the caller's; cursor[0] is set to
+    // the last position scanned and cursor[1] to 1 if there is more
+    synchronized List<SyncChange> changesSince(long since, String device, int limit, long[] cursor) {
+        List<SyncChange> changes = new ArrayList<>();
+        cursor[0] = since;
+        cursor[1] = 0;
+        for (Map.Entry<Long, RowKey> entry : bySeq.tailMap(since, false).entrySet()) {
+            if (changes.size() == limit) {
+                cursor[1] = 1;
+                break;
+            }
+            cursor[0] = entry.getKey();
+            RowKey key = entry.getValue();
+            if (key.device().equals(device)) continue;
+            Row row = rows.get(key);
+            changes.add(new SyncChange(key.device(), key.profile(), key.metric(), key.date(), row.value(), row.version()));
+        }
+        return changes;
+    }
+
+    public synchronized int size() {
+        return rows.size();
+    }
+
+    private void handlePush(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            List<SyncChange> changes;
+            try (InputStream in = exchange.getRequestBody()) {
+                changes = SyncCodec.read(in);
+            } catch (IOException e) {
+                Log.warn("sync_server", "bad_push", "error", e.getMessage());
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            int accepted = merge(changes);
+            Log.debug("sync_server", "pushed", "changes", changes.size(), "accepted", accepted);
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+
+    private void handlePull(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String device = query.get("device");
+            long since;
+            int limit;
+            try {
+                since = Long.parseLong(query.getOrDefault("since", "0"));
+                limit = Math.min(MAX_PAGE, Integer.parseInt(query.getOrDefault("limit", String.valueOf(MAX_PAGE))));
+            } catch (NumberFormatException e) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            if (device == null || limit <= 0) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            long[] cursor = new long[2];
+            List<SyncChange> changes = changesSince(since, device, limit, cursor);
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            SyncCodec.write(changes, body);
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.getResponseHeaders().set("X-Sync-Cursor", Long.toString(cursor[0]));
+            exchange.getResponseHeaders().set("X-Sync-More", Boolean.toString(cursor[1] == 1));
+            exchange.sendResponseHeaders(200, body.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                body.writeTo(out);
+            }
+        }
+    }
+
+    // Device ids and numbers only, so no percent-decoding is needed
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) params.put(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return params;
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8787;
+        String bind = System.getProperty("health.sync.bind");
+        InetAddress host = bind == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bind);
+        SyncServer server = new SyncServer(new InetSocketAddress(host, port));
+        System.out.println("Sync server listening on " + server.getUri());
+    }
+}
@@ -0,0 +1,32 @@
+package healthtracker;
+
+import java.util.function.Consumer;
+
+// What the reminder engine needs from a scheduler: periodic jobs that can be paused, resumed and
+// rescheduled, and one-off tasks. ReminderScheduler runs them on its thread in real time,
+// VirtualTimeScheduler on the caller's thread in simulated time.
+public interface TaskScheduler {
+    interface Job {
+        String getName();
+
+        long getPeriodMs();
+
+        boolean isPaused();
+
+        void pause();
+
+        // Fixed rate again from now, first run one period later
+        void resume();
+
+        void reschedule(long newPeriodMs);
+
+        void cancel();
+    }
+
+    // The task receives its own job so it can pause or reschedule itself
+    Job schedule(String name, long periodMs, Consumer<Job> task);
+
+    void runOnce(String name, long delayMs, Runnable task);
+
+    void shutdown();
+}
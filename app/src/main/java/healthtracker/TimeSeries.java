@@ -0,0 +1,70 @@
+package healthtracker;
+
+import java.util.Arrays;
+
+// A reusable series of (epoch-day, value) points in parallel primitive arrays.
+// Range queries fill one in place, so repeated reads of the same size allocate nothing.
+public class TimeSeries {
+    private long[] epochDays;
+    private double[] values;
+    private int size;
+
+    public TimeSeries() {
+        this(16);
+    }
+
+    public TimeSeries(int capacity) {
+        epochDays = new long[capacity];
+        values = new double[capacity];
+    }
+
+    // Sets the size to n, growing the arrays only if needed, and zeroes the values
+    public void reset(int n) {
+        if (n > epochDays.length) {
+            int capacity = Math.max(n, epochDays.length * 2);
+            epochDays = new long[capacity];
+            values = new double[capacity];
+        }
+        size = n;
+        Arrays.fill(values, 0, n, 0);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(long epochDay, double value) {
+        if (size == epochDays.length) {
+            epochDays = Arrays.copyOf(epochDays, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        epochDays[size] = epochDay;
+        values[size] = value;
+        size++;
+    }
+
+    public void set(int index, long epochDay, double value) {
+        epochDays[index] = epochDay;
+        values[index] = value;
+    }
+
+    public void setValue(int index, double value) {
+        values[index] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long epochDay(int index) {
+        return epochDays[index];
+    }
+
+    public double value(int index) {
+        return values[index];
+    }
+
+    public double[] toValueArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
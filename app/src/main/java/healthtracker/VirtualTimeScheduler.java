@@ -0,0 +1,204 @@
+package healthtracker;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+// A scheduler on simulated time: nothing runs until advance or runUntil is called, and then every
+// task due by then runs on the calling thread, in time order (ties in scheduling order), with the
+// clock set to the task's own time. A week of reminder ticks is a few hundred thousand queue
+// operations instead of a week of waiting. Not thread-safe: schedule, advance and the tasks
+// themselves all belong to one thread.
+public class VirtualTimeScheduler implements TaskScheduler {
+    private static final Metrics.Counter FAILURES = Metrics.counter("scheduler.failures");
+
+    private record Task(long atMillis, long seq, String name, Runnable action) {}
+
+    private final PriorityQueue<Task> queue = new PriorityQueue<>((a, b) -> a.atMillis != b.atMillis
+            ? Long.compare(a.atMillis, b.atMillis) : Long.compare(a.seq, b.seq));
+    private final Clock clock;
+    // Written by the advancing thread only, read through the clock by any
+    private volatile long nowMillis;
+    private long seq;
+    private long executed;
+    private boolean shutdown;
+
+    public VirtualTimeScheduler(Instant start, ZoneId zone) {
+        this.nowMillis = start.toEpochMilli();
+        this.clock = new VirtualClock(zone);
+    }
+
+    // Reads the simulated time; hand it to AppClock.set to move the rest of the app with it
+    public Clock getClock() {
+        return clock;
+    }
+
+    public Instant now() {
+        return Instant.ofEpochMilli(nowMillis);
+    }
+
+    @Override
+    public Job schedule(String name, long periodMs, Consumer<TaskScheduler.Job> task) {
+        Job job = new Job(name, periodMs, task);
+        job.resume();
+        return job;
+    }
+
+    @Override
+    public void runOnce(String name, long delayMs, Runnable task) {
+        enqueue(nowMillis + Math.max(0, delayMs), name, task);
+    }
+
+    public void advance(Duration duration) {
+        runUntil(now().plus(duration));
+    }
+
+    // Runs everything due up to and including time, then leaves the clock there
+    public void runUntil(Instant time) {
+        long until = time.toEpochMilli();
+        while (!queue.isEmpty() && queue.peek().atMillis <= until) {
+            Task task = queue.poll();
+            nowMillis = Math.max(nowMillis, task.atMillis);
+            executed++;
+            try {
+                task.action.run();
+            } catch (RuntimeException e) {
+                FAILURES.increment();
+                Log.error("scheduler", "task_failed", e, "task", task.name);
+            }
+        }
+        nowMillis = Math.max(nowMillis, until);
+    }
+
+    public long getExecutedTasks() {
+        return executed;
+    }
+
+    public int getQueuedTasks() {
+        return queue.size();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        queue.clear();
+    }
+
+    private void enqueue(long atMillis, String name, Runnable action) {
+        if (!shutdown) {
+            queue.add(new Task(atMillis, seq++, name, action));
+        }
+    }
+
+    // A paused job's queued tick stays in the queue and is skipped when it comes up: each resume
+    // starts a new generation, and only the current generation's ticks run and re-queue themselves
+    public class Job implements TaskScheduler.Job {
+        private final String name;
+        private final Consumer<TaskScheduler.Job> task;
+        private long periodMs;
+        private long generation;
+        private boolean paused = true;
+        private long ticks;
+
+        private Job(String name, long periodMs, Consumer<TaskScheduler.Job> task) {
+            this.name = name;
+            this.periodMs = periodMs;
+            this.task = task;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getPeriodMs() {
+            return periodMs;
+        }
+
+        @Override
+        public boolean isPaused() {
+            return paused;
+        }
+
+        @Override
+        public void pause() {
+            if (!paused) {
+                paused = true;
+                generation++;
+            }
+        }
+
+        @Override
+        public void resume() {
+            if (paused && !shutdown) {
+                paused = false;
+                long current = generation;
+                long first = nowMillis + periodMs;
+                enqueue(first, name, () -> tick(current, first));
+            }
+        }
+
+        @Override
+        public void reschedule(long newPeriodMs) {
+            boolean wasRunning = !paused;
+            pause();
+            periodMs = newPeriodMs;
+            if (wasRunning) resume();
+        }
+
+        @Override
+        public void cancel() {
+            pause();
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        // Fixed rate: the next slot is one period after this one, however long the task took
+        private void tick(long ofGeneration, long slotMillis) {
+            if (ofGeneration != generation) return;
+            ticks++;
+            try {
+                task.accept(this);
+            } finally {
+                if (ofGeneration == generation) {
+                    long next = slotMillis + periodMs;
+                    enqueue(next, name, () -> tick(ofGeneration, next));
+                }
+            }
+        }
+    }
+
+    private final class VirtualClock extends Clock {
+        private final ZoneId zone;
+
+        VirtualClock(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId other) {
+            return other.equals(zone) ? this : new VirtualClock(other);
+        }
+
+        @Override
+        public long millis() {
+            return nowMillis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(nowMillis);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package healthtracker;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjIntConsumer;
+
+// Collects writes posted from the UI and flushes them from a single background thread,
+// coalesced into one transaction once FLUSH_SIZE writes are queued or FLUSH_INTERVAL_MS has passed.
+// A batch the store rejects is written again one write at a time: a write that fails on its own
+// while others get through is dropped, so one bad record cannot hold up the queue. If nothing gets
+// through, the writes go back to the front and are retried after a pause that doubles up to
+// MAX_BACKOFF_MS, and a write is dropped once it has failed MAX_ATTEMPTS times.
+public class WriteBehindQueue {
+    private static final int FLUSH_SIZE = 64;
+    private static final long FLUSH_INTERVAL_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final Metrics.Counter DROPPED = Metrics.counter("db.writeBehindDropped");
+
+    record Key(String profile, String table, LocalDate date) {}
+
+    sealed interface Write permits Increment, Reminders, Stop {}
+
+    record Increment(String profile, String table, LocalDate date, long timestamp, int amount) implements Write {}
+
+    // Whether the metric's task on the daily checklist was done
+    record Reminders(String profile, LocalDate date, String metric, boolean done) implements Write {}
+
+    // Queued by close() behind everything posted before it. The writer is never interrupted: an
+    // interrupted thread's FileChannel write closes the channel under the mapped store.
+    private record Stop() implements Write {}
+
+    private static final Write STOP = new Stop();
+    private static final int CLOSE_ATTEMPTS = 3;
+
+    private final BlockingDeque<Write> queue = new LinkedBlockingDeque<>();
+    // Queued but not yet committed increments, so reads can include them
+    private final Map<Key, Integer> pending = new ConcurrentHashMap<>();
+    // Failed attempts per write still being retried; by identity, as equal writes are separate increments
+    private final Map<Write, Integer> failures = Collections.synchronizedMap(new IdentityHashMap<>());
+    // Cuts a backoff pause short once close() is waiting
+    private final CountDownLatch closing = new CountDownLatch(1);
+    private final Thread writer;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedWrites = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    public WriteBehindQueue() {
+        writer = new Thread(this::run, "db-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void postIncrement(String profile, String table, LocalDate date, long timestamp, int amount) {
+        pending.merge(new Key(profile, table, date), amount, Integer::sum);
+        queue.add(new Increment(profile, table, date, timestamp, amount));
+    }
+
+    public void postReminders(String profile, String metric, boolean done) {
+        queue.add(new Reminders(profile, AppClock.today(), metric, done));
+    }
+
+    public int pendingAmount(String profile, String table, LocalDate date) {
+        return pending.getOrDefault(new Key(profile, table, date), 0);
+    }
+
+    // Every queued amount of the profile's table, whatever day it is for
+    public void forEachPending(String profile, String table, ObjIntConsumer<LocalDate> action) {
+        pending.forEach((key, amount) -> {
+            if (key.profile().equals(profile) && key.table().equals(table)) {
+                action.accept(key.date(), amount);
+            }
+        });
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedWrites() {
+        return flushedWrites.get();
+    }
+
+    public double getLastFlushMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos / 1_000_000.0;
+    }
+
+    // Stops the writer thread once it has flushed everything posted before, then synchronously
+    // commits whatever it left behind (a batch that failed, or writes posted meanwhile)
+    public void close() {
+        closing.countDown();
+        queue.add(STOP);
+        boolean interrupted = false;
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        // The closing thread must not flush with its interrupt flag set either
+        interrupted |= Thread.interrupted();
+        try {
+            List<Write> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            rest.remove(STOP);
+            for (int attempt = 1; !rest.isEmpty() && !flush(rest); attempt++) {
+                rest = isolate(rest);
+                if (!rest.isEmpty() && attempt == CLOSE_ATTEMPTS) {
+                    Log.error("db", "write_behind_lost", null, "writes", rest.size());
+                    break;
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Write> batch = new ArrayList<>();
+        boolean stopping = false;
+        long backoff = 0;
+        while (!stopping) {
+            try {
+                Write first = queue.take();
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+                while (batch.size() < FLUSH_SIZE && !batch.contains(STOP)) {
+                    long remaining = deadline - System.nanoTime();
+                    Write next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, FLUSH_SIZE - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Not expected, close() stops the writer with STOP; flush what was collected
+            }
+            stopping = batch.remove(STOP);
+            List<Write> retry = batch.isEmpty() || flush(batch) ? List.of() : isolate(batch);
+            batch.clear();
+            if (retry.isEmpty()) {
+                backoff = 0;
+                continue;
+            }
+            // Back to the front in order, so a later checklist state still wins; reads keep seeing
+            // them as pending, and close() retries them if the writer stops first
+            for (int i = retry.size() - 1; i >= 0; i--) {
+                queue.addFirst(retry.get(i));
+            }
+            backoff = backoff == 0 ? FLUSH_INTERVAL_MS : Math.min(backoff * 2, MAX_BACKOFF_MS);
+            Log.warn("db", "write_behind_retry", "writes", retry.size(), "backoffMs", backoff);
+            try {
+                closing.await(backoff, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // As above
+            }
+        }
+    }
+
+    // After a failed batch: each write on its own. Returns the writes to retry; a write that fails
+    // while others succeed, or for the MAX_ATTEMPTS-th time, is dropped instead.
+    private List<Write> isolate(List<Write> batch) {
+        List<Write> failed = new ArrayList<>();
+        for (Write write : batch) {
+            if (flush(List.of(write))) {
+                failures.remove(write);
+            } else {
+                failed.add(write);
+            }
+        }
+        boolean storeWorks = failed.size() < batch.size();
+        List<Write> retry = new ArrayList<>();
+        for (Write write : failed) {
+            int attempts = failures.merge(write, 1, Integer::sum);
+            if (storeWorks || attempts >= MAX_ATTEMPTS) {
+                drop(write, attempts);
+            } else {
+                retry.add(write);
+            }
+        }
+        return retry;
+    }
+
+    private void drop(Write write, int attempts) {
+        failures.remove(write);
+        if (write instanceof Increment inc) {
+            pending.computeIfPresent(new Key(inc.profile(), inc.table(), inc.date()),
+                    (k, v) -> v - inc.amount() == 0 ? null : v - inc.amount());
+        }
+        DROPPED.increment();
+        Log.error("db", "write_behind_dropped", null, "write", write, "attempts", attempts);
+    }
+
+    // False if nothing was written; the caller keeps the batch
+    private boolean flush(List<Write> batch) {
+        long start = System.nanoTime();
+
+        List<Increment> events = new ArrayList<>();
+        Map<Key, Integer> increments = new LinkedHashMap<>();
+        Map<Key, Reminders> reminders = new LinkedHashMap<>();
+        for (Write write : batch) {
+            if (write instanceof Increment inc) {
+                events.add(inc);
+                increments.merge(new Key(inc.profile(), inc.table(), inc.date()), inc.amount(), Integer::sum);
+            } else if (write instanceof Reminders rem) {
+                reminders.put(new Key(rem.profile(), rem.metric(), rem.date()), rem); // latest state of the day wins
+            }
+        }
+
+        boolean written;
+        synchronized (DatabaseHelper.LOCK) {
+            written = DatabaseHelper.writeBatch(events, increments, reminders.values());
+            if (written) {
+                flushedWrites.addAndGet(batch.size());
+                if (!failures.isEmpty()) batch.forEach(failures::remove);
+                increments.forEach((key, amount) ->
+                        pending.computeIfPresent(key, (k, v) -> v - amount == 0 ? null : v - amount));
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        flushCount.incrementAndGet();
+        return written;
+    }
+}
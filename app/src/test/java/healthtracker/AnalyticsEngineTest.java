@@ -0,0 +1,191 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Analytics kept up to date through increments, imports and day changes must match a fresh read
+// of the same history, and must only read the history again when a change goes past the ring.
+class AnalyticsEngineTest {
+    // A Wednesday afternoon
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 18, 15, 0);
+    private static final String PROFILE = DatabaseHelper.DEFAULT_PROFILE;
+
+    @TempDir
+    Path dir;
+
+    private CountingStore store;
+    private AnalyticsEngine analytics;
+
+    // Counts history scans (every seed starts with firstDay) and can act right after a read
+    static class CountingStore extends MappedFileStore {
+        int scans;
+        Runnable afterTodayRead;
+
+        CountingStore(String dir) {
+            super(dir);
+        }
+
+        @Override
+        public LocalDate firstDay(String profile, String table) {
+            scans++;
+            return super.firstDay(profile, table);
+        }
+
+        @Override
+        public void fillDaily(String profile, String table, long fromEpochDay, long toEpochDay, TimeSeries out) {
+            super.fillDaily(profile, table, fromEpochDay, toEpochDay, out);
+            Runnable hook = afterTodayRead;
+            if (hook != null && fromEpochDay == AppClock.today().toEpochDay()) {
+                afterTodayRead = null;
+                hook.run();
+            }
+        }
+    }
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @BeforeEach
+    void openStore() {
+        setClock(NOW);
+        store = new CountingStore(dir.resolve("data").toString());
+        DatabaseHelper.open(store);
+        DatabaseHelper.initializeTables();
+        DatabaseHelper.switchProfile(PROFILE);
+        analytics = DatabaseHelper.getAnalytics();
+    }
+
+    @AfterEach
+    void closeStore() {
+        DatabaseHelper.close();
+        AppClock.reset();
+    }
+
+    private static void setClock(LocalDateTime at) {
+        AppClock.set(Clock.fixed(at.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    private void importCsv(String... lines) throws IOException {
+        Path file = Files.createTempFile(dir, "import", ".csv");
+        Files.write(file, List.of(lines));
+        BulkImporter.importFile(PROFILE, file, BulkImporter.Format.CSV, (records, done, total) -> {});
+    }
+
+    private static String line(int daysAgo, String metric, int value) {
+        return NOW.toLocalDate().minusDays(daysAgo) + "," + metric + "," + value;
+    }
+
+    // 120 days: Posture met every day but 60 and 10 days ago, Hydration anywhere around its goal
+    private void importHistory() throws IOException {
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>();
+        for (int daysAgo = 120; daysAgo >= 1; daysAgo--) {
+            if (daysAgo != 60 && daysAgo != 10) lines.add(line(daysAgo, "Posture", 4));
+            lines.add(line(daysAgo, "Hydration", 1_000 + random.nextInt(2_000)));
+        }
+        importCsv(lines.toArray(String[]::new));
+    }
+
+    // Everything but the forecast, which also depends on the hours of past days
+    private List<String> figures() {
+        List<String> figures = new ArrayList<>();
+        for (AnalyticsEngine.Summary s : analytics.summaries(PROFILE)) {
+            figures.add(String.join(" ", s.metric(), "today=" + s.today(), "streak=" + s.currentStreak(),
+                    "longest=" + s.longestStreak(), "mean7=" + s.mean7(), "mean30=" + s.mean30(),
+                    "week=" + s.thisWeek(), "lastWeek=" + s.lastWeek()));
+        }
+        return figures;
+    }
+
+    private List<String> freshFigures() {
+        analytics.invalidate(PROFILE);
+        return figures();
+    }
+
+    @Test
+    void importInsideTheRingUpdatesWithoutRescan() throws IOException {
+        importHistory();
+        figures();
+        int scans = store.scans;
+
+        importCsv(line(10, "Posture", 4), line(3, "Hydration", 500), line(20, "Hydration", 700),
+                line(25, "Hydration", 300));
+        List<String> updated = figures();
+        assertEquals(scans, store.scans, "no history scan for days in the ring");
+        assertEquals(59, analytics.summary(PROFILE, "Posture").currentStreak());
+        assertEquals(freshFigures(), updated);
+    }
+
+    @Test
+    void importPastTheRingRescansThatMetricOnly() throws IOException {
+        importHistory();
+        figures();
+        int scans = store.scans;
+
+        importCsv(line(60, "Posture", 4));
+        List<String> updated = figures();
+        assertEquals(scans + 1, store.scans);
+        AnalyticsEngine.Summary posture = analytics.summary(PROFILE, "Posture");
+        assertEquals(9, posture.currentStreak());
+        assertEquals(110, posture.longestStreak());
+        assertEquals(freshFigures(), updated);
+    }
+
+    @Test
+    void daysLeavingTheRingKeepStreaks() throws IOException {
+        importHistory();
+        importCsv(line(10, "Posture", 4));
+        figures();
+
+        // Met for the next 45 days, one day missed, then 5 more
+        for (int day = 0; day <= 50; day++) {
+            setClock(NOW.plusDays(day));
+            if (day != 45) {
+                for (int i = 0; i < 4; i++) DatabaseHelper.postIncrement(PROFILE, "Posture", 1);
+            }
+            DatabaseHelper.postIncrement(PROFILE, "Hydration", 250 * (day % 9));
+        }
+        List<String> updated = figures();
+        AnalyticsEngine.Summary posture = analytics.summary(PROFILE, "Posture");
+        assertEquals(5, posture.currentStreak());
+        assertEquals(59 + 45, posture.longestStreak());
+        assertEquals(freshFigures(), updated);
+    }
+
+    @Test
+    void incrementWhileSeedingIsNotLost() throws IOException {
+        importHistory();
+        DatabaseHelper.postIncrement(PROFILE, "Hydration", 250);
+        // Lands after the seed read today's Hydration total but before its state is in place
+        store.afterTodayRead = () -> {
+            Thread writer = new Thread(() -> DatabaseHelper.postIncrement(PROFILE, "Hydration", 250));
+            writer.start();
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        };
+
+        assertEquals(500, analytics.summary(PROFILE, "Hydration").today());
+        assertNull(store.afterTodayRead, "the increment ran during the seed");
+    }
+}
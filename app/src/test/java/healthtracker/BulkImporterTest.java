@@ -0,0 +1,174 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Each import format must land its records on the right day and hour, and count what it could not
+// read instead of failing the import.
+class BulkImporterTest {
+    private static final String PROFILE = DatabaseHelper.DEFAULT_PROFILE;
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 10);
+
+    private static final String APPLE_HEALTH = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <HealthData locale="en_GB">
+             <ExportDate value="2025-06-18 10:00:00 +0100"/>
+             <Record type="HKQuantityTypeIdentifierDietaryWater" unit="L" startDate="2025-06-10 08:05:31 +0100" value="0.5"/>
+             <Record type="HKQuantityTypeIdentifierDietaryWater" unit="mL" startDate="2025-06-10 21:40:00 +0100" value="250"/>
+             <Record type="HKQuantityTypeIdentifierHeartRate" unit="count/min" startDate="2025-06-10 09:00:00 +0100" value="61"/>
+             <Record type="HKQuantityTypeIdentifierStepCount" unit="count" startDate="2025-06-10 09:12:00 +0100" value="1200">
+              <MetadataEntry key="HKWasUserEntered" value="0"/>
+             </Record>
+             <Record type="HKQuantityTypeIdentifierStepCount" unit="count" startDate="2025-06-11 07:00:00 +0100" value="n/a"/>
+            </HealthData>
+            """;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @BeforeEach
+    void openStore() {
+        AppClock.set(Clock.fixed(LocalDateTime.of(2025, 6, 18, 15, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        DatabaseHelper.open(new MappedFileStore(dir.resolve("data").toString()));
+        DatabaseHelper.initializeTables();
+        DatabaseHelper.switchProfile(PROFILE);
+    }
+
+    @AfterEach
+    void closeStore() {
+        DatabaseHelper.close();
+        AppClock.reset();
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, List.of(lines));
+        return file;
+    }
+
+    private static BulkImporter.Result importFile(Path file) throws IOException {
+        return BulkImporter.importFile(PROFILE, file, BulkImporter.Format.detect(file), (records, done, total) -> {});
+    }
+
+    private static int daily(String metric, LocalDate date) {
+        TimeSeries series = new TimeSeries(1);
+        DatabaseHelper.fillDaily(PROFILE, metric, date.toEpochDay(), date.toEpochDay(), series);
+        return (int) series.value(0);
+    }
+
+    private static int hourly(String metric, LocalDate date, int hour) {
+        TimeSeries series = new TimeSeries(24);
+        DatabaseHelper.fillHourly(PROFILE, metric, date, series);
+        return (int) series.value(hour);
+    }
+
+    @Test
+    void csvTakesDatesAndDateTimesAndSkipsWhatItCannotRead() throws IOException {
+        Path file = write("history.csv",
+                "date,metric,value",
+                "2025-06-10,Hydration,500",
+                "2025-06-10T08:15:00,Hydration,250",
+                "\"2025-06-11\",\"Steps\",\"1200\"",
+                "",
+                "2025-06-11,Unknown,5",
+                "garbage",
+                "2025-06-12,Steps,abc",
+                "06/12/2025,Steps,10");
+        assertEquals(BulkImporter.Format.CSV, BulkImporter.Format.detect(file));
+
+        BulkImporter.Result result = importFile(file);
+        assertEquals(3, result.records());
+        assertEquals(4, result.skipped());
+        assertEquals(750, daily("Hydration", DAY));
+        assertEquals(250, hourly("Hydration", DAY, 8));
+        assertEquals(1_200, daily("Steps", DAY.plusDays(1)));
+        assertEquals(0, daily("Steps", DAY.plusDays(2)));
+    }
+
+    @Test
+    void appleHealthExportIsReadFromXmlAndZip() throws IOException {
+        Path xml = dir.resolve("export.xml");
+        Files.writeString(xml, APPLE_HEALTH);
+        BulkImporter.Result result = importFile(xml);
+        assertEquals(3, result.records());
+        assertEquals(1, result.skipped());
+        assertEquals(750, daily("Hydration", DAY));
+        assertEquals(500, hourly("Hydration", DAY, 8), "litres become ml, at the hour as written");
+        assertEquals(250, hourly("Hydration", DAY, 21));
+        assertEquals(1_200, daily("Steps", DAY));
+
+        // The zip Apple shares holds other documents before export.xml
+        Path zip = dir.resolve("export.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("apple_health_export/export_cda.xml"));
+            out.write("<ClinicalDocument/>".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("apple_health_export/export.xml"));
+            out.write(APPLE_HEALTH.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(BulkImporter.Format.APPLE_HEALTH, BulkImporter.Format.detect(zip));
+        assertEquals(3, importFile(zip).records());
+        assertEquals(1_500, daily("Hydration", DAY), "imports add up");
+    }
+
+    @Test
+    void zipWithoutAnExportIsRejected() throws IOException {
+        Path zip = dir.resolve("photos.zip");
+        try (OutputStream file = Files.newOutputStream(zip); ZipOutputStream out = new ZipOutputStream(file)) {
+            out.putNextEntry(new ZipEntry("img1.png"));
+            out.write(1);
+        }
+        assertThrows(IOException.class, () -> importFile(zip));
+    }
+
+    @Test
+    void googleFitDailySummaryAndPerDayFiles() throws IOException {
+        Path summary = write("Daily activity metrics.csv",
+                "Date,Move Minutes count,Calories (kcal),Step count",
+                "2025-06-10,30,1800.5,5000",
+                "2025-06-11,,,",
+                "2025-06-12,12,1500,not a number");
+        assertEquals(BulkImporter.Format.GOOGLE_FIT, BulkImporter.Format.detect(summary));
+        BulkImporter.Result result = importFile(summary);
+        assertEquals(1, result.records());
+        assertEquals(1, result.skipped());
+        assertEquals(5_000, daily("Steps", DAY));
+
+        Path day = write("2025-06-13.csv",
+                "Start time,End time,Move Minutes count,Step count",
+                "08:00:00.000+01:00,08:15:00.000+01:00,5,400",
+                "08:15:00.000+01:00,08:30:00.000+01:00,3,350",
+                "09:00:00.000+01:00,09:15:00.000+01:00,,");
+        assertEquals(2, importFile(day).records());
+        assertEquals(750, daily("Steps", DAY.plusDays(3)));
+        assertEquals(750, hourly("Steps", DAY.plusDays(3), 8));
+    }
+
+    @Test
+    void perDayGoogleFitFileNeedsADatedName() throws IOException {
+        Path day = write("steps.csv", "Start time,End time,Step count", "08:00:00.000+01:00,08:15:00.000+01:00,400");
+        assertThrows(IOException.class, () -> importFile(day));
+    }
+}
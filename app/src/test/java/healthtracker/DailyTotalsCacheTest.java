@@ -0,0 +1,107 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// An increment from the FX thread must not wait on the store when today's total is not in memory,
+// and a write that lands while a total is being loaded must not be lost.
+class DailyTotalsCacheTest {
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @AfterEach
+    void closeStore() {
+        DatabaseHelper.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    void incrementOnAColdCacheDoesNotWaitForTheStore() throws InterruptedException {
+        DatabaseHelper.open(new MappedFileStore(dir.toString()));
+        DatabaseHelper.initializeTables();
+        DatabaseHelper.switchProfile(DatabaseHelper.DEFAULT_PROFILE);
+        int goal = DatabaseHelper.getGoal("Posture");
+
+        // The store is busy, and a reader is waiting on it for the same total
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (DatabaseHelper.LOCK) {
+                held.countDown();
+                await(release);
+            }
+        });
+        holder.start();
+        await(held);
+        Thread reader = new Thread(() -> DatabaseHelper.getDailyTotal("Posture"));
+        reader.start();
+        while (reader.getState() != Thread.State.BLOCKED) {
+            Thread.onSpinWait();
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> DatabaseHelper.postIncrement("Posture", goal));
+        assertFalse(DatabaseHelper.getGoalEvents().isReached("Posture"));
+
+        release.countDown();
+        holder.join();
+        reader.join();
+        assertEquals(goal, DatabaseHelper.getDailyTotal("Posture"));
+        // The goal event follows once the total has been read in the background
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!DatabaseHelper.getGoalEvents().isReached("Posture") && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(DatabaseHelper.getGoalEvents().isReached("Posture"));
+    }
+
+    @Test
+    void addDuringALoadIsNotLost() throws InterruptedException {
+        AtomicInteger stored = new AtomicInteger(100);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        DailyTotalsCache cache = new DailyTotalsCache(table -> {
+            int value = stored.get();
+            if (loads.incrementAndGet() == 1) {
+                loading.countDown();
+                await(proceed);
+            }
+            return value;
+        });
+
+        AtomicInteger read = new AtomicInteger();
+        Thread reader = new Thread(() -> read.set(cache.get("Steps")));
+        reader.start();
+        await(loading);
+        // Written after the load read the store, before it finished
+        stored.addAndGet(5);
+        assertTrue(cache.add("Steps", AppClock.today(), 5).isEmpty());
+        proceed.countDown();
+        reader.join();
+
+        assertEquals(105, read.get());
+        assertEquals(2, loads.get(), "the stale load is read again");
+        assertEquals(110, cache.add("Steps", AppClock.today(), 5).getAsInt());
+    }
+}
@@ -0,0 +1,118 @@
+package healthtracker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Downsampling must leave a short series alone, never lose the ends (lttb) or a spike (minMax), and
+// stay within its budget when the buckets do not divide the series evenly.
+class DownsamplerTest {
+    private static final long START = 20_000;
+
+    // A gentle wave, with one spike at spikeAt (none if negative)
+    private static TimeSeries series(int n, int spikeAt) {
+        TimeSeries series = new TimeSeries(n);
+        for (int i = 0; i < n; i++) {
+            series.add(START + i, i == spikeAt ? 50_000 : 2_000 + 500 * Math.sin(i / 7.0));
+        }
+        return series;
+    }
+
+    private static void assertSame(TimeSeries expected, TimeSeries actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.epochDay(i), actual.epochDay(i));
+            assertEquals(expected.value(i), actual.value(i));
+        }
+    }
+
+    // Every kept point is one of the input's, and they stay in order
+    private static void assertSubsequence(TimeSeries in, TimeSeries out) {
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < out.size(); i++) {
+            long day = out.epochDay(i);
+            assertTrue(day > previous, "in order, no point twice");
+            assertEquals(in.value((int) (day - START)), out.value(i));
+            previous = day;
+        }
+    }
+
+    private static boolean contains(TimeSeries series, long epochDay) {
+        for (int i = 0; i < series.size(); i++) {
+            if (series.epochDay(i) == epochDay) return true;
+        }
+        return false;
+    }
+
+    @Test
+    void shortSeriesIsPassedThrough() {
+        TimeSeries in = series(10, -1);
+        TimeSeries out = new TimeSeries();
+        out.add(1, 1);
+
+        Downsampler.lttb(in, 10, out);
+        assertSame(in, out);
+        Downsampler.lttb(in, 50, out);
+        assertSame(in, out);
+        Downsampler.minMax(in, 5, out);
+        assertSame(in, out);
+        Downsampler.minMax(in, 50, out);
+        assertSame(in, out);
+
+        Downsampler.lttb(new TimeSeries(), 10, out);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void lttbKeepsTheThresholdAndBothEnds() {
+        TimeSeries in = series(1_000, -1);
+        TimeSeries out = new TimeSeries();
+        Downsampler.lttb(in, 100, out);
+
+        assertEquals(100, out.size());
+        assertEquals(in.epochDay(0), out.epochDay(0));
+        assertEquals(in.value(0), out.value(0));
+        assertEquals(in.epochDay(999), out.epochDay(99));
+        assertEquals(in.value(999), out.value(99));
+        assertSubsequence(in, out);
+    }
+
+    @Test
+    void lttbKeepsASpike() {
+        TimeSeries in = series(1_000, 537);
+        TimeSeries out = new TimeSeries();
+        Downsampler.lttb(in, 50, out);
+        assertTrue(contains(out, START + 537));
+    }
+
+    @Test
+    void minMaxKeepsASpikeAndTheDipOfItsBucket() {
+        TimeSeries in = series(1_000, 537);
+        in.setValue(530, -50_000);
+        TimeSeries out = new TimeSeries();
+        Downsampler.minMax(in, 20, out);
+
+        assertTrue(contains(out, START + 537));
+        assertTrue(contains(out, START + 530));
+        assertSubsequence(in, out);
+    }
+
+    @Test
+    void unevenBucketsStayWithinBudgetAndCoverTheWholeSeries() {
+        for (int n : new int[] {101, 997, 1_003}) {
+            TimeSeries in = series(n, n - 2);
+            TimeSeries out = new TimeSeries();
+
+            Downsampler.lttb(in, 7, out);
+            assertEquals(7, out.size(), "n=" + n);
+            assertEquals(in.epochDay(n - 1), out.epochDay(6));
+            assertSubsequence(in, out);
+
+            Downsampler.minMax(in, 7, out);
+            assertTrue(out.size() <= 14, "n=" + n);
+            assertTrue(out.size() >= 7, "at least one point per bucket, n=" + n);
+            assertTrue(contains(out, START + n - 2), "the spike in the short last bucket, n=" + n);
+            assertSubsequence(in, out);
+        }
+    }
+}
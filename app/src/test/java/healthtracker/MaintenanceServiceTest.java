@@ -0,0 +1,110 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Compacting the event log folds each hour into one row without changing any total, and gets across
+// years without events in a bounded number of calls.
+class MaintenanceServiceTest {
+    private static final String PROFILE = DatabaseHelper.DEFAULT_PROFILE;
+    private static final LocalDate FIRST = LocalDate.of(2015, 3, 2);
+    private static final LocalDate LATER = FIRST.plusDays(2_500);
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @BeforeEach
+    void openStore() throws SQLException {
+        AppClock.set(Clock.fixed(LocalDateTime.of(2025, 6, 18, 15, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        DatabaseHelper.open(new SqliteStore());
+        ConnectionManager.open("jdbc:sqlite:" + dir.resolve("health.db"));
+        DatabaseHelper.initializeTables();
+        DatabaseHelper.switchProfile(PROFILE);
+    }
+
+    @AfterEach
+    void closeStore() {
+        DatabaseHelper.close();
+        AppClock.reset();
+    }
+
+    // amounts.length increments at minute i of the given hour
+    private static void write(String metric, LocalDate day, int hour, int... amounts) {
+        List<WriteBehindQueue.Increment> events = new ArrayList<>();
+        Map<WriteBehindQueue.Key, Integer> daily = new LinkedHashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            long ts = day.atTime(hour, i).toInstant(ZoneOffset.UTC).toEpochMilli();
+            events.add(new WriteBehindQueue.Increment(PROFILE, metric, day, ts, amounts[i]));
+            daily.merge(new WriteBehindQueue.Key(PROFILE, metric, day), amounts[i], Integer::sum);
+        }
+        assertTrue(DatabaseHelper.writeBatch(events, daily, List.of()));
+    }
+
+    private static int events() throws SQLException {
+        synchronized (ConnectionManager.LOCK) {
+            try (ResultSet rs = ConnectionManager.prepare("SELECT COUNT(*) FROM Events").executeQuery()) {
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static int hourly(String metric, LocalDate day, int hour) {
+        TimeSeries series = new TimeSeries(24);
+        DatabaseHelper.fillHourly(PROFILE, metric, day, series);
+        return (int) series.value(hour);
+    }
+
+    @Test
+    void foldsEachHourAcrossYearsWithoutEvents() throws SQLException {
+        write("Hydration", FIRST, 8, 250, 250, 500);
+        write("Hydration", FIRST, 9, 250);
+        write("Steps", LATER, 18, 1_000, 2_000);
+        assertEquals(6, events());
+
+        long cutoff = LocalDate.of(2025, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        int removed = 0;
+        int calls = 0;
+        for (int result; (result = DatabaseHelper.compactEvents(cutoff, 1)) >= 0; calls++) {
+            removed += result;
+            assertTrue(calls < 10, "each call moves on to the next day with events");
+        }
+
+        assertEquals(3, removed);
+        assertEquals(3, events());
+        assertEquals(1_000, hourly("Hydration", FIRST, 8));
+        assertEquals(250, hourly("Hydration", FIRST, 9));
+        assertEquals(3_000, hourly("Steps", LATER, 18));
+    }
+
+    @Test
+    void eventsAfterTheCutoffAreLeftAlone() throws SQLException {
+        write("Hydration", LocalDate.of(2025, 6, 1), 8, 250, 250);
+        long cutoff = LocalDate.of(2025, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        while (DatabaseHelper.compactEvents(cutoff, 5_000) >= 0) {
+            // until there is nothing left before the cutoff
+        }
+        assertEquals(2, events());
+    }
+}
@@ -0,0 +1,118 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// After a crash the journal holds frames that never reached the mapped files: every intact frame
+// must be replayed on open, and a torn or corrupt frame must stop the replay and be dropped.
+class MappedFileStoreTest {
+    private static final String PROFILE = DatabaseHelper.DEFAULT_PROFILE;
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 18);
+
+    @TempDir
+    Path dir;
+
+    private MappedFileStore store;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @AfterEach
+    void closeStore() {
+        if (store != null) store.close();
+    }
+
+    // One journal frame setting each metric's daily value on DAY, in MappedFileStore's format
+    private static byte[] frame(String[] metrics, int... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeInt(metrics.length);
+        for (int i = 0; i < metrics.length; i++) {
+            payload.writeUTF(PROFILE + "/" + metrics[i] + ".daily");
+            payload.writeLong(DAY.toEpochDay());
+            payload.writeInt(values[i]);
+        }
+        byte[] data = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return ByteBuffer.allocate(8 + data.length).putInt(data.length).putInt((int) crc.getValue()).put(data).array();
+    }
+
+    private static byte[] concat(byte[]... frames) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] frame : frames) out.writeBytes(frame);
+        return out.toByteArray();
+    }
+
+    private void open(byte[] journal) throws IOException {
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("journal.log"), journal);
+        store = new MappedFileStore(dir.toString());
+        store.initialize();
+    }
+
+    private int daily(String metric) {
+        return store.loadDaily(PROFILE, metric, DAY);
+    }
+
+    @Test
+    void intactFramesAreReplayedAndATornOneDropped() throws IOException {
+        byte[] last = frame(new String[] {"Hydration"}, 9_999);
+        open(concat(frame(new String[] {"Hydration", "Steps"}, 250, 4_000),
+                frame(new String[] {"Hydration"}, 500),
+                Arrays.copyOf(last, last.length - 3)));
+
+        assertEquals(500, daily("Hydration"));
+        assertEquals(4_000, daily("Steps"));
+        assertEquals(0, Files.size(dir.resolve("journal.log")), "checkpointed after replay");
+    }
+
+    @Test
+    void replayStopsAtACorruptFrame() throws IOException {
+        byte[] corrupt = frame(new String[] {"Hydration"}, 750);
+        corrupt[corrupt.length - 1] ^= 0x01;
+        open(concat(frame(new String[] {"Hydration"}, 250), corrupt, frame(new String[] {"Steps"}, 4_000)));
+
+        assertEquals(250, daily("Hydration"));
+        assertEquals(0, daily("Steps"), "nothing after a bad frame can be trusted");
+    }
+
+    @Test
+    void aHeaderWithoutItsPayloadIsDropped() throws IOException {
+        byte[] first = frame(new String[] {"Posture"}, 3);
+        open(concat(first, Arrays.copyOf(frame(new String[] {"Posture"}, 4), 8)));
+        assertEquals(3, daily("Posture"));
+
+        // The dropped frame is gone for good: later batches start from a clean journal
+        store.close();
+        store = new MappedFileStore(dir.toString());
+        store.initialize();
+        assertEquals(3, daily("Posture"));
+    }
+
+    @Test
+    void replayingFramesThatAlreadyReachedTheFilesIsHarmless() throws IOException {
+        byte[] journal = frame(new String[] {"Hydration"}, 1_250);
+        open(journal);
+        store.close();
+
+        open(journal);
+        assertEquals(1_250, daily("Hydration"), "values are absolute");
+    }
+}
@@ -0,0 +1,100 @@
+package healthtracker;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Metric names become table and file names, so a config that would clash or inject must be refused
+// at start, as must a goal that is not a positive number. A config file that is not there falls
+// back to the built-in metrics.
+class MetricRegistryTest {
+    private static final String WATER = """
+            metrics = Water
+            Water.goal = 2000
+            Water.increment = 250
+            Water.color = #1E88E5
+            """;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.ERROR);
+    }
+
+    private static Properties config(String text) throws IOException {
+        Properties config = new Properties();
+        config.load(new StringReader(text));
+        return config;
+    }
+
+    private static String rejected(String text) throws IOException {
+        Properties config = config(text);
+        return assertThrows(IllegalStateException.class, () -> MetricRegistry.parse(config)).getMessage();
+    }
+
+    @Test
+    void validConfigIsReadWithDefaults() throws IOException {
+        List<MetricRegistry.Metric> metrics = MetricRegistry.parse(config(WATER));
+        assertEquals(1, metrics.size());
+        MetricRegistry.Metric water = metrics.get(0);
+        assertEquals("Water", water.name());
+        assertEquals("Water", water.label());
+        assertEquals(2_000, water.goal());
+        assertEquals("#1E88E5", water.ringColor());
+        assertEquals(0, water.reminderIntervalMs());
+        assertNull(water.appleHealthType());
+    }
+
+    @Test
+    void duplicateNameIsRejected() throws IOException {
+        assertTrue(rejected(WATER.replace("metrics = Water", "metrics = Water, Water")).contains("Duplicate"));
+        assertTrue(rejected(WATER.replace("metrics = Water", "metrics = Water, WATER")).contains("Duplicate"),
+                "SQLite table names ignore case");
+    }
+
+    @Test
+    void goalMustBeAPositiveNumber() throws IOException {
+        for (String goal : new String[] {"-5", "0", "two thousand", "2000.5", "99999999999", ""}) {
+            String message = rejected(WATER.replace("Water.goal = 2000", "Water.goal = " + goal));
+            assertTrue(message.startsWith(goal.isEmpty() ? "Missing Water.goal" : "Water.goal must be"), message);
+        }
+        assertTrue(rejected(WATER.replace("Water.goal = 2000\n", "")).contains("Missing Water.goal"));
+    }
+
+    @Test
+    void namesThatAreNotPlainIdentifiersAreRejected() throws IOException {
+        for (String name : new String[] {"Water; DROP TABLE Events", "1Water", "Wa-ter", "../Water", "Événement",
+                "Events", "Reminders", "W" + "x".repeat(32)}) {
+            String text = WATER.replace("metrics = Water", "metrics = " + name.replace(",", ""));
+            assertTrue(rejected(text).startsWith("Invalid metric name"), name);
+        }
+    }
+
+    @Test
+    void emptyConfigIsRejected() throws IOException {
+        assertEquals("No metrics configured", rejected("metrics = ,"));
+    }
+
+    @Test
+    void missingFileFallsBackToTheDefaults() throws IOException {
+        List<MetricRegistry.Metric> defaults = MetricRegistry.load(null);
+        assertEquals(defaults, MetricRegistry.load(dir.resolve("missing.properties").toString()));
+        assertEquals(List.of("Hydration", "Posture", "Steps"),
+                defaults.stream().map(MetricRegistry.Metric::name).toList());
+
+        Path file = dir.resolve("metrics.properties");
+        Files.writeString(file, WATER);
+        assertEquals("Water", MetricRegistry.load(file.toString()).get(0).name());
+    }
+}
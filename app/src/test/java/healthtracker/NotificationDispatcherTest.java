@@ -0,0 +1,127 @@
+package healthtracker;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// post never blocks: repeats inside the window, anything over the rate limit and anything that finds
+// the queue full are refused and counted, and close() still sends what got in before it.
+class NotificationDispatcherTest {
+    private static final long WAIT_MS = 5_000;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    private static NotificationSink.Notification notification(int i) {
+        return new NotificationSink.Notification("Reminder " + i, "Time for reminder " + i, "Reminder " + i);
+    }
+
+    // Holding the sink's monitor keeps the worker inside send until the caller lets go
+    private static void awaitTaken(NotificationDispatcher dispatcher) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (dispatcher.getQueueDepth() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "worker never took the notification");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void identicalNotificationInsideTheWindowIsSentOnce() throws InterruptedException {
+        MemorySink sink = new MemorySink();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(sink, 32, 60_000, 5, 0);
+        Metrics.Counter duplicates = Metrics.counter("notification.duplicates");
+        long before = duplicates.getCount();
+        try {
+            assertTrue(dispatcher.post(notification(1)));
+            assertFalse(dispatcher.post(notification(1)));
+            assertTrue(dispatcher.post(notification(2)), "only an identical notification is a repeat");
+            assertTrue(sink.awaitSize(2, WAIT_MS));
+            assertEquals(List.of(notification(1), notification(2)), sink.getSent());
+            assertEquals(before + 1, duplicates.getCount());
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void repeatOutsideTheWindowIsSentAgain() throws InterruptedException {
+        MemorySink sink = new MemorySink();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(sink, 32, 50, 5, 0);
+        try {
+            assertTrue(dispatcher.post(notification(1)));
+            Thread.sleep(100);
+            assertTrue(dispatcher.post(notification(1)));
+            assertTrue(sink.awaitSize(2, WAIT_MS));
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void burstOverTheRateLimitIsRefused() throws InterruptedException {
+        MemorySink sink = new MemorySink();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(sink, 32, 60_000, 3, 60_000);
+        Metrics.Counter rateLimited = Metrics.counter("notification.rateLimited");
+        long before = rateLimited.getCount();
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(dispatcher.post(notification(i)));
+            }
+            assertFalse(dispatcher.post(notification(3)));
+            assertFalse(dispatcher.post(notification(4)));
+            assertTrue(sink.awaitSize(3, WAIT_MS));
+            assertEquals(before + 2, rateLimited.getCount());
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void fullQueueDropsAndCountsWithoutBlocking() throws InterruptedException {
+        MemorySink sink = new MemorySink();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(sink, 2, 60_000, 5, 0);
+        Metrics.Counter dropped = Metrics.counter("notification.dropped");
+        long before = dropped.getCount();
+        try {
+            synchronized (sink) {
+                assertTrue(dispatcher.post(notification(0)));
+                awaitTaken(dispatcher);
+                assertTrue(dispatcher.post(notification(1)));
+                assertTrue(dispatcher.post(notification(2)));
+                assertFalse(dispatcher.post(notification(3)));
+                assertEquals(2, dispatcher.getQueueDepth());
+                assertEquals(before + 1, dropped.getCount());
+            }
+            assertTrue(sink.awaitSize(3, WAIT_MS));
+            assertEquals(List.of(notification(0), notification(1), notification(2)), sink.getSent());
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void closeSendsWhatIsStillQueuedAndRefusesNewPosts() throws InterruptedException {
+        MemorySink sink = new MemorySink();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(sink, 8, 60_000, 5, 0);
+        Thread closer = new Thread(dispatcher::close);
+        synchronized (sink) {
+            assertTrue(dispatcher.post(notification(0)));
+            awaitTaken(dispatcher);
+            assertTrue(dispatcher.post(notification(1)));
+            assertTrue(dispatcher.post(notification(2)));
+            closer.start();
+            while (closer.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(5);
+            }
+            assertFalse(dispatcher.post(notification(3)));
+        }
+        closer.join(WAIT_MS);
+        assertFalse(closer.isAlive());
+        assertEquals(List.of(notification(0), notification(1), notification(2)), sink.getSent());
+    }
+}
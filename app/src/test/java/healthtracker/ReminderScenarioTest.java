@@ -0,0 +1,209 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Day-long and week-long reminder scenarios on simulated time against a real SQLite store. The
+// default metrics apply: reminders every 30, 50 and 90 s; Posture's goal is 4 sessions.
+class ReminderScenarioTest {
+    // A Monday
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 3, 3, 7, 0);
+
+    @TempDir
+    Path dir;
+
+    private ReminderSimulation simulation;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @BeforeEach
+    void openStore() throws SQLException {
+        openDatabase("health.db");
+        DatabaseHelper.switchProfile(DatabaseHelper.DEFAULT_PROFILE);
+    }
+
+    @AfterEach
+    void closeStore() {
+        if (simulation != null) simulation.close();
+        DatabaseHelper.close();
+    }
+
+    private void openDatabase(String file) throws SQLException {
+        DatabaseHelper.open(new SqliteStore());
+        ConnectionManager.open("jdbc:sqlite:" + dir.resolve(file));
+        DatabaseHelper.initializeTables();
+    }
+
+    private ReminderSimulation start(LocalDateTime at) {
+        simulation = new ReminderSimulation(at);
+        return simulation;
+    }
+
+    private void confirmTimes(String metric, int times) {
+        for (int i = 0; i < times; i++) {
+            simulation.confirm(metric);
+        }
+    }
+
+    @Test
+    void remindersFireAtTheirIntervals() {
+        start(MONDAY).advance(Duration.ofHours(1));
+
+        LocalDateTime end = MONDAY.plusHours(1);
+        assertEquals(120, simulation.countDeliveries("Hydration", MONDAY, end.plusSeconds(1)));
+        assertEquals(72, simulation.countDeliveries("Posture", MONDAY, end.plusSeconds(1)));
+        assertEquals(40, simulation.countDeliveries("Steps", MONDAY, end.plusSeconds(1)));
+        assertEquals(end, simulation.now());
+    }
+
+    @Test
+    void goalPausesItsReminderUntilMidnight() {
+        start(MONDAY);
+        simulation.advanceTo(MONDAY.withHour(10));
+        confirmTimes("Posture", 3);
+        assertTrue(simulation.isActive("Posture"));
+
+        simulation.confirm("Posture");
+        assertFalse(simulation.isActive("Posture"));
+        assertTrue(simulation.isActive("Hydration"));
+
+        // 10:00 itself had a Posture tick before the confirmations
+        LocalDateTime reached = MONDAY.withHour(10).plusSeconds(1);
+        LocalDateTime midnight = MONDAY.toLocalDate().plusDays(1).atStartOfDay();
+        simulation.advanceTo(midnight.plusHours(1));
+        assertEquals(0, simulation.countDeliveries("Posture", reached, midnight));
+        assertTrue(simulation.countDeliveries("Hydration", reached, midnight) > 0);
+        assertTrue(simulation.isActive("Posture"));
+        // Resumed by the rollover a second past midnight, so the first tick is at 00:00:51
+        assertEquals(71, simulation.countDeliveries("Posture", midnight, midnight.plusHours(1)));
+        assertEquals(0, DatabaseHelper.getDailyTotal("Posture"));
+    }
+
+    @Test
+    void confirmingPastTheGoalKeepsTheReminderPaused() {
+        start(MONDAY);
+        confirmTimes("Posture", 6);
+        simulation.advanceTo(MONDAY.withHour(23));
+
+        assertFalse(simulation.isActive("Posture"));
+        assertEquals(6, DatabaseHelper.getDailyTotal("Posture"));
+        assertEquals(0, simulation.countDeliveries("Posture", MONDAY, MONDAY.withHour(23)));
+    }
+
+    @Test
+    void goalMetBeforeARestartStaysPaused() throws SQLException {
+        start(MONDAY.withHour(9));
+        confirmTimes("Posture", 4);
+        simulation.close();
+        DatabaseHelper.close();
+
+        openDatabase("health.db");
+        start(MONDAY.withHour(15));
+        simulation.advance(Duration.ofHours(1));
+        assertFalse(simulation.isActive("Posture"));
+        assertTrue(simulation.isActive("Steps"));
+        assertEquals(0, simulation.countDeliveries("Posture", MONDAY, MONDAY.plusDays(1)));
+    }
+
+    @Test
+    void profileSwitchRechecksGoals() {
+        DatabaseHelper.createProfile("night-shift");
+        start(MONDAY);
+        confirmTimes("Posture", 4);
+        assertFalse(simulation.isActive("Posture"));
+
+        simulation.switchProfile("night-shift");
+        assertTrue(simulation.isActive("Posture"));
+        assertEquals(0, DatabaseHelper.getDailyTotal("Posture"));
+
+        simulation.switchProfile(DatabaseHelper.DEFAULT_PROFILE);
+        assertFalse(simulation.isActive("Posture"));
+    }
+
+    @Test
+    void lateConfirmationCountsForItsOwnDay() {
+        LocalDate monday = MONDAY.toLocalDate();
+        start(monday.atTime(23, 59, 59));
+        simulation.confirm("Hydration");
+        simulation.advance(Duration.ofSeconds(2));
+
+        assertEquals(0, DatabaseHelper.getDailyTotal("Hydration"));
+        double[] lastTwo = DatabaseHelper.getLastNValues("Hydration", 2);
+        assertEquals(250, lastTwo[0]);
+        assertEquals(0, lastTwo[1]);
+    }
+
+    // Posture met Monday to Friday, missed on Saturday, met again on Sunday; Hydration gets one
+    // more glass each day. Checked in memory, then again from the store after a restart.
+    @Test
+    void weekOfConfirmationsIsStoredPerDay() throws SQLException {
+        start(MONDAY);
+        for (int day = 0; day < 7; day++) {
+            LocalDate date = MONDAY.toLocalDate().plusDays(day);
+            for (int hour = 0; hour < 8; hour++) {
+                simulation.advanceTo(date.atTime(9 + hour, 0));
+                if (hour < 4 && day != 5) simulation.confirm("Posture");
+                if (hour <= day) simulation.confirm("Hydration");
+            }
+        }
+        simulation.advanceTo(MONDAY.plusDays(7).withHour(8));
+
+        AnalyticsEngine.Summary posture = DatabaseHelper.getAnalytics().summary(DatabaseHelper.DEFAULT_PROFILE, "Posture");
+        assertEquals(1, posture.currentStreak());
+        assertEquals(5, posture.longestStreak());
+        AnalyticsEngine.Summary hydration = DatabaseHelper.getAnalytics().summary(DatabaseHelper.DEFAULT_PROFILE, "Hydration");
+        assertEquals(250L * (1 + 2 + 3 + 4 + 5 + 6 + 7), hydration.lastWeek());
+
+        simulation.close();
+        DatabaseHelper.close();
+        openDatabase("health.db");
+        simulation = new ReminderSimulation(MONDAY.plusDays(7).withHour(8));
+        double[] week = DatabaseHelper.getLastNValues("Hydration", 8);
+        for (int day = 0; day < 7; day++) {
+            assertEquals(250 * (day + 1), week[day]);
+        }
+        assertEquals(0, week[7]);
+        assertEquals(1, DatabaseHelper.getAnalytics().summary(DatabaseHelper.DEFAULT_PROFILE, "Posture").currentStreak());
+    }
+
+    @Test
+    void replayIsDeterministic() throws SQLException {
+        List<ReminderSimulation.Delivery> first = replayFourWeeks();
+        simulation.close();
+        DatabaseHelper.close();
+        openDatabase("replay.db");
+        List<ReminderSimulation.Delivery> second = replayFourWeeks();
+
+        assertEquals(first, second);
+        assertTrue(first.size() > 4 * 7 * 2_000);
+    }
+
+    // Confirms everything every two hours from 8 to 20, so Posture pauses at noon each day
+    private List<ReminderSimulation.Delivery> replayFourWeeks() {
+        start(MONDAY.minusHours(7));
+        for (int day = 0; day < 28; day++) {
+            LocalDate date = MONDAY.toLocalDate().plusDays(day);
+            for (int hour = 8; hour <= 20; hour += 2) {
+                simulation.advanceTo(date.atTime(hour, 0));
+                simulation.confirm("Hydration", "Posture", "Steps");
+            }
+        }
+        simulation.advanceTo(MONDAY.plusDays(28).withHour(0));
+        return List.copyOf(simulation.getDeliveries());
+    }
+}
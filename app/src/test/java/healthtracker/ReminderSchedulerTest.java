@@ -0,0 +1,114 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// On the real scheduler thread: a rescheduled job runs on its new period only, and a cancelled one
+// never runs again, not even a run that was already due and waiting for the job when it was cancelled.
+class ReminderSchedulerTest {
+    private final ReminderScheduler scheduler = new ReminderScheduler();
+    // System.nanoTime() of every run
+    private final List<Long> runs = new ArrayList<>();
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private ReminderScheduler.Job schedule(long periodMs) {
+        return (ReminderScheduler.Job) scheduler.schedule("test", periodMs, job -> {
+            synchronized (runs) {
+                runs.add(System.nanoTime());
+                runs.notifyAll();
+            }
+        });
+    }
+
+    private int runs() {
+        synchronized (runs) {
+            return runs.size();
+        }
+    }
+
+    private void awaitRuns(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        synchronized (runs) {
+            while (runs.size() < count) {
+                long left = deadline - System.currentTimeMillis();
+                assertTrue(left > 0, "only " + runs.size() + " of " + count + " runs");
+                runs.wait(left);
+            }
+        }
+    }
+
+    @Test
+    void rescheduledJobRunsOnItsNewPeriodOnly() throws InterruptedException {
+        ReminderScheduler.Job job = schedule(20);
+        awaitRuns(3);
+        job.reschedule(400);
+        int before = runs();
+        long rescheduled = System.nanoTime();
+
+        Thread.sleep(200);
+        assertEquals(before, runs(), "the old 20 ms period is gone");
+        awaitRuns(before + 1);
+        assertEquals(400, job.getPeriodMs());
+        long gapMs;
+        synchronized (runs) {
+            gapMs = (runs.get(before) - rescheduled) / 1_000_000;
+        }
+        assertTrue(gapMs >= 390, "first run on the new period after " + gapMs + " ms");
+        assertFalse(job.isPaused());
+    }
+
+    @Test
+    void cancelledJobNeverRunsAgain() throws InterruptedException {
+        ReminderScheduler.Job job = schedule(10);
+        awaitRuns(3);
+        job.cancel();
+        int after = runs();
+        Thread.sleep(150);
+        assertEquals(after, runs());
+        assertTrue(job.isPaused());
+    }
+
+    @Test
+    void runWaitingForTheJobDuringCancelIsSkipped() throws InterruptedException {
+        ReminderScheduler.Job job = schedule(10);
+        awaitRuns(1);
+        int after;
+        // Holding the job makes its next run start and wait for it, as it would for a cancel in progress
+        synchronized (job) {
+            Thread.sleep(100);
+            job.cancel();
+            after = runs();
+        }
+        Thread.sleep(150);
+        assertEquals(after, runs());
+    }
+
+    @Test
+    void runWaitingForTheJobDuringRescheduleIsSkipped() throws InterruptedException {
+        ReminderScheduler.Job job = schedule(10);
+        awaitRuns(1);
+        int after;
+        synchronized (job) {
+            Thread.sleep(100);
+            job.reschedule(10_000);
+            after = runs();
+        }
+        Thread.sleep(150);
+        assertEquals(after, runs(), "neither the old period nor a second run of the new one");
+    }
+}
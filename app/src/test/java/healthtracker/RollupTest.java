@@ -0,0 +1,132 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Weekly and monthly rollups must split at Monday and at the first of the month, also where a year
+// ends, and both engines must agree on them.
+class RollupTest {
+    private static final String PROFILE = DatabaseHelper.DEFAULT_PROFILE;
+    // A Wednesday
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 8);
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @AfterEach
+    void closeStore() {
+        DatabaseHelper.close();
+        AppClock.reset();
+    }
+
+    private void open(String storage) throws SQLException {
+        AppClock.set(Clock.fixed(TODAY.atTime(15, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        if (storage.equals("sqlite")) {
+            DatabaseHelper.open(new SqliteStore());
+            ConnectionManager.open("jdbc:sqlite:" + dir.resolve("health.db"));
+        } else {
+            DatabaseHelper.open(new MappedFileStore(dir.resolve("data").toString()));
+        }
+        DatabaseHelper.initializeTables();
+        DatabaseHelper.switchProfile(PROFILE);
+    }
+
+    // One increment of each amount on its day, in one batch as the write-behind queue would
+    private static void write(String metric, Map<LocalDate, Integer> amounts) {
+        List<WriteBehindQueue.Increment> events = new ArrayList<>();
+        Map<WriteBehindQueue.Key, Integer> daily = new LinkedHashMap<>();
+        amounts.forEach((day, amount) -> {
+            long ts = day.atTime(12, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+            events.add(new WriteBehindQueue.Increment(PROFILE, metric, day, ts, amount));
+            daily.merge(new WriteBehindQueue.Key(PROFILE, metric, day), amount, Integer::sum);
+        });
+        assertTrue(DatabaseHelper.writeBatch(events, daily, List.of()));
+    }
+
+    private static void assertStarts(RollupPeriod period, int count, LocalDate... starts) {
+        TimeSeries series = new TimeSeries(count);
+        DatabaseHelper.fillRollup(PROFILE, "Hydration", period, count, series);
+        assertEquals(starts.length, series.size());
+        for (int i = 0; i < starts.length; i++) {
+            assertEquals(starts[i], LocalDate.ofEpochDay(series.epochDay(i)));
+        }
+    }
+
+    private void weekSplitsAtMonday(String storage) throws SQLException {
+        open(storage);
+        write("Hydration", Map.of(
+                LocalDate.of(2024, 12, 30), 600,
+                LocalDate.of(2025, 1, 4), 300,
+                LocalDate.of(2025, 1, 5), 100,
+                LocalDate.of(2025, 1, 6), 200,
+                LocalDate.of(2025, 1, 7), 400));
+
+        // Mon 30 Dec - Sun 5 Jan spans the new year; the last week starts on Mon 6 Jan
+        assertArrayEquals(new double[] {0, 1_000 / 3.0, 300},
+                DatabaseHelper.getRollupValues("Hydration", RollupPeriod.WEEK, 3), 1e-9);
+        assertStarts(RollupPeriod.WEEK, 3,
+                LocalDate.of(2024, 12, 23), LocalDate.of(2024, 12, 30), LocalDate.of(2025, 1, 6));
+    }
+
+    private void monthSplitsAtTheNewYear(String storage) throws SQLException {
+        open(storage);
+        write("Hydration", Map.of(
+                LocalDate.of(2024, 11, 30), 900,
+                LocalDate.of(2024, 12, 1), 500,
+                LocalDate.of(2024, 12, 31), 1_000,
+                LocalDate.of(2025, 1, 1), 300));
+
+        assertArrayEquals(new double[] {900, 750, 300},
+                DatabaseHelper.getRollupValues("Hydration", RollupPeriod.MONTH, 3), 1e-9);
+        assertStarts(RollupPeriod.MONTH, 3,
+                LocalDate.of(2024, 11, 1), LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 1));
+    }
+
+    @Test
+    void weekSplitsAtMondayOnSqlite() throws SQLException {
+        weekSplitsAtMonday("sqlite");
+    }
+
+    @Test
+    void weekSplitsAtMondayOnMapped() throws SQLException {
+        weekSplitsAtMonday("mapped");
+    }
+
+    @Test
+    void monthSplitsAtTheNewYearOnSqlite() throws SQLException {
+        monthSplitsAtTheNewYear("sqlite");
+    }
+
+    @Test
+    void monthSplitsAtTheNewYearOnMapped() throws SQLException {
+        monthSplitsAtTheNewYear("mapped");
+    }
+
+    @Test
+    void periodStarts() {
+        assertEquals(LocalDate.of(2024, 12, 30), RollupPeriod.WEEK.start(LocalDate.of(2025, 1, 5)));
+        assertEquals(LocalDate.of(2025, 1, 6), RollupPeriod.WEEK.start(LocalDate.of(2025, 1, 6)));
+        assertEquals(LocalDate.of(2024, 12, 1), RollupPeriod.MONTH.start(LocalDate.of(2024, 12, 31)));
+        assertEquals(LocalDate.of(2025, 1, 1), RollupPeriod.MONTH.plus(LocalDate.of(2024, 12, 1), 1));
+        assertEquals(LocalDate.of(2024, 2, 1), RollupPeriod.MONTH.plus(LocalDate.of(2025, 1, 1), -11));
+    }
+}
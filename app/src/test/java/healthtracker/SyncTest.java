@@ -0,0 +1,133 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sync payloads must decode to exactly what was encoded, and merging other devices' totals must
+// give the same days whatever the order the changes arrive in and however often they are replayed.
+class SyncTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 1);
+    private static final String PROFILE = DatabaseHelper.DEFAULT_PROFILE;
+
+    // Two devices; each later version of a device's total replaces the earlier one
+    private static final List<SyncChange> CHANGES = List.of(
+            new SyncChange("phone", PROFILE, "Hydration", DAY, 500, 1),
+            new SyncChange("watch", PROFILE, "Hydration", DAY, 250, 2),
+            new SyncChange("phone", PROFILE, "Hydration", DAY, 750, 3),
+            new SyncChange("phone", PROFILE, "Steps", DAY.plusDays(1), 1_000, 4),
+            new SyncChange("watch", PROFILE, "Steps", DAY.plusDays(1), 3_000, 5),
+            new SyncChange("watch", PROFILE, "Steps", DAY.plusDays(1), 4_000, 6));
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @AfterEach
+    void closeStore() {
+        DatabaseHelper.close();
+    }
+
+    private static List<SyncChange> roundTrip(List<SyncChange> changes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SyncCodec.write(changes, out);
+        return SyncCodec.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static List<SyncChange> sorted(List<SyncChange> changes) {
+        List<SyncChange> sorted = new ArrayList<>(changes);
+        sorted.sort(Comparator.comparing(SyncChange::toString));
+        return sorted;
+    }
+
+    @Test
+    void payloadsDecodeToWhatWasEncoded() throws IOException {
+        Random random = new Random(11);
+        String[] devices = {"phone", "watch", "d3f1c2a0-7e51-4c55-9a0e-0c2b6f3e9d11"};
+        String[] profiles = {PROFILE, "Ana", "night shift"};
+        String[] metrics = {"Hydration", "Posture", "Steps", "Ünïcødé"};
+        List<SyncChange> changes = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            changes.add(new SyncChange(devices[random.nextInt(devices.length)],
+                    profiles[random.nextInt(profiles.length)], metrics[random.nextInt(metrics.length)],
+                    DAY.minusDays(random.nextInt(4_000)), random.nextInt(Integer.MAX_VALUE),
+                    random.nextLong() >>> 1));
+        }
+        changes.add(new SyncChange("phone", PROFILE, "Steps", LocalDate.of(1969, 12, 31), 0, 0));
+
+        assertEquals(sorted(changes), sorted(roundTrip(changes)));
+        assertEquals(List.of(), roundTrip(List.of()));
+    }
+
+    @Test
+    void payloadWithoutTheMagicIsRejected() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SyncCodec.write(CHANGES, out);
+        byte[] bytes = out.toByteArray();
+        bytes[bytes.length / 2] ^= 0x5A;
+        assertThrows(IOException.class, () -> SyncCodec.read(new ByteArrayInputStream(new byte[] {1, 2, 3})));
+        assertThrows(IOException.class, () -> SyncCodec.read(new ByteArrayInputStream(bytes)));
+    }
+
+    private List<Integer> merge(String name, List<List<SyncChange>> batches) throws SQLException {
+        DatabaseHelper.open(new SqliteStore());
+        ConnectionManager.open("jdbc:sqlite:" + dir.resolve(name));
+        DatabaseHelper.initializeTables();
+        DatabaseHelper.switchProfile(PROFILE);
+        for (List<SyncChange> batch : batches) {
+            assertTrue(DatabaseHelper.applyRemoteChanges(batch));
+        }
+        List<Integer> days = new ArrayList<>();
+        TimeSeries series = new TimeSeries(2);
+        for (String metric : List.of("Hydration", "Steps")) {
+            DatabaseHelper.fillDaily(PROFILE, metric, DAY.toEpochDay(), DAY.plusDays(1).toEpochDay(), series);
+            days.add((int) series.value(0));
+            days.add((int) series.value(1));
+        }
+        DatabaseHelper.close();
+        return days;
+    }
+
+    @Test
+    void mergesConvergeWhateverTheOrder() throws SQLException {
+        List<Integer> expected = List.of(750 + 250, 0, 0, 1_000 + 4_000);
+        List<SyncChange> reversed = new ArrayList<>(CHANGES);
+        Collections.reverse(reversed);
+        List<SyncChange> shuffled = new ArrayList<>(CHANGES);
+        Collections.shuffle(shuffled, new Random(3));
+
+        assertEquals(expected, merge("in-order.db", List.of(CHANGES)));
+        assertEquals(expected, merge("reversed.db", List.of(reversed)));
+        assertEquals(expected, merge("one-by-one.db", shuffled.stream().map(List::of).toList()));
+    }
+
+    @Test
+    void replayedChangesCountOnce() throws SQLException {
+        List<Integer> expected = List.of(750 + 250, 0, 0, 1_000 + 4_000);
+        List<SyncChange> twice = new ArrayList<>(CHANGES);
+        twice.addAll(CHANGES);
+
+        assertEquals(expected, merge("twice.db", List.of(CHANGES, CHANGES)));
+        assertEquals(expected, merge("doubled.db", List.of(twice)));
+        assertEquals(expected, merge("stale.db", List.of(CHANGES, CHANGES.subList(0, 2))));
+    }
+}
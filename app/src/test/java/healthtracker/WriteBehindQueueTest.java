@@ -0,0 +1,128 @@
+package healthtracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Increments still queued when the store closes must reach disk, on both engines, even when the
+// closing thread has been interrupted; a write the store rejects must not hold up the others.
+class WriteBehindQueueTest {
+    // The mapped engine's files start at epoch day 0, so it rejects any batch holding this day
+    private static final LocalDate REJECTED = LocalDate.of(1969, 12, 31);
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Log.setLevel(Log.Level.WARN);
+    }
+
+    @AfterEach
+    void closeStore() {
+        Thread.interrupted();
+        DatabaseHelper.close();
+    }
+
+    private void openMapped() {
+        DatabaseHelper.open(new MappedFileStore(dir.toString()));
+        DatabaseHelper.initializeTables();
+        DatabaseHelper.switchProfile(DatabaseHelper.DEFAULT_PROFILE);
+    }
+
+    private void openSqlite() throws SQLException {
+        DatabaseHelper.open(new SqliteStore());
+        ConnectionManager.open("jdbc:sqlite:" + dir.resolve("health.db"));
+        DatabaseHelper.initializeTables();
+        DatabaseHelper.switchProfile(DatabaseHelper.DEFAULT_PROFILE);
+    }
+
+    @Test
+    void incrementRightBeforeCloseSurvivesOnMappedStore() {
+        openMapped();
+        DatabaseHelper.postIncrement("Hydration", 250);
+        DatabaseHelper.close();
+
+        openMapped();
+        assertEquals(250, DatabaseHelper.getDailyTotal("Hydration"));
+    }
+
+    @Test
+    void closeFromAnInterruptedThreadKeepsQueuedWrites() {
+        openMapped();
+        DatabaseHelper.postIncrement("Hydration", 250);
+        DatabaseHelper.postIncrement("Posture", 1);
+        Thread.currentThread().interrupt();
+        DatabaseHelper.close();
+        assertTrue(Thread.interrupted(), "the interrupt is kept for the caller");
+
+        openMapped();
+        assertEquals(250, DatabaseHelper.getDailyTotal("Hydration"));
+        assertEquals(1, DatabaseHelper.getDailyTotal("Posture"));
+    }
+
+    @Test
+    void burstBeforeCloseIsWrittenInFull() throws SQLException {
+        openSqlite();
+        for (int i = 0; i < 1_000; i++) {
+            DatabaseHelper.postIncrement("Steps", 10);
+        }
+        DatabaseHelper.close();
+
+        openSqlite();
+        assertEquals(10_000, DatabaseHelper.getDailyTotal("Steps"));
+    }
+
+    // Until nothing is pending for today or the rejected day, i.e. written or dropped
+    private static void awaitDrained(WriteBehindQueue queue, LocalDate today) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (queue.pendingAmount(DatabaseHelper.DEFAULT_PROFILE, "Hydration", today) != 0
+                || queue.pendingAmount(DatabaseHelper.DEFAULT_PROFILE, "Hydration", REJECTED) != 0) {
+            assertTrue(System.nanoTime() < deadline, "the queue did not drain");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void postHydration(WriteBehindQueue queue, LocalDate day, int amount) {
+        queue.postIncrement(DatabaseHelper.DEFAULT_PROFILE, "Hydration", day, System.currentTimeMillis(), amount);
+    }
+
+    @Test
+    void rejectedWriteIsDroppedAndTheRestOfItsBatchWritten() throws InterruptedException {
+        openMapped();
+        Metrics.Counter dropped = Metrics.counter("db.writeBehindDropped");
+        long droppedBefore = dropped.getCount();
+        LocalDate today = AppClock.today();
+        WriteBehindQueue queue = new WriteBehindQueue();
+        postHydration(queue, REJECTED, 100);
+        for (int i = 0; i < 10; i++) {
+            postHydration(queue, today, 25);
+        }
+
+        awaitDrained(queue, today);
+        assertEquals(250, DatabaseHelper.getStore().loadDaily(DatabaseHelper.DEFAULT_PROFILE, "Hydration", today));
+        assertEquals(droppedBefore + 1, dropped.getCount());
+        queue.close();
+    }
+
+    @Test
+    void rejectedWriteOnItsOwnDoesNotHoldUpLaterWrites() throws InterruptedException {
+        openMapped();
+        LocalDate today = AppClock.today();
+        WriteBehindQueue queue = new WriteBehindQueue();
+        postHydration(queue, REJECTED, 100);
+        Thread.sleep(800); // flushed alone, rejected, and now waiting to be retried
+
+        postHydration(queue, today, 250);
+        awaitDrained(queue, today);
+        assertEquals(250, DatabaseHelper.getStore().loadDaily(DatabaseHelper.DEFAULT_PROFILE, "Hydration", today));
+        queue.close();
+    }
+}
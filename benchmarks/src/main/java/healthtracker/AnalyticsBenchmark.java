@@ -0,0 +1,98 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The analytics panels over ten years of history. update is what every increment pays: moving one
+// metric's streak, window sums, week and hour profile. summaries is what a panel refresh reads.
+// seed is the one pass over the history when a profile is first shown, and rescan is what the
+// same streak and means cost without the engine: reading and walking the whole history each time.
+// pastDaysChanged is what a synced or imported change to the last few days costs afterwards.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnalyticsBenchmark {
+    @Param({"sqlite", "mapped"})
+    public String storage;
+
+    @Param({"10"})
+    public int years;
+
+    private Path dir;
+    private AnalyticsEngine analytics;
+    private LocalDate today;
+    private int total;
+    private final TimeSeries history = new TimeSeries(4_000);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open(storage, dir);
+        SyntheticDataGenerator.seed(years, 42);
+        analytics = DatabaseHelper.getAnalytics();
+        analytics.summaries(DatabaseHelper.DEFAULT_PROFILE);
+        today = LocalDate.now();
+        total = DatabaseHelper.getDailyTotal("Steps");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    public void update() {
+        analytics.totalChanged(DatabaseHelper.DEFAULT_PROFILE, "Steps", today, ++total);
+    }
+
+    @Benchmark
+    public List<AnalyticsEngine.Summary> summaries() {
+        return analytics.summaries(DatabaseHelper.DEFAULT_PROFILE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<AnalyticsEngine.Summary> seed() {
+        analytics.invalidate(DatabaseHelper.DEFAULT_PROFILE);
+        return analytics.summaries(DatabaseHelper.DEFAULT_PROFILE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void pastDaysChanged() {
+        analytics.historyChanged(DatabaseHelper.DEFAULT_PROFILE, "Steps", today.minusDays(3));
+    }
+
+    // Current and longest streak plus the 7- and 30-day means of one metric from a full read
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double rescan() {
+        long last = today.toEpochDay();
+        int days = years * 366;
+        DatabaseHelper.fillDaily("Steps", last - days + 1, last, history);
+        int goal = DatabaseHelper.getGoal("Steps");
+        int run = 0;
+        int longest = 0;
+        for (int i = 0; i < history.size(); i++) {
+            run = history.value(i) >= goal ? run + 1 : 0;
+            longest = Math.max(longest, run);
+        }
+        double sum7 = 0;
+        double sum30 = 0;
+        for (int i = 1; i <= 30; i++) {
+            double value = history.value(history.size() - 1 - i);
+            if (i <= 7) sum7 += value;
+            sum30 += value;
+        }
+        return run + longest + sum7 / 7 + sum30 / 30;
+    }
+}
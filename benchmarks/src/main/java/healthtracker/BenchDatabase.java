@@ -0,0 +1,61 @@
+package healthtracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// A throwaway database in a temp directory for one benchmark trial, on either engine
+final class BenchDatabase {
+    private BenchDatabase() {}
+
+    static Path createDirectory() throws IOException {
+        return Files.createTempDirectory("health-bench");
+    }
+
+    // Points DatabaseHelper at the engine's files under dir and creates the schema
+    static void open(String storage, Path dir) throws SQLException {
+        switch (storage) {
+            case "sqlite" -> {
+                DatabaseHelper.open(new SqliteStore());
+                ConnectionManager.open("jdbc:sqlite:" + dir.resolve("health.db"));
+            }
+            case "mapped" -> DatabaseHelper.open(new MappedFileStore(dir.resolve("mapped").toString()));
+            default -> throw new IllegalArgumentException("Unknown storage: " + storage);
+        }
+        DatabaseHelper.initializeTables();
+    }
+
+    // Creates a database with years of synthetic history and closes it again
+    static Path seeded(String storage, int years) throws IOException, SQLException {
+        Path dir = createDirectory();
+        open(storage, dir);
+        SyntheticDataGenerator.seed(years, 42);
+        DatabaseHelper.close();
+        return dir;
+    }
+
+    static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.walk(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path target = to.resolve(from.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(file, target);
+                }
+            }
+        }
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
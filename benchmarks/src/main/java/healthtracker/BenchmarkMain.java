@@ -0,0 +1,50 @@
+package healthtracker;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Runs JMH with the GC profiler (allocation rate and bytes per op) always on, and writes the
+// results as JSON to results/jmh-<timestamp>.json unless -rf/-rff say otherwise. Any other
+// JMH option works as usual, e.g. a benchmark regex or -p years=20.
+//
+//   java -jar benchmarks/target/benchmarks.jar [JMH options]
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        String result = cli.getResult().orElseGet(() -> {
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            return "results/jmh-" + stamp + ".json";
+        });
+        Path parent = Paths.get(result).toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cli);
+        if (cli.getProfilers().stream().noneMatch(p -> p.getKlass().equals(GCProfiler.class.getName())
+                || p.getKlass().equals("gc"))) {
+            options.addProfiler(GCProfiler.class);
+        }
+        options.resultFormat(cli.getResultFormat().orElse(ResultFormatType.JSON));
+        options.result(result);
+
+        new Runner(options.build()).run();
+        System.out.println("Results written to " + result);
+    }
+}
@@ -0,0 +1,107 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Imports a million records spread over five years and three metrics, as a wearable export
+// would have them: many timestamped samples per day. Each invocation imports into a new profile,
+// so every run writes the same amount; the default profile is imported once up front, and
+// exportFiveYears writes it back out as CSV.
+//
+//   java -jar benchmarks/target/benchmarks.jar BulkImportBenchmark
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkImportBenchmark {
+    private static final int RECORDS = 1_000_000;
+    private static final int DAYS = 5 * 365;
+
+    @Param({"sqlite", "mapped"})
+    public String storage;
+
+    @Param({"csv", "apple"})
+    public String format;
+
+    private Path dir;
+    private Path file;
+    private int run;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        file = format.equals("csv") ? writeCsv(dir.resolve("history.csv")) : writeAppleHealth(dir.resolve("export.xml"));
+        BenchDatabase.open(storage, dir);
+        BulkImporter.importFile(DatabaseHelper.DEFAULT_PROFILE, file, parsedFormat(), (records, done, total) -> {});
+    }
+
+    private BulkImporter.Format parsedFormat() {
+        return format.equals("csv") ? BulkImporter.Format.CSV : BulkImporter.Format.APPLE_HEALTH;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    public BulkImporter.Result importMillion() throws IOException {
+        return BulkImporter.importFile("import-" + run++, file, parsedFormat(), (records, done, total) -> {});
+    }
+
+    @Benchmark
+    public long exportFiveYears() throws IOException {
+        LocalDate today = LocalDate.now();
+        return BulkExporter.export(DatabaseHelper.DEFAULT_PROFILE, today.minusDays(DAYS - 1), today,
+                BulkExporter.Format.CSV, dir.resolve("export.csv"), (records, done, total) -> {});
+    }
+
+    private static Path writeCsv(Path path) throws IOException {
+        String[] metrics = {"Hydration", "Posture", "Steps"};
+        Random random = new Random(42);
+        LocalDate first = LocalDate.now().minusDays(DAYS - 1);
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            out.write("timestamp,metric,value\n");
+            for (int i = 0; i < RECORDS; i++) {
+                LocalDate day = first.plusDays((long) i * DAYS / RECORDS);
+                out.write(String.format("%sT%02d:%02d:00,%s,%d%n", day, random.nextInt(24), random.nextInt(60),
+                        metrics[i % metrics.length], 1 + random.nextInt(100)));
+            }
+        }
+        return path;
+    }
+
+    // Only step and water records are mapped, so a third of the records are heart rate samples that
+    // are parsed and skipped, as in a real export
+    private static Path writeAppleHealth(Path path) throws IOException {
+        String[] types = {"HKQuantityTypeIdentifierStepCount", "HKQuantityTypeIdentifierDietaryWater",
+                "HKQuantityTypeIdentifierHeartRate"};
+        String[] units = {"count", "mL", "count/min"};
+        Random random = new Random(42);
+        LocalDate first = LocalDate.now().minusDays(DAYS - 1);
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!DOCTYPE HealthData [\n<!ELEMENT HealthData (Record*)>\n]>\n");
+            out.write("<HealthData locale=\"en_US\">\n");
+            for (int i = 0; i < RECORDS; i++) {
+                LocalDate day = first.plusDays((long) i * DAYS / RECORDS);
+                int type = i % types.length;
+                String time = String.format("%s %02d:%02d:00 +0100", day, random.nextInt(24), random.nextInt(60));
+                out.write(String.format(" <Record type=\"%s\" sourceName=\"Watch\" unit=\"%s\" creationDate=\"%s\" " +
+                                "startDate=\"%s\" endDate=\"%s\" value=\"%d\"/>%n",
+                        types[type], units[type], time, time, time, 1 + random.nextInt(100)));
+            }
+            out.write("</HealthData>\n");
+        }
+        return path;
+    }
+}
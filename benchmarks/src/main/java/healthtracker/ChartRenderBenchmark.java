@@ -0,0 +1,109 @@
+package healthtracker;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.chart.AreaChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.layout.StackPane;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Time to load a series into a dashboard-sized AreaChart and run CSS + layout on it, for
+// 365, 3,650 and 36,500 daily points, passed through as-is or downsampled to the chart width.
+// Needs a display, or Monocle headless: -jvmArgs "-Dglass.platform=Monocle -Dmonocle.platform=Headless"
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChartRenderBenchmark {
+    private static final int CHART_WIDTH = 930;
+    private static final int MAX_POINTS = CHART_WIDTH / 2;
+
+    @Param({"365", "3650", "36500"})
+    public int points;
+
+    @Param({"raw", "lttb", "minmax"})
+    public String mode;
+
+    private TimeSeries data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        TimeSeries raw = synthetic(points);
+        data = switch (mode) {
+            case "raw" -> raw;
+            case "lttb" -> {
+                TimeSeries lttb = new TimeSeries(MAX_POINTS);
+                Downsampler.lttb(raw, MAX_POINTS, lttb);
+                yield lttb;
+            }
+            case "minmax" -> {
+                TimeSeries minMax = new TimeSeries(MAX_POINTS);
+                Downsampler.minMax(raw, MAX_POINTS / 2, minMax);
+                yield minMax;
+            }
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Platform.exit();
+    }
+
+    @Benchmark
+    public StackPane render() throws Exception {
+        AtomicReference<StackPane> rendered = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                rendered.set(render(data));
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        return rendered.get();
+    }
+
+    private static StackPane render(TimeSeries data) {
+        AreaChart<Number, Number> chart = new AreaChart<>(new NumberAxis(), new NumberAxis());
+        chart.setAnimated(false);
+        StackPane root = new StackPane(chart);
+        new Scene(root, CHART_WIDTH, 300);
+
+        List<XYChart.Data<Number, Number>> points = new ArrayList<>(data.size());
+        for (int i = 0; i < data.size(); i++) {
+            points.add(new XYChart.Data<>(data.epochDay(i), data.value(i)));
+        }
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        series.getData().setAll(points);
+        chart.getData().add(series);
+
+        root.applyCss();
+        root.layout();
+        return root;
+    }
+
+    private static TimeSeries synthetic(int n) {
+        Random random = new Random(42);
+        TimeSeries series = new TimeSeries(n);
+        for (int i = 0; i < n; i++) {
+            series.add(i, 500 * (1 + random.nextInt(10)) + (i % 97 == 0 ? 20_000 : 0));
+        }
+        return series;
+    }
+}
@@ -0,0 +1,54 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Time from nothing open to a usable store: opening the engine and initializeTables on a copy
+// of a seeded database, plus the first progress read the dashboard makes. Every invocation
+// gets a fresh copy, so nothing is warm apart from the JVM and the OS page cache.
+@State(Scope.Benchmark)
+@Fork(3)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColdStartBenchmark {
+    @Param({"sqlite", "mapped"})
+    public String storage;
+
+    @Param({"0", "10"})
+    public int years;
+
+    private Path template;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        template = BenchDatabase.seeded(storage, years);
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.copy(template, dir);
+    }
+
+    @Benchmark
+    public double initializeTables() throws Exception {
+        BenchDatabase.open(storage, dir);
+        return DatabaseHelper.getDailyProgress("Hydration");
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() throws Exception {
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTemplate() throws Exception {
+        BenchDatabase.delete(template);
+    }
+}
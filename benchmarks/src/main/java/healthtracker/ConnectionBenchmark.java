@@ -0,0 +1,148 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Per-call latency of the four original DatabaseHelper operations with a fresh connection and
+// statement on every call (how DatabaseHelper worked before ConnectionManager) against the same SQL
+// on ConnectionManager's long-lived connection and statement cache. Both sides run identical
+// statements, so the difference is the connection and statement setup alone.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConnectionBenchmark {
+    private static final String PROFILE = DatabaseHelper.DEFAULT_PROFILE;
+    private static final String INCREMENT_SQL = "INSERT INTO Hydration (profile, date, value) VALUES (?, ?, ?) " +
+            "ON CONFLICT(profile, date) DO UPDATE SET value = value + excluded.value";
+    private static final String DAILY_SQL = "SELECT value FROM Hydration WHERE profile = ? AND date = ?";
+    private static final String LAST_N_SQL = "SELECT date, value FROM Hydration WHERE profile = ? ORDER BY date DESC LIMIT ?";
+    private static final String REMINDERS_SQL =
+            "INSERT OR REPLACE INTO Reminders (profile, date, metric, done) VALUES (?, ?, ?, ?)";
+
+    private Path dir;
+    private String url;
+    private String today;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open("sqlite", dir);
+        url = "jdbc:sqlite:" + dir.resolve("health.db");
+        today = LocalDate.now().toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    public int incrementPerCall() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement(INCREMENT_SQL)) {
+            return increment(pstmt);
+        }
+    }
+
+    @Benchmark
+    public int incrementPooled() throws SQLException {
+        synchronized (ConnectionManager.LOCK) {
+            return increment(ConnectionManager.prepare(INCREMENT_SQL));
+        }
+    }
+
+    @Benchmark
+    public int dailyProgressPerCall() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement(DAILY_SQL)) {
+            return daily(pstmt);
+        }
+    }
+
+    @Benchmark
+    public int dailyProgressPooled() throws SQLException {
+        synchronized (ConnectionManager.LOCK) {
+            return daily(ConnectionManager.prepare(DAILY_SQL));
+        }
+    }
+
+    @Benchmark
+    public int lastNValuesPerCall() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement(LAST_N_SQL)) {
+            return lastN(pstmt);
+        }
+    }
+
+    @Benchmark
+    public int lastNValuesPooled() throws SQLException {
+        synchronized (ConnectionManager.LOCK) {
+            return lastN(ConnectionManager.prepare(LAST_N_SQL));
+        }
+    }
+
+    @Benchmark
+    public int saveRemindersPerCall() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement pstmt = conn.prepareStatement(REMINDERS_SQL)) {
+            return reminders(pstmt);
+        }
+    }
+
+    @Benchmark
+    public int saveRemindersPooled() throws SQLException {
+        synchronized (ConnectionManager.LOCK) {
+            return reminders(ConnectionManager.prepare(REMINDERS_SQL));
+        }
+    }
+
+    private int increment(PreparedStatement pstmt) throws SQLException {
+        pstmt.setString(1, PROFILE);
+        pstmt.setString(2, today);
+        pstmt.setInt(3, 1);
+        return pstmt.executeUpdate();
+    }
+
+    private int daily(PreparedStatement pstmt) throws SQLException {
+        pstmt.setString(1, PROFILE);
+        pstmt.setString(2, today);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private int lastN(PreparedStatement pstmt) throws SQLException {
+        pstmt.setString(1, PROFILE);
+        pstmt.setInt(2, 30);
+        int rows = 0;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) rows++;
+        }
+        return rows;
+    }
+
+    // The checklist's three rows, one statement each
+    private int reminders(PreparedStatement pstmt) throws SQLException {
+        int rows = 0;
+        for (String metric : new String[] {"Hydration", "Posture", "Steps"}) {
+            pstmt.setString(1, PROFILE);
+            pstmt.setString(2, today);
+            pstmt.setString(3, metric);
+            pstmt.setInt(4, metric.equals("Posture") ? 0 : 1);
+            rows += pstmt.executeUpdate();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,88 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// batchSize increments written the way incrementValue did before the event log, one auto-committed
+// UPSERT of the day's activity row each, against the event log path: batched appends to Events plus
+// one coalesced UPSERT per day and metric, in one transaction. Divide by batchSize for the cost per
+// increment.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventLogBenchmark {
+    private static final String PROFILE = DatabaseHelper.DEFAULT_PROFILE;
+    private static final String[] METRICS =
+            MetricRegistry.all().stream().map(MetricRegistry.Metric::name).toArray(String[]::new);
+
+    @Param({"1", "64", "1000"})
+    public int batchSize;
+
+    private Path dir;
+    private String[] upsertSql;
+    private final List<WriteBehindQueue.Increment> events = new ArrayList<>();
+    private final Map<WriteBehindQueue.Key, Integer> daily = new LinkedHashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open("sqlite", dir);
+        upsertSql = new String[METRICS.length];
+        for (int i = 0; i < METRICS.length; i++) {
+            upsertSql[i] = "INSERT INTO " + METRICS[i] + " (profile, date, value) VALUES (?, ?, ?) " +
+                    "ON CONFLICT(profile, date) DO UPDATE SET value = value + excluded.value";
+        }
+    }
+
+    // Built outside the measurement, as the queue has them ready when it flushes
+    @Setup(Level.Invocation)
+    public void prepareBatch() {
+        LocalDate today = LocalDate.now();
+        events.clear();
+        daily.clear();
+        for (int i = 0; i < batchSize; i++) {
+            String metric = METRICS[i % METRICS.length];
+            events.add(new WriteBehindQueue.Increment(PROFILE, metric, today, System.currentTimeMillis(), 1));
+            daily.merge(new WriteBehindQueue.Key(PROFILE, metric, today), 1, Integer::sum);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    public int upsertPerIncrement() throws SQLException {
+        String today = LocalDate.now().toString();
+        int rows = 0;
+        synchronized (ConnectionManager.LOCK) {
+            for (int i = 0; i < batchSize; i++) {
+                PreparedStatement pstmt = ConnectionManager.prepare(upsertSql[i % METRICS.length]);
+                pstmt.setString(1, PROFILE);
+                pstmt.setString(2, today);
+                pstmt.setInt(3, 1);
+                rows += pstmt.executeUpdate();
+            }
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public boolean eventLog() {
+        return DatabaseHelper.writeBatch(events, daily, List.of());
+    }
+}
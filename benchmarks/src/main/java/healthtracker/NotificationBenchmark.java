@@ -0,0 +1,65 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The reminder notification path: handing a notification to the dispatcher and waiting until the
+// sink has it, rejecting a repeat, and what one notification costs the JVM when a shell is started
+// for it compared with writing a line to a long-lived helper.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NotificationBenchmark {
+    private final MemorySink memory = new MemorySink();
+    private NotificationDispatcher dispatcher;
+    private HelperProcessSink helper;
+    private final NotificationSink.Notification repeated =
+            new NotificationSink.Notification("Hydration Reminder", "Time to drink water!", "Time to drink water");
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // No rate limit, so every distinct notification goes through
+        dispatcher = new NotificationDispatcher(memory, 1024, 60_000, 1, 0);
+        dispatcher.post(repeated);
+        helper = new HelperProcessSink("sh", List.of("/bin/sh", "-s"), List.of(), n -> ":");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.close();
+        helper.close();
+    }
+
+    @Benchmark
+    public boolean postAndDeliver() throws InterruptedException {
+        int expected = memory.size() + 1;
+        dispatcher.post(new NotificationSink.Notification("Reminder", "message " + sequence++, ""));
+        return memory.awaitSize(expected, 1_000);
+    }
+
+    @Benchmark
+    public boolean postDuplicate() {
+        return dispatcher.post(repeated);
+    }
+
+    @Benchmark
+    public void pipeToHelper() throws IOException {
+        helper.send(repeated);
+    }
+
+    @Benchmark
+    public int processPerNotification() throws IOException, InterruptedException {
+        return new ProcessBuilder("/bin/sh", "-c", ":")
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start()
+                .waitFor();
+    }
+}
@@ -0,0 +1,68 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// The write and read paths every confirm and progress ring goes through, on both engines over
+// a database seeded with the given years of history. The contended variant runs four threads
+// against the same store, as the write-behind flush, chart loader and FX thread would.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PersistenceBenchmark {
+    @Param({"sqlite", "mapped"})
+    public String storage;
+
+    @Param({"1", "10"})
+    public int years;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open(storage, dir);
+        SyntheticDataGenerator.seed(years, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void incrementValue() {
+        DatabaseHelper.incrementValue("Steps", 1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public void incrementValueContended() {
+        DatabaseHelper.incrementValue("Steps", 1);
+    }
+
+    // What the progress rings read: served from the daily totals cache
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double getDailyProgress() {
+        return DatabaseHelper.getDailyProgress("Hydration");
+    }
+
+    // The first read of a day, when the cache has to go to the store
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double getDailyProgressUncached() {
+        DatabaseHelper.getDailyTotals().clear();
+        return DatabaseHelper.getDailyProgress("Hydration");
+    }
+}
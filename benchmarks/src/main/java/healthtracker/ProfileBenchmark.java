@@ -0,0 +1,80 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Per-profile reads as the number of profiles grows: every profile has the same 90 days of
+// history, and each op picks a random one, so the store sees a cold profile most of the time.
+// Flat scores across the profiles parameter mean the (profile, date) keys are doing their job.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProfileBenchmark {
+    @Param({"sqlite", "mapped"})
+    public String storage;
+
+    @Param({"1", "100", "1000", "5000"})
+    public int profiles;
+
+    private static final int HISTORY_DAYS = 90;
+
+    private Path dir;
+    private final List<String> names = new ArrayList<>();
+    private final TimeSeries reused = new TimeSeries(31);
+    private long today;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        for (int i = 0; i < profiles; i++) {
+            names.add(String.format("user-%05d", i));
+        }
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open(storage, dir);
+        SyntheticDataGenerator.seed(names, LocalDate.now().minusDays(HISTORY_DAYS), 42);
+        today = LocalDate.now().toEpochDay();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DatabaseHelper.switchProfile(DatabaseHelper.DEFAULT_PROFILE);
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    private String randomProfile() {
+        return names.get(ThreadLocalRandom.current().nextInt(names.size()));
+    }
+
+    @Benchmark
+    public String switchProfile() {
+        DatabaseHelper.switchProfile(randomProfile());
+        return DatabaseHelper.getProfile();
+    }
+
+    @Benchmark
+    public TimeSeries monthOfRandomProfile() {
+        DatabaseHelper.fillDaily(randomProfile(), "Steps", today - 29, today, reused);
+        return reused;
+    }
+
+    @Benchmark
+    public TimeSeries weeklyRollupOfRandomProfile() {
+        DatabaseHelper.fillRollup(randomProfile(), "Steps", RollupPeriod.WEEK, 12, reused);
+        return reused;
+    }
+
+    // Served from the profile's totals cache once that profile has been read
+    @Benchmark
+    public int todayTotalOfRandomProfile() {
+        return DatabaseHelper.getDailyTotal(randomProfile(), "Hydration");
+    }
+}
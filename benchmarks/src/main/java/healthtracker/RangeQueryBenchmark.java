@@ -0,0 +1,67 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// The chart range queries over years of history: getLastNValues, which allocates its result,
+// against filling a reused TimeSeries, plus the weekly and monthly rollups behind the long
+// ranges. Run with the GC profiler (BenchmarkMain does) to see bytes per op.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RangeQueryBenchmark {
+    @Param({"sqlite", "mapped"})
+    public String storage;
+
+    @Param({"10"})
+    public int years;
+
+    @Param({"7", "30", "365", "3650"})
+    public int days;
+
+    private Path dir;
+    private final TimeSeries reused = new TimeSeries(4_000);
+    private long today;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open(storage, dir);
+        SyntheticDataGenerator.seed(years, 42);
+        today = LocalDate.now().toEpochDay();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    public double[] getLastNValues() {
+        return DatabaseHelper.getLastNValues("Steps", days);
+    }
+
+    @Benchmark
+    public TimeSeries fillDailyReused() {
+        DatabaseHelper.fillDaily("Steps", today - days + 1, today, reused);
+        return reused;
+    }
+
+    // Weekly points for ranges up to a year, monthly beyond, as ChartController picks them
+    @Benchmark
+    public TimeSeries fillRollupReused() {
+        if (days <= 366) {
+            DatabaseHelper.fillRollup("Steps", RollupPeriod.WEEK, (days + 6) / 7, reused);
+        } else {
+            DatabaseHelper.fillRollup("Steps", RollupPeriod.MONTH, days / 30 + 1, reused);
+        }
+        return reused;
+    }
+}
@@ -0,0 +1,68 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Reminder condition evaluation: the goal check made for every reminder when the engine starts,
+// and GoalEvents.totalChanged, which runs on every increment below and at the goal.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReminderBenchmark {
+    @Param({"sqlite", "mapped"})
+    public String storage;
+
+    private Path dir;
+    private final GoalEvents goalEvents = new GoalEvents();
+    private final LocalDate today = LocalDate.now();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open(storage, dir);
+        DatabaseHelper.incrementValue("Posture", DatabaseHelper.getGoal("Posture"));
+        goalEvents.addListener(new GoalEvents.Listener() {
+            @Override
+            public void goalReached(String table) {
+            }
+
+            @Override
+            public void dayRolledOver(LocalDate day) {
+            }
+        });
+        goalEvents.totalChanged("Posture", today, 4, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    public int goalCheck() {
+        int met = 0;
+        for (ReminderEngine.Reminder reminder : ReminderEngine.DEFAULT_REMINDERS) {
+            if (DatabaseHelper.getDailyTotal(reminder.table()) >= DatabaseHelper.getGoal(reminder.table())) {
+                met++;
+            }
+        }
+        return met;
+    }
+
+    @Benchmark
+    public void totalChangedBelowGoal() {
+        goalEvents.totalChanged("Hydration", today, 250, 2000);
+    }
+
+    @Benchmark
+    public void totalChangedGoalAlreadyReached() {
+        goalEvents.totalChanged("Posture", today, 5, 4);
+    }
+}
@@ -0,0 +1,264 @@
+package healthtracker;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+// Sustained load on the headless server from thousands of simulated users, each on its own
+// keep-alive connection. Users are closed loops: a request, its response, a random think time
+// averaging -Dload.thinkMs, the next request. Requests are 60% increments, 30% progress reads and
+// 10% 30-day history reads spread over -Dload.profiles profiles, while -Dload.streams clients hold
+// an event stream open. Latency runs from send to full response; the warmup is not counted.
+//
+// All connections share one selector thread with a minimal HTTP/1.1 client (the server always
+// sends Content-Length), so on a small machine the generator leaves most of the CPU to the server.
+//
+//   java -cp benchmarks/target/benchmarks.jar healthtracker.ServerLoadTest [users] [seconds] [url]
+//
+// Without a url, a server on a throwaway SQLite database is started in this JVM.
+public class ServerLoadTest {
+    private static final int THINK_MS = Integer.getInteger("load.thinkMs", 250);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmupSeconds", 5);
+    private static final int PROFILES = Integer.getInteger("load.profiles", 50);
+    private static final int STREAMS = Integer.getInteger("load.streams", 500);
+    private static final List<String> METRICS = MetricRegistry.all().stream().map(MetricRegistry.Metric::name).toList();
+
+    private final InetSocketAddress server;
+    private final String host;
+    private final Selector selector;
+    private final Random random = new Random(42);
+    private final PriorityQueue<User> sleeping = new PriorityQueue<>((a, b) -> Long.compare(a.wakeNanos, b.wakeNanos));
+    private LatencyHistogram latency = new LatencyHistogram("load");
+    private long requests;
+    private long errors;
+    private long reconnects;
+    private long eventBytes;
+
+    private final class User {
+        final boolean stream;
+        SocketChannel channel;
+        SelectionKey key;
+        ByteBuffer out;
+        ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        long sentNanos;
+        long wakeNanos;
+
+        User(boolean stream) {
+            this.stream = stream;
+        }
+    }
+
+    private ServerLoadTest(URI uri) throws IOException {
+        this.server = new InetSocketAddress(uri.getHost(), uri.getPort());
+        this.host = uri.getHost() + ":" + uri.getPort();
+        this.selector = Selector.open();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        Log.setLevel(Log.Level.WARN);
+
+        Path dir = null;
+        HeadlessServer embedded = null;
+        URI uri;
+        if (args.length > 2) {
+            uri = URI.create(args[2]);
+        } else {
+            dir = BenchDatabase.createDirectory();
+            BenchDatabase.open("sqlite", dir);
+            embedded = new HeadlessServer(new InetSocketAddress("127.0.0.1", 0));
+            uri = embedded.getUri();
+        }
+        try {
+            new ServerLoadTest(uri).run(users, seconds);
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+                DatabaseHelper.close();
+                BenchDatabase.delete(dir);
+            }
+        }
+    }
+
+    private void run(int users, int seconds) throws IOException {
+        System.out.printf("%,d users, %,d event streams, think time ~%d ms, %d s warmup + %d s against %s%n",
+                users, STREAMS, THINK_MS, WARMUP_SECONDS, seconds, host);
+        long now = System.nanoTime();
+        for (int i = 0; i < STREAMS; i++) {
+            connect(new User(true));
+        }
+        for (int i = 0; i < users; i++) {
+            User user = new User(false);
+            user.wakeNanos = now + random.nextInt(THINK_MS + 1) * 1_000_000L; // staggered start
+            connect(user);
+        }
+
+        long measureFrom = now + WARMUP_SECONDS * 1_000_000_000L;
+        long end = measureFrom + seconds * 1_000_000_000L;
+        long nextReport = measureFrom + 5_000_000_000L;
+        boolean measuring = false;
+        long lastRequests = 0;
+        while ((now = System.nanoTime()) < end) {
+            if (!measuring && now >= measureFrom) {
+                measuring = true;
+                latency = new LatencyHistogram("load");
+                requests = errors = reconnects = 0;
+            }
+            if (measuring && now >= nextReport) {
+                System.out.printf(Locale.ROOT, "%4d s  %,9.0f req/s  p99 %7.1f ms  errors %d%n",
+                        (nextReport - measureFrom) / 1_000_000_000L, (requests - lastRequests) / 5.0,
+                        latency.snapshot().p99() / 1e6, errors);
+                lastRequests = requests;
+                nextReport += 5_000_000_000L;
+            }
+            while (!sleeping.isEmpty() && sleeping.peek().wakeNanos <= now) {
+                send(sleeping.poll());
+            }
+            long waitMs = sleeping.isEmpty() ? 100 : Math.max(1, (sleeping.peek().wakeNanos - now) / 1_000_000);
+            selector.select(Math.min(waitMs, 100));
+            for (SelectionKey key : selector.selectedKeys()) {
+                User user = (User) key.attachment();
+                try {
+                    if (key.isConnectable()) finishConnect(user);
+                    else if (key.isWritable()) write(user);
+                    else if (key.isReadable()) read(user);
+                } catch (IOException e) {
+                    errors++;
+                    reconnect(user);
+                }
+            }
+            selector.selectedKeys().clear();
+        }
+
+        LatencyHistogram.Snapshot s = latency.snapshot();
+        System.out.printf(Locale.ROOT, "%n%,d requests in %d s: %,.0f req/s, %d errors, %d reconnects, %,d event stream bytes%n",
+                requests, seconds, (double) requests / seconds, errors, reconnects, eventBytes);
+        System.out.printf(Locale.ROOT, "latency ms: mean %.2f  p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                s.meanNanos() / 1e6, s.p50() / 1e6, s.p90() / 1e6, s.p99() / 1e6, s.p999() / 1e6, s.max() / 1e6);
+        selector.close();
+    }
+
+    private void connect(User user) throws IOException {
+        user.channel = SocketChannel.open();
+        user.channel.configureBlocking(false);
+        user.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        user.key = user.channel.register(selector, 0, user);
+        if (user.channel.connect(server)) {
+            finishConnect(user);
+        } else {
+            user.key.interestOps(SelectionKey.OP_CONNECT);
+        }
+    }
+
+    private void finishConnect(User user) throws IOException {
+        user.channel.finishConnect();
+        user.key.interestOps(0);
+        if (user.stream) {
+            user.out = request("GET", "/api/events");
+            write(user);
+        } else {
+            sleeping.add(user);
+        }
+    }
+
+    // The server closes connections it considers idle; those are reopened, not counted as errors
+    private void reconnect(User user) {
+        try {
+            user.key.cancel();
+            user.channel.close();
+            user.in.clear();
+            user.wakeNanos = System.nanoTime();
+            connect(user);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot reconnect to " + host, e);
+        }
+    }
+
+    private void send(User user) {
+        String profile = "user-" + random.nextInt(PROFILES);
+        String metric = METRICS.get(random.nextInt(METRICS.size()));
+        int pick = random.nextInt(10);
+        if (pick < 6) {
+            user.out = request("POST", "/api/increment?metric=" + metric + "&profile=" + profile);
+        } else if (pick < 9) {
+            user.out = request("GET", "/api/progress?profile=" + profile);
+        } else {
+            user.out = request("GET", "/api/history?metric=" + metric + "&profile=" + profile);
+        }
+        user.sentNanos = System.nanoTime();
+        try {
+            write(user);
+        } catch (IOException e) {
+            reconnects++;
+            reconnect(user);
+        }
+    }
+
+    private ByteBuffer request(String method, String path) {
+        return ByteBuffer.wrap((method + " " + path + " HTTP/1.1\r\nHost: " + host
+                + "\r\nContent-Length: 0\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void write(User user) throws IOException {
+        user.channel.write(user.out);
+        user.key.interestOps(user.out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void read(User user) throws IOException {
+        if (!user.in.hasRemaining()) {
+            user.in = ByteBuffer.allocate(user.in.capacity() * 2).put(user.in.flip());
+        }
+        int n = user.channel.read(user.in);
+        if (n < 0) {
+            if (user.stream) throw new IOException("Event stream closed");
+            // Closed while idle, before this request was read: send it again on a new connection
+            reconnects++;
+            reconnect(user);
+            return;
+        }
+        if (user.stream) {
+            eventBytes += n;
+            user.in.clear();
+            return;
+        }
+        int length = responseLength(user.in);
+        if (length < 0) return;
+        requests++;
+        latency.record(System.nanoTime() - user.sentNanos);
+        if (user.in.get(9) != '2') errors++; // "HTTP/1.1 2xx"
+        user.in.clear();
+        user.key.interestOps(0);
+        user.wakeNanos = System.nanoTime() + random.nextInt(2 * THINK_MS + 1) * 1_000_000L;
+        sleeping.add(user);
+    }
+
+    // Header plus body length once all of it has arrived, -1 until then
+    private static int responseLength(ByteBuffer in) {
+        int end = in.position();
+        for (int i = 3; i < end; i++) {
+            if (in.get(i) == '\n' && in.get(i - 1) == '\r' && in.get(i - 2) == '\n' && in.get(i - 3) == '\r') {
+                String header = new String(in.array(), 0, i, StandardCharsets.US_ASCII).toLowerCase(Locale.ROOT);
+                int at = header.indexOf("content-length:");
+                int body = 0;
+                if (at >= 0) {
+                    int eol = header.indexOf('\r', at);
+                    body = Integer.parseInt(header.substring(at + 15, eol < 0 ? header.length() : eol).strip());
+                }
+                return i + 1 + body <= end ? i + 1 + body : -1;
+            }
+        }
+        return -1;
+    }
+}
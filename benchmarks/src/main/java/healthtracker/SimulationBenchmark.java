@@ -0,0 +1,58 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Simulated days per second: a week per invocation of every reminder tick (about 4,500 a day),
+// a confirmation of all three tasks every two hours from 8 to 20 with its checklist rows and
+// increments, the goal pauses and the midnight rollovers, on simulated time against the store.
+// The simulation keeps going from one invocation to the next, so the history grows as it would.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SimulationBenchmark {
+    private static final int DAYS = 7;
+
+    @Param({"sqlite", "mapped"})
+    public String storage;
+
+    private Path dir;
+    private ReminderSimulation simulation;
+    private LocalDate day = LocalDate.of(2025, 1, 6);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open(storage, dir);
+        simulation = new ReminderSimulation(day.atStartOfDay());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        simulation.close();
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DAYS)
+    public int week() {
+        for (int i = 0; i < DAYS; i++) {
+            for (int hour = 8; hour <= 20; hour += 2) {
+                simulation.advanceTo(day.atTime(hour, 0));
+                simulation.confirm("Hydration", "Posture", "Steps");
+            }
+            day = day.plusDays(1);
+        }
+        simulation.advanceTo(day.atStartOfDay());
+        int delivered = simulation.getDeliveries().size();
+        simulation.getDeliveries().clear();
+        return delivered;
+    }
+}
@@ -0,0 +1,93 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// One full sync after two devices diverged for the given number of days: this device wrote every
+// metric on each of those days, and so did another device, whose changes are already on the
+// (embedded, loopback) server. Measures the push and the pull, including applying the pulled totals;
+// bytesSent and bytesReceived are the payload sizes on the wire.
+//
+//   java -jar benchmarks/target/benchmarks.jar SyncBenchmark
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SyncBenchmark {
+    @Param({"1", "1826"})
+    public int days;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Wire {
+        public long bytesSent;
+        public long bytesReceived;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesSent = 0;
+            bytesReceived = 0;
+        }
+    }
+
+    private Path dir;
+    private SyncServer server;
+    private SyncEngine engine;
+
+    @Setup(Level.Invocation)
+    public void diverge() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open("sqlite", dir);
+        LocalDate first = LocalDate.now().minusDays(days - 1);
+        Random random = new Random(42);
+
+        Map<WriteBehindQueue.Key, Integer> local = new LinkedHashMap<>();
+        for (int d = 0; d < days; d++) {
+            for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+                local.put(new WriteBehindQueue.Key(DatabaseHelper.DEFAULT_PROFILE, metric.name(), first.plusDays(d)),
+                        metric.increment() * (1 + random.nextInt(8)));
+            }
+        }
+        DatabaseHelper.writeBatch(List.of(), local, List.of());
+
+        server = new SyncServer(new InetSocketAddress("127.0.0.1", 0));
+        String other = UUID.randomUUID().toString();
+        List<SyncChange> remote = new ArrayList<>();
+        long version = 0;
+        for (int d = 0; d < days; d++) {
+            for (MetricRegistry.Metric metric : MetricRegistry.all()) {
+                remote.add(new SyncChange(other, DatabaseHelper.DEFAULT_PROFILE, metric.name(), first.plusDays(d),
+                        metric.increment() * (1 + random.nextInt(8)), ++version));
+            }
+        }
+        server.merge(remote);
+        engine = new SyncEngine(server.getUri());
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws Exception {
+        server.close();
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    public SyncEngine.Stats sync(Wire wire) throws Exception {
+        SyncEngine.Stats stats = engine.sync();
+        wire.bytesSent += stats.bytesSent();
+        wire.bytesReceived += stats.bytesReceived();
+        return stats;
+    }
+}
@@ -0,0 +1,117 @@
+package healthtracker;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Seeds the metric tables with plausible daily values for the given number of years
+// ending today. SQLite is bulk-loaded and its rollups rebuilt once; other engines are
+// fed through the regular batch write path.
+//
+//   java -cp benchmarks/target/benchmarks.jar healthtracker.SyntheticDataGenerator health.db 12
+public class SyntheticDataGenerator {
+    private record Metric(String table, int unit, int maxUnits) {}
+
+    // Every configured metric, up to one and a half times its goal per day
+    private static final List<Metric> METRICS = MetricRegistry.all().stream()
+            .map(m -> new Metric(m.name(), m.increment(), Math.max(1, m.goal() * 3 / 2 / m.increment())))
+            .toList();
+
+    public static void main(String[] args) throws SQLException {
+        String file = args.length > 0 ? args[0] : "health.db";
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        DatabaseHelper.open(new SqliteStore());
+        ConnectionManager.open("jdbc:sqlite:" + file);
+        DatabaseHelper.initializeTables();
+        long start = System.nanoTime();
+        int rows = seed(years, 42);
+        System.out.printf("Seeded %d rows (%d years) in %.1f ms%n", rows, years, (System.nanoTime() - start) / 1e6);
+        DatabaseHelper.close();
+    }
+
+    public static int seed(int years, long randomSeed) throws SQLException {
+        return seed(DatabaseHelper.getProfile(), years, randomSeed);
+    }
+
+    public static int seed(String profile, int years, long randomSeed) throws SQLException {
+        return seed(List.of(profile), LocalDate.now().minusYears(years), randomSeed);
+    }
+
+    // Every profile gets its own history from first to today, in one transaction on SQLite
+    public static int seed(List<String> profiles, LocalDate first, long randomSeed) throws SQLException {
+        Random random = new Random(randomSeed);
+        LocalDate today = LocalDate.now();
+        int rows = 0;
+        if (!(DatabaseHelper.getStore() instanceof SqliteStore)) {
+            for (String profile : profiles) {
+                DatabaseHelper.createProfile(profile);
+                rows += seedBatches(profile, first, today, random);
+            }
+            return rows;
+        }
+
+        synchronized (DatabaseHelper.LOCK) {
+            synchronized (ConnectionManager.LOCK) {
+                Connection conn = ConnectionManager.getConnection();
+                conn.setAutoCommit(false);
+                try {
+                    for (String profile : profiles) {
+                        DatabaseHelper.createProfile(profile);
+                        for (Metric metric : METRICS) {
+                            rows += seedTable(conn, profile, metric, first, today, random);
+                        }
+                    }
+                    conn.commit();
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        }
+        DatabaseHelper.rebuildRollups();
+        return rows;
+    }
+
+    private static int seedTable(Connection conn, String profile, Metric metric, LocalDate first, LocalDate last,
+                                 Random random) throws SQLException {
+        int rows = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT OR REPLACE INTO " + metric.table() + " (profile, date, value) VALUES (?, ?, ?)")) {
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                if (random.nextInt(10) == 0) continue; // leave roughly one day in ten empty
+                pstmt.setString(1, profile);
+                pstmt.setString(2, day.toString());
+                pstmt.setInt(3, value(metric, random));
+                pstmt.addBatch();
+                if (++rows % 1_000 == 0) pstmt.executeBatch();
+            }
+            pstmt.executeBatch();
+        }
+        return rows;
+    }
+
+    private static int seedBatches(String profile, LocalDate first, LocalDate last, Random random) {
+        int rows = 0;
+        Map<WriteBehindQueue.Key, Integer> days = new LinkedHashMap<>();
+        for (Metric metric : METRICS) {
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                if (random.nextInt(10) == 0) continue;
+                days.put(new WriteBehindQueue.Key(profile, metric.table(), day), value(metric, random));
+                if (++rows % 1_000 == 0) {
+                    DatabaseHelper.writeBatch(List.of(), days, List.of());
+                    days.clear();
+                }
+            }
+        }
+        DatabaseHelper.writeBatch(List.of(), days, List.of());
+        return rows;
+    }
+
+    private static int value(Metric metric, Random random) {
+        return metric.unit() * (1 + random.nextInt(metric.maxUnits()));
+    }
+}
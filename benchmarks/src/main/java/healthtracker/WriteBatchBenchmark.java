@@ -0,0 +1,64 @@
+package healthtracker;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// One write-behind flush: batchSize events appended and coalesced into the daily totals in a
+// single batch. Divide by batchSize for the cost per increment.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WriteBatchBenchmark {
+    private static final String[] METRICS =
+            MetricRegistry.all().stream().map(MetricRegistry.Metric::name).toArray(String[]::new);
+
+    @Param({"sqlite", "mapped"})
+    public String storage;
+
+    @Param({"1", "64", "1000"})
+    public int batchSize;
+
+    private Path dir;
+    private final List<WriteBehindQueue.Increment> events = new ArrayList<>();
+    private final Map<WriteBehindQueue.Key, Integer> daily = new LinkedHashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = BenchDatabase.createDirectory();
+        BenchDatabase.open(storage, dir);
+    }
+
+    // Built outside the measurement, as the queue has them ready when it flushes
+    @Setup(Level.Invocation)
+    public void prepareBatch() {
+        LocalDate today = LocalDate.now();
+        events.clear();
+        daily.clear();
+        for (int i = 0; i < batchSize; i++) {
+            String metric = METRICS[i % METRICS.length];
+            events.add(new WriteBehindQueue.Increment(DatabaseHelper.DEFAULT_PROFILE, metric, today, System.currentTimeMillis(), 1));
+            daily.merge(new WriteBehindQueue.Key(DatabaseHelper.DEFAULT_PROFILE, metric, today), 1, Integer::sum);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        DatabaseHelper.close();
+        BenchDatabase.delete(dir);
+    }
+
+    @Benchmark
+    public boolean writeBatch() {
+        return DatabaseHelper.writeBatch(events, daily, List.of());
+    }
+}